@@ -0,0 +1,265 @@
+package com.jetbrains.edu.java
+
+import com.intellij.execution.ExecutionException
+import com.intellij.execution.configurations.GeneralCommandLine
+import com.intellij.execution.process.OSProcessHandler
+import com.intellij.openapi.diagnostic.Logger
+import com.intellij.openapi.progress.ProcessCanceledException
+import com.intellij.openapi.project.Project
+import com.intellij.openapi.projectRoots.JavaSdkType
+import com.intellij.openapi.roots.OrderRootType
+import com.intellij.openapi.roots.ProjectRootManager
+import com.intellij.openapi.util.io.FileUtil
+import com.intellij.util.PathUtil
+import com.jetbrains.edu.learning.EduUtils
+import com.jetbrains.edu.learning.checker.CheckResult
+import com.jetbrains.edu.learning.checker.CheckUtils
+import com.jetbrains.edu.learning.checker.StreamingOutputCollector
+import com.jetbrains.edu.learning.checker.TestsOutputParser
+import com.jetbrains.edu.learning.checker.gradle.GradleEduTaskChecker
+import com.jetbrains.edu.learning.checker.gradle.postProcessOutput
+import com.jetbrains.edu.learning.checker.gradle.prettify
+import com.jetbrains.edu.learning.courseFormat.CheckStatus
+import com.jetbrains.edu.learning.courseFormat.tasks.EduTask
+import org.jetbrains.annotations.TestOnly
+import java.io.ByteArrayOutputStream
+import java.io.File
+import java.io.IOException
+import java.io.OutputStream
+import java.net.URI
+import java.net.URLClassLoader
+import java.util.Collections
+import java.util.concurrent.ConcurrentHashMap
+import javax.tools.*
+
+/**
+ * Compiles task files with compiler API of project JDK and runs task tests with [JTestRunner] instead of running Gradle.
+ *
+ * Compiled classes are kept in memory for recently checked tasks, so only changed sources are recompiled:
+ * task sources are recompiled on each change, tests only when test files change.
+ * Tests are run by `java` of project JDK which sees only JUnit and compiled classes, so they can't exit or block IDE,
+ * and the JVM is killed if tests exceed time or output limit.
+ * Falls back to Gradle checker if project JDK doesn't provide compiler API in tools.jar (e.g. JDK 9 and later).
+ */
+class JDirectTaskChecker(task: EduTask, project: Project) : GradleEduTaskChecker(task, project) {
+
+  override fun check(): CheckResult {
+    val jdk = findJdk(project) ?: return super.check()
+    val taskDir = task.getTaskDir(project) ?: return super.check()
+    val courseDir = EduUtils.getCourseDir(project)
+
+    val mainSources = javaFiles(File(taskDir.path, SRC)) + javaFiles(File(courseDir.path, "$UTIL/$SRC"))
+    val testSources = javaFiles(File(taskDir.path, TEST)) + javaFiles(File(courseDir.path, "$UTIL/$TEST"))
+
+    val cached = ourCompiledTasks[taskDir.path]
+    val mainStamp = stamp(mainSources)
+    val testStamp = stamp(testSources)
+
+    val mainClasses = if (cached != null && cached.mainStamp == mainStamp) {
+      cached.mainClasses
+    }
+    else {
+      compile(jdk, mainSources, emptyList())?.classes ?: return compilationFailed()
+    }
+
+    var testClasses = if (cached != null && cached.testStamp == testStamp) cached.testClasses else null
+    var isTestsCompiledNow = false
+    if (testClasses == null) {
+      testClasses = compileTests(jdk, mainSources, testSources) ?: return compilationFailed()
+      isTestsCompiledNow = true
+    }
+    ourCompiledTasks[taskDir.path] = CompiledTask(mainStamp, mainClasses, testStamp, testClasses)
+
+    try {
+      var result = runTests(jdk, mainClasses, testClasses, File(taskDir.path))
+      if (result is TestsResult.LinkageFailed && !isTestsCompiledNow) {
+        // tests were compiled against previous version of task sources
+        testClasses = compileTests(jdk, mainSources, testSources) ?: return compilationFailed()
+        ourCompiledTasks[taskDir.path] = CompiledTask(mainStamp, mainClasses, testStamp, testClasses)
+        result = runTests(jdk, mainClasses, testClasses, File(taskDir.path))
+      }
+
+      return when (result) {
+        is TestsResult.Passed -> CheckResult(CheckStatus.Solved, TestsOutputParser.CONGRATULATIONS, true)
+        is TestsResult.Failed -> CheckResult(CheckStatus.Failed, result.message.postProcessOutput().prettify(), true)
+        is TestsResult.LinkageFailed -> CheckResult(CheckStatus.Failed, result.message)
+        is TestsResult.NotFinished -> CheckResult(CheckStatus.Failed, result.message)
+      }
+    }
+    catch (e: ExecutionException) {
+      LOG.info(CheckUtils.FAILED_TO_CHECK_MESSAGE, e)
+      return CheckResult.FAILED_TO_CHECK
+    }
+    catch (e: IOException) {
+      LOG.info(CheckUtils.FAILED_TO_CHECK_MESSAGE, e)
+      return CheckResult.FAILED_TO_CHECK
+    }
+  }
+
+  private fun compilationFailed() = CheckResult(CheckStatus.Failed, CheckUtils.COMPILATION_FAILED_MESSAGE)
+
+  private fun compileTests(jdk: Jdk, mainSources: List<File>, testSources: List<File>): Map<String, ByteArray>? {
+    val compiledClasses = compile(jdk, mainSources + testSources, testSources) ?: return null
+    return compiledClasses.classes.filterKeys { it in compiledClasses.testClassNames }
+  }
+
+  private fun compile(jdk: Jdk, sources: List<File>, testSources: List<File>): MemoryFileManager? {
+    val diagnostics = DiagnosticCollector<JavaFileObject>()
+    val standardFileManager = jdk.compiler.getStandardFileManager(diagnostics, null, Charsets.UTF_8)
+    val fileManager = MemoryFileManager(standardFileManager,
+                                        standardFileManager.getJavaFileObjectsFromFiles(testSources).map { it.toUri() }.toSet())
+    // compiler is loaded into IDE process, so it would compile against IDE runtime classes without explicit boot class path
+    val options = listOf("-g", "-nowarn", "-proc:none", "-encoding", Charsets.UTF_8.name(),
+                         "-bootclasspath", jdk.bootClassPath.joinToString(File.pathSeparator),
+                         "-classpath", junitClassPath().joinToString(File.pathSeparator))
+    val isSuccess = jdk.compiler.getTask(null, fileManager, diagnostics, options, null,
+                                     standardFileManager.getJavaFileObjectsFromFiles(sources)).call()
+    fileManager.close()
+    if (!isSuccess) {
+      LOG.info(diagnostics.diagnostics.joinToString("\n"))
+      return null
+    }
+    return fileManager
+  }
+
+  @Throws(ExecutionException::class, IOException::class)
+  private fun runTests(jdk: Jdk, mainClasses: Map<String, ByteArray>, testClasses: Map<String, ByteArray>, taskDir: File): TestsResult {
+    val taskTestDir = File(taskDir, TEST)
+    val testClassNames = testClasses.keys.filter { '$' !in it && File(taskTestDir, it.replace('.', '/') + ".java").exists() }
+
+    val dir = FileUtil.createTempDirectory("edu-java-tests", null, true)
+    try {
+      val classesDir = File(dir, "classes")
+      for ((className, bytes) in mainClasses + testClasses) {
+        FileUtil.writeToFile(File(classesDir, className.replace('.', '/') + ".class"), bytes)
+      }
+      val resultFile = File(dir, "result.txt")
+      val classPath = junitClassPath() + PathUtil.getJarPathForClass(JTestRunner::class.java) + classesDir.path
+      val commandLine = GeneralCommandLine(jdk.javaExecutable, "-cp", classPath.joinToString(File.pathSeparator),
+                                           JTestRunner::class.java.name, resultFile.path)
+        .withParameters(testClassNames)
+        .withWorkDirectory(taskDir)
+        .withCharset(Charsets.UTF_8)
+
+      val collector = StreamingOutputCollector(StreamingOutputCollector.OUTPUT_LIMIT, timeLimitMs)
+      val output = collector.run(OSProcessHandler(commandLine))
+      if (output.isCancelled) {
+        throw ProcessCanceledException()
+      }
+      collector.getLimitMessage()?.let { return TestsResult.NotFinished(it) }
+      if (!resultFile.exists()) {
+        LOG.info("Tests process terminated with exit code ${output.exitCode}: ${output.stderr}")
+        return TestsResult.NotFinished("Tests were terminated before they finished")
+      }
+
+      val result = FileUtil.loadFile(resultFile, Charsets.UTF_8)
+      val message = result.substringAfter('\n')
+      return when (result.substringBefore('\n')) {
+        JTestRunner.PASSED -> TestsResult.Passed
+        JTestRunner.LINKAGE_FAILED -> TestsResult.LinkageFailed(message)
+        else -> TestsResult.Failed(message)
+      }
+    }
+    finally {
+      FileUtil.delete(dir)
+    }
+  }
+
+  private sealed class TestsResult {
+    object Passed : TestsResult()
+    class Failed(val message: String) : TestsResult()
+    class LinkageFailed(val message: String) : TestsResult()
+    class NotFinished(val message: String) : TestsResult()
+  }
+
+  private class CompiledTask(
+    val mainStamp: List<String>,
+    val mainClasses: Map<String, ByteArray>,
+    val testStamp: List<String>,
+    val testClasses: Map<String, ByteArray>
+  )
+
+  private class MemoryFileManager(
+    fileManager: StandardJavaFileManager,
+    private val testSources: Set<URI>
+  ) : ForwardingJavaFileManager<StandardJavaFileManager>(fileManager) {
+    val classes = HashMap<String, ByteArray>()
+    val testClassNames = HashSet<String>()
+
+    override fun getJavaFileForOutput(location: JavaFileManager.Location,
+                                      className: String,
+                                      kind: JavaFileObject.Kind,
+                                      sibling: FileObject?): JavaFileObject {
+      if (sibling != null && sibling.toUri() in testSources) {
+        testClassNames += className
+      }
+      return object : SimpleJavaFileObject(URI.create("mem:///${className.replace('.', '/')}${kind.extension}"), kind) {
+        override fun openOutputStream(): OutputStream = object : ByteArrayOutputStream() {
+          override fun close() {
+            super.close()
+            classes[className] = toByteArray()
+          }
+        }
+      }
+    }
+  }
+
+  private class Jdk(val compiler: JavaCompiler, val javaExecutable: String, val bootClassPath: List<String>)
+
+  companion object {
+    private val LOG = Logger.getInstance(JDirectTaskChecker::class.java)
+
+    private const val SRC = "src"
+    private const val TEST = "test"
+    private const val UTIL = "util"
+
+    private var timeLimitMs = StreamingOutputCollector.TIME_LIMIT_MS
+
+    private const val MAX_COMPILED_TASKS = 20
+
+    // task dir path -> compiled classes of the task, the least recently checked tasks are evicted
+    private val ourCompiledTasks: MutableMap<String, CompiledTask> = Collections.synchronizedMap(
+      object : LinkedHashMap<String, CompiledTask>(16, 0.75f, true) {
+        override fun removeEldestEntry(eldest: MutableMap.MutableEntry<String, CompiledTask>): Boolean = size > MAX_COMPILED_TASKS
+      })
+    // class loader of tools.jar is expensive to create, so it's created once for each JDK
+    private val ourJdkCompilers = ConcurrentHashMap<String, JavaCompiler>()
+
+    @TestOnly
+    @JvmStatic
+    fun setTimeLimit(newTimeLimitMs: Long): Long {
+      val oldValue = timeLimitMs
+      timeLimitMs = newTimeLimitMs
+      return oldValue
+    }
+
+    /**
+     * Task is compiled against classes of project JDK and its tests are run by the same JDK
+     */
+    private fun findJdk(project: Project): Jdk? {
+      val sdk = ProjectRootManager.getInstance(project).projectSdk ?: return null
+      val sdkType = sdk.sdkType as? JavaSdkType ?: return null
+      val javaExecutable = sdkType.getVMExecutablePath(sdk) ?: return null
+      val toolsJar = sdkType.getToolsPath(sdk)?.let { File(it) } ?: return null
+      if (!toolsJar.exists()) return null
+      val compiler = ourJdkCompilers.getOrPut(toolsJar.path) {
+        val loader = URLClassLoader(arrayOf(toolsJar.toURI().toURL()), null)
+        loader.loadClass("com.sun.tools.javac.api.JavacTool").newInstance() as JavaCompiler
+      }
+      val bootClassPath = sdk.rootProvider.getFiles(OrderRootType.CLASSES).mapNotNull { PathUtil.getLocalPath(it) }
+      return Jdk(compiler, javaExecutable, bootClassPath)
+    }
+
+    private fun junitClassPath(): List<String> =
+      listOf(PathUtil.getJarPathForClass(org.junit.Test::class.java), PathUtil.getJarPathForClass(org.hamcrest.Matcher::class.java))
+
+    private fun javaFiles(dir: File): List<File> {
+      if (!dir.isDirectory) return emptyList()
+      return FileUtil.findFilesByMask(JAVA_FILE_PATTERN, dir).sorted()
+    }
+
+    private fun stamp(files: List<File>): List<String> = files.map { "${it.path}:${it.lastModified()}:${it.length()}" }
+
+    private val JAVA_FILE_PATTERN = Regex(".*\\.java").toPattern()
+  }
+}
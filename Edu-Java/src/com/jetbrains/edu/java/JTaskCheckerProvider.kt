@@ -1,16 +1,27 @@
 package com.jetbrains.edu.java
 
 import com.intellij.execution.JavaExecutionUtil
+import com.intellij.openapi.application.Experiments
 import com.intellij.openapi.project.Project
 import com.intellij.openapi.vfs.VirtualFile
 import com.intellij.psi.PsiClass
 import com.intellij.psi.PsiManager
 import com.intellij.psi.util.PsiMethodUtil
 import com.intellij.psi.util.PsiTreeUtil
+import com.jetbrains.edu.learning.EduExperimentalFeatures
+import com.jetbrains.edu.learning.checker.gradle.GradleEduTaskChecker
 import com.jetbrains.edu.learning.checker.gradle.GradleTaskCheckerProvider
+import com.jetbrains.edu.learning.courseFormat.tasks.EduTask
 
 class JTaskCheckerProvider : GradleTaskCheckerProvider() {
 
+    override fun getEduTaskChecker(task: EduTask, project: Project): GradleEduTaskChecker {
+        if (Experiments.isFeatureEnabled(EduExperimentalFeatures.JAVA_DIRECT_CHECKER)) {
+            return JDirectTaskChecker(task, project)
+        }
+        return super.getEduTaskChecker(task, project)
+    }
+
     override fun mainClassForFile(project: Project, file: VirtualFile): String? {
         val psiFile = PsiManager.getInstance(project).findFile(file) ?: return null
         val mainClass = PsiTreeUtil.findChildrenOfType(psiFile, PsiClass::class.java).find { psiClass ->
@@ -0,0 +1,108 @@
+package com.jetbrains.edu.java;
+
+import org.junit.Test;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Result;
+import org.junit.runner.notification.Failure;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.Permission;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Main class of the JVM started by {@link JDirectTaskChecker} to run tests of a task,
+ * so tests can't affect IDE process and can be killed when they don't finish in time.
+ *
+ * Arguments are the result file and names of test classes. Status of the run is written on the first line
+ * of the result file and failure message after it. The file isn't created if the JVM is terminated by tests.
+ */
+public class JTestRunner {
+  static final String PASSED = "passed";
+  static final String FAILED = "failed";
+  static final String LINKAGE_FAILED = "linkage failed";
+
+  public static void main(String[] args) throws IOException {
+    final File resultFile = new File(args[0]);
+    final List<Class<?>> testClasses = new ArrayList<>();
+    try {
+      for (int i = 1; i < args.length; i++) {
+        final Class<?> testClass = Class.forName(args[i], false, JTestRunner.class.getClassLoader());
+        if (hasTests(testClass)) {
+          testClasses.add(testClass);
+        }
+      }
+    }
+    catch (ClassNotFoundException | LinkageError e) {
+      writeResult(resultFile, LINKAGE_FAILED, String.valueOf(e));
+      Runtime.getRuntime().halt(0);
+    }
+
+    final NoExitSecurityManager securityManager = new NoExitSecurityManager();
+    try {
+      System.setSecurityManager(securityManager);
+    }
+    catch (UnsupportedOperationException ignored) {
+      // security manager is disabled in the JVM, exit from tests terminates the JVM and is reported by the checker
+    }
+    final Result result = JUnitCore.runClasses(testClasses.toArray(new Class[0]));
+    if (result.getFailures().isEmpty()) {
+      writeResult(resultFile, PASSED, "");
+    }
+    else {
+      final Failure failure = result.getFailures().get(0);
+      final String message = failure.getMessage() != null ? failure.getMessage() : "Wrong answer";
+      writeResult(resultFile, failure.getException() instanceof LinkageError ? LINKAGE_FAILED : FAILED, message);
+    }
+    // threads started by tests shouldn't keep the JVM alive
+    securityManager.myIsExitAllowed = true;
+    Runtime.getRuntime().halt(0);
+  }
+
+  private static boolean hasTests(Class<?> testClass) {
+    for (Method method : testClass.getMethods()) {
+      if (method.isAnnotationPresent(Test.class)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static void writeResult(File resultFile, String status, String message) throws IOException {
+    final File tempFile = new File(resultFile.getPath() + ".tmp");
+    try (Writer writer = new OutputStreamWriter(Files.newOutputStream(tempFile.toPath()), StandardCharsets.UTF_8)) {
+      writer.write(status);
+      writer.write('\n');
+      writer.write(message);
+    }
+    // the checker sees either the whole result or no result
+    if (!tempFile.renameTo(resultFile)) {
+      throw new IOException("Failed to write " + resultFile);
+    }
+  }
+
+  private static class NoExitSecurityManager extends SecurityManager {
+    private volatile boolean myIsExitAllowed;
+
+    @Override
+    public void checkExit(int status) {
+      if (!myIsExitAllowed) {
+        throw new SecurityException("System.exit() is not allowed in tests");
+      }
+    }
+
+    @Override
+    public void checkPermission(Permission perm) {
+    }
+
+    @Override
+    public void checkPermission(Permission perm, Object context) {
+    }
+  }
+}
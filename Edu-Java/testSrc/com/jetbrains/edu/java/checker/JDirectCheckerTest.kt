@@ -0,0 +1,82 @@
+package com.jetbrains.edu.java.checker
+
+import com.intellij.lang.java.JavaLanguage
+import com.intellij.openapi.application.Experiments
+import com.jetbrains.edu.java.JDirectTaskChecker
+import com.jetbrains.edu.learning.EduExperimentalFeatures
+import com.jetbrains.edu.learning.checker.CheckActionListener
+import com.jetbrains.edu.learning.course
+import com.jetbrains.edu.learning.courseFormat.Course
+import java.util.concurrent.TimeUnit
+
+class JDirectCheckerTest : JCheckersTestBase() {
+  private var oldTimeLimit: Long = 0
+
+  override fun setUp() {
+    super.setUp()
+    Experiments.setFeatureEnabled(EduExperimentalFeatures.JAVA_DIRECT_CHECKER, true)
+    oldTimeLimit = JDirectTaskChecker.setTimeLimit(TimeUnit.SECONDS.toMillis(10))
+  }
+
+  override fun tearDown() {
+    try {
+      JDirectTaskChecker.setTimeLimit(oldTimeLimit)
+      Experiments.setFeatureEnabled(EduExperimentalFeatures.JAVA_DIRECT_CHECKER, false)
+    }
+    finally {
+      super.tearDown()
+    }
+  }
+
+  override fun createCourse(): Course = course(language = JavaLanguage.INSTANCE) {
+    lesson {
+      eduTask("exit") {
+        javaTaskFile("src/Task.java", """
+          public class Task {
+            public static int foo() {
+              System.out.println("exit");
+              System.exit(0);
+              return 42;
+            }
+          }
+        """)
+        javaTestFile("test/Test.java", """
+          import org.junit.Assert;
+
+          public class Test {
+            @org.junit.Test
+            public void test() {
+              Assert.assertTrue("Task.foo() should return 42", Task.foo() == 42);
+            }
+          }
+        """)
+      }
+      eduTask("infiniteLoop") {
+        javaTaskFile("src/Task.java", """
+          public class Task {
+            public static int foo() {
+              while (true) {
+              }
+            }
+          }
+        """)
+        javaTestFile("test/Test.java", """
+          import org.junit.Assert;
+
+          public class Test {
+            @org.junit.Test
+            public void test() {
+              Assert.assertTrue("Task.foo() should return 42", Task.foo() == 42);
+            }
+          }
+        """)
+      }
+    }
+  }
+
+  // the test process would be terminated or blocked if tests were run in it
+  fun `test tests which exit or don't finish fail`() {
+    CheckActionListener.shouldFail()
+    doTest()
+  }
+}
@@ -0,0 +1,131 @@
+"""
+Runs tests of educational Python tasks in one long-lived interpreter, so a check doesn't start a new one.
+
+Reads requests from stdin, one JSON object per line:
+    {"tests": <path to tests file>, "file": <path to checked file>, "cwd": <working directory>,
+     "courseDir": <course directory, optional>}
+Tests are run as __main__ module with sys.argv = [tests, file], like `python tests file` does.
+For each request one line with RESULT_PREFIX and JSON object with "stdout", "stderr" and "exitCode" is printed.
+"""
+import json
+import os
+import sys
+import traceback
+
+try:
+    from StringIO import StringIO
+except ImportError:
+    from io import StringIO
+
+RESULT_PREFIX = "#educational_plugin_worker_result "
+OUTPUT_LIMIT = 1024 * 1024
+
+
+class BoundedOutput(object):
+    """ Keeps first OUTPUT_LIMIT chars written to it """
+
+    def __init__(self):
+        self.buffer = StringIO()
+        self.length = 0
+        self.truncated = False
+
+    def write(self, text):
+        if self.length + len(text) > OUTPUT_LIMIT:
+            self.truncated = True
+            text = text[:OUTPUT_LIMIT - self.length]
+        self.length += len(text)
+        self.buffer.write(text)
+
+    def flush(self):
+        pass
+
+    def isatty(self):
+        return False
+
+    def getvalue(self):
+        value = self.buffer.getvalue()
+        if self.truncated:
+            value += "\n...\n"
+        return value
+
+
+def is_under(path, directories):
+    path = os.path.normcase(os.path.abspath(path))
+    for directory in directories:
+        directory = os.path.normcase(os.path.abspath(directory))
+        if path == directory or path.startswith(directory.rstrip(os.sep) + os.sep):
+            return True
+    return False
+
+
+def unload_course_modules(names, directories):
+    """
+    Removes modules loaded from course files, so each check imports task files and test helper again
+    as a new interpreter would do. Other modules are kept: C extensions, e.g. numpy, can't be imported twice.
+    """
+    for name in names:
+        module = sys.modules.get(name)
+        module_file = getattr(module, "__file__", None)
+        if module_file and is_under(module_file, directories):
+            del sys.modules[name]
+
+
+def run_tests(request):
+    tests = request["tests"]
+    stdout = BoundedOutput()
+    stderr = BoundedOutput()
+    exit_code = 0
+
+    saved_argv, saved_path, saved_cwd = sys.argv, list(sys.path), os.getcwd()
+    saved_stdin, saved_stdout, saved_stderr = sys.stdin, sys.stdout, sys.stderr
+    saved_modules = set(sys.modules)
+    sys.argv = [tests, request["file"]]
+    sys.path.insert(0, os.path.dirname(tests))
+    # stdin of the worker is used for requests, so tests must not read it
+    sys.stdin = StringIO()
+    sys.stdout = stdout
+    sys.stderr = stderr
+    try:
+        os.chdir(request["cwd"])
+        import runpy
+        runpy.run_path(tests, run_name="__main__")
+    except SystemExit as e:
+        if e.code is None:
+            exit_code = 0
+        elif isinstance(e.code, int):
+            exit_code = e.code
+        else:
+            stderr.write(str(e.code) + "\n")
+            exit_code = 1
+    except Exception:
+        traceback.print_exc(file=stderr)
+        exit_code = 1
+    finally:
+        sys.argv = saved_argv
+        sys.path[:] = saved_path
+        sys.stdin, sys.stdout, sys.stderr = saved_stdin, saved_stdout, saved_stderr
+        os.chdir(saved_cwd)
+        course_dirs = [request["cwd"], os.path.dirname(tests)]
+        if request.get("courseDir"):
+            course_dirs.append(request["courseDir"])
+        unload_course_modules(set(sys.modules) - saved_modules, course_dirs)
+
+    return {"stdout": stdout.getvalue(), "stderr": stderr.getvalue(), "exitCode": exit_code}
+
+
+def main():
+    protocol = sys.stdout
+    while True:
+        line = sys.stdin.readline()
+        if not line:
+            break
+        line = line.strip()
+        if not line:
+            continue
+        result = run_tests(json.loads(line))
+        protocol.write(RESULT_PREFIX + json.dumps(result) + "\n")
+        protocol.flush()
+
+
+if __name__ == "__main__":
+    main()
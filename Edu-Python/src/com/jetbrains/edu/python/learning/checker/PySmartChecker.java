@@ -1,147 +1,276 @@
 package com.jetbrains.edu.python.learning.checker;
 
+import com.intellij.concurrency.SensitiveProgressWrapper;
 import com.intellij.execution.ExecutionException;
-import com.intellij.execution.process.CapturingProcessHandler;
-import com.intellij.execution.process.ProcessOutput;
-import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.editor.Document;
 import com.intellij.openapi.fileEditor.FileDocumentManager;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.progress.Task;
 import com.intellij.openapi.project.Project;
-import com.intellij.openapi.util.Pair;
-import com.intellij.openapi.util.TextRange;
+import com.intellij.openapi.util.io.FileUtil;
 import com.intellij.openapi.vfs.VirtualFile;
-import com.jetbrains.edu.learning.StudyTaskManager;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import com.jetbrains.edu.learning.EduNames;
 import com.jetbrains.edu.learning.EduUtils;
+import com.jetbrains.edu.learning.checker.CheckUtils;
 import com.jetbrains.edu.learning.checker.TestsOutputParser;
-import com.jetbrains.edu.learning.EduDocumentListener;
-import com.jetbrains.edu.learning.EduNames;
 import com.jetbrains.edu.learning.courseFormat.AnswerPlaceholder;
-import com.jetbrains.edu.learning.courseFormat.Course;
 import com.jetbrains.edu.learning.courseFormat.CheckStatus;
 import com.jetbrains.edu.learning.courseFormat.TaskFile;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+import java.io.File;
 import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
+/**
+ * Finds out which placeholders of a failed task file are wrong: for each placeholder tests are run on a variant
+ * of the file where this placeholder keeps user's answer and all the others are filled with possible answers.
+ *
+ * Variants are built from a snapshot of the task file taken on EDT and written to a temp directory outside of the VFS,
+ * tests for them run in parallel in background.
+ */
 class PySmartChecker {
   private PySmartChecker() {
 
   }
 
   private static final Logger LOG = Logger.getInstance(PySmartChecker.class);
+  private static final long WAIT_TIMEOUT_MS = 100;
+  // each variant is checked by a separate python process, so there is no use in more of them than processors
+  private static final int PARALLELISM = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
 
-  private static void smartCheck(@NotNull final AnswerPlaceholder placeholder,
-                                @NotNull final Project project,
-                                @NotNull final VirtualFile answerFile,
-                                @NotNull final TaskFile answerTaskFile,
-                                @NotNull final TaskFile usersTaskFile,
-                                @NotNull final PyTestRunner testRunner,
-                                @NotNull final VirtualFile virtualFile,
-                                @NotNull final Document usersDocument) {
-    VirtualFile fileWindows = null;
-    VirtualFile windowCopy = null;
-    try {
-      final int index = placeholder.getIndex();
-      String windowCopyName = answerFile.getNameWithoutExtension() + index + EduNames.WINDOW_POSTFIX + answerFile.getExtension();
-      windowCopy = answerFile.copy(project, answerFile.getParent(), windowCopyName);
-      final FileDocumentManager documentManager = FileDocumentManager.getInstance();
-      final Document windowDocument = documentManager.getDocument(windowCopy);
-      if (windowDocument != null) {
-        TaskFile windowTaskFile = answerTaskFile.getTask().copy().getTaskFile(EduUtils.pathRelativeToTask(project, virtualFile));
-        if (windowTaskFile == null) {
-          return;
-        }
-        EduDocumentListener listener = new EduDocumentListener(project, windowTaskFile);
-        windowDocument.addDocumentListener(listener);
-        int start = placeholder.getOffset();
-        int end = start + placeholder.getRealLength();
-        final AnswerPlaceholder userAnswerPlaceholder = usersTaskFile.getAnswerPlaceholders().get(placeholder.getIndex());
-        int userStart = userAnswerPlaceholder.getOffset();
-        int userEnd = userStart + userAnswerPlaceholder.getRealLength();
-        String text = usersDocument.getText(new TextRange(userStart, userEnd));
-        windowDocument.replaceString(start, end, text);
-        ApplicationManager.getApplication().runWriteAction(() -> documentManager.saveDocument(windowDocument));
-        windowDocument.removeDocumentListener(listener);
-
-        fileWindows = EduUtils.flushWindows(windowTaskFile, windowCopy);
-        Process smartTestProcess = testRunner.createCheckProcess(project, windowCopy.getPath());
-        final CapturingProcessHandler handler = new CapturingProcessHandler(smartTestProcess, null, windowCopy.getPath());
-        final ProcessOutput output = handler.runProcess();
-        final Course course = StudyTaskManager.getInstance(project).getCourse();
-        if (course != null) {
-          boolean res = TestsOutputParser.getTestsOutput(output, course.isAdaptive()).isSuccess();
-          userAnswerPlaceholder.setStatus(res ? CheckStatus.Solved : CheckStatus.Failed);
-        }
+  /**
+   * Checks placeholders of the snapshots in background, updates their statuses and calls {@code onFinished} on EDT
+   */
+  static void runSmartCheck(@NotNull Project project,
+                            @NotNull VirtualFile taskDir,
+                            @NotNull List<TaskFileSnapshot> snapshots,
+                            boolean isAdaptive,
+                            @NotNull Runnable onFinished) {
+    ProgressManager.getInstance().run(new Task.Backgroundable(project, "Checking Answer Placeholders", true) {
+      private final Map<AnswerPlaceholder, CheckStatus> myStatuses = new ConcurrentHashMap<>();
+
+      @Override
+      public void run(@NotNull ProgressIndicator indicator) {
+        checkPlaceholders(project, taskDir, snapshots, isAdaptive, indicator, myStatuses);
       }
-    }
-    catch (ExecutionException | IOException e) {
-      LOG.error(e);
-    }
-    finally {
-      EduUtils.deleteFile(windowCopy);
-      EduUtils.deleteFile(fileWindows);
-    }
+
+      @Override
+      public void onSuccess() {
+        myStatuses.forEach(AnswerPlaceholder::setStatus);
+      }
+
+      @Override
+      public void onFinished() {
+        onFinished.run();
+      }
+    });
   }
 
-  static void runSmartTestProcess(@NotNull final VirtualFile taskDir,
-                                  @NotNull final PyTestRunner testRunner,
-                                  @NotNull final TaskFile taskFile,
-                                  @NotNull final Project project) {
-    final VirtualFile virtualFile = EduUtils.findTaskFileInDir(taskFile, taskDir);
-    if (virtualFile == null) {
-      return;
+  private static void checkPlaceholders(@NotNull Project project,
+                                        @NotNull VirtualFile taskDir,
+                                        @NotNull List<TaskFileSnapshot> snapshots,
+                                        boolean isAdaptive,
+                                        @NotNull ProgressIndicator indicator,
+                                        @NotNull Map<AnswerPlaceholder, CheckStatus> statuses) {
+    final File tempDir;
+    try {
+      tempDir = FileUtil.createTempDirectory("edu-smart-check", null, true);
     }
-    Pair<VirtualFile, TaskFile> pair = getCopyWithAnswers(project, taskDir, virtualFile, taskFile);
-    if (pair == null) {
+    catch (IOException e) {
+      LOG.warn(e);
       return;
     }
-    VirtualFile answerFile = pair.getFirst();
-    TaskFile answerTaskFile = pair.getSecond();
+
+    final ExecutorService executor = AppExecutorUtil.createBoundedApplicationPoolExecutor("Python Smart Check", PARALLELISM);
+    final List<Future<?>> futures = new ArrayList<>();
     try {
-      for (final AnswerPlaceholder answerPlaceholder : answerTaskFile.getAnswerPlaceholders()) {
-        final Document document = FileDocumentManager.getInstance().getDocument(virtualFile);
-        if (document == null) {
-          continue;
+      for (TaskFileSnapshot snapshot : snapshots) {
+        for (PlaceholderSnapshot placeholder : snapshot.myPlaceholders) {
+          final File variantDir = new File(tempDir, String.valueOf(futures.size()));
+          // processes look for current indicator to be destroyed when check is cancelled
+          futures.add(executor.submit(() -> ProgressManager.getInstance().runProcess(() -> {
+            final CheckStatus status = checkVariant(project, taskDir, snapshot, placeholder, variantDir, isAdaptive);
+            if (status != null) {
+              statuses.put(placeholder.myPlaceholder, status);
+            }
+          }, new SensitiveProgressWrapper(indicator))));
         }
-        smartCheck(answerPlaceholder, project, answerFile, answerTaskFile, taskFile, testRunner,
-                   virtualFile, document);
+      }
+
+      for (Future<?> future : futures) {
+        waitFor(future, indicator);
       }
     }
     finally {
-      EduUtils.deleteFile(answerFile);
+      futures.forEach(future -> future.cancel(true));
+      FileUtil.delete(tempDir);
     }
   }
 
-  static Pair<VirtualFile, TaskFile> getCopyWithAnswers(@NotNull Project project,
-                                                        @NotNull final VirtualFile taskDir,
-                                                        @NotNull final VirtualFile file,
-                                                        @NotNull final TaskFile source) {
-    try {
-      VirtualFile answerFile = file.copy(taskDir, taskDir, file.getNameWithoutExtension() + EduNames.ANSWERS_POSTFIX + "." + file.getExtension());
-      final FileDocumentManager documentManager = FileDocumentManager.getInstance();
-      final Document document = documentManager.getDocument(answerFile);
-      if (document != null) {
-        TaskFile answerTaskFile = source.getTask().copy().getTaskFile(EduUtils.pathRelativeToTask(project, file));
-        if (answerTaskFile == null) {
-          return null;
-        }
-        EduDocumentListener listener = new EduDocumentListener(project, answerTaskFile);
-        document.addDocumentListener(listener);
-        for (AnswerPlaceholder answerPlaceholder : answerTaskFile.getAnswerPlaceholders()) {
-          final int start = answerPlaceholder.getOffset();
-          final int end = start + answerPlaceholder.getRealLength();
-          final String text = answerPlaceholder.getPossibleAnswer();
-          document.replaceString(start, end, text);
+  private static void waitFor(@NotNull Future<?> future, @NotNull ProgressIndicator indicator) {
+    while (true) {
+      try {
+        future.get(WAIT_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        return;
+      }
+      catch (TimeoutException e) {
+        indicator.checkCanceled();
+      }
+      catch (InterruptedException e) {
+        throw new ProcessCanceledException(e);
+      }
+      catch (java.util.concurrent.ExecutionException e) {
+        if (!(e.getCause() instanceof ProcessCanceledException)) {
+          LOG.warn(e.getCause());
         }
-        ApplicationManager.getApplication().runWriteAction(() -> documentManager.saveDocument(document));
-        document.removeDocumentListener(listener);
-        return Pair.create(answerFile, answerTaskFile);
+        return;
       }
     }
-    catch (IOException e) {
-      LOG.error(e);
+  }
+
+  @Nullable
+  private static CheckStatus checkVariant(@NotNull Project project,
+                                          @NotNull VirtualFile taskDir,
+                                          @NotNull TaskFileSnapshot snapshot,
+                                          @NotNull PlaceholderSnapshot placeholder,
+                                          @NotNull File variantDir,
+                                          boolean isAdaptive) {
+    try {
+      final File variantFile = new File(variantDir, snapshot.myFileName);
+      FileUtil.writeToFile(variantFile, snapshot.getVariantText(placeholder).getBytes(snapshot.myCharset));
+      final String windowsName = FileUtil.getNameWithoutExtension(snapshot.myFileName) + EduNames.WINDOWS_POSTFIX;
+      FileUtil.writeToFile(new File(variantDir, windowsName), snapshot.getWindowsText(placeholder));
+
+      final PyTestRunner testRunner = new PyTestRunner(taskDir);
+      final Process process = testRunner.createCheckProcess(project, variantFile.getPath());
+      if (process == null) {
+        return null;
+      }
+      final TestsOutputParser.TestsOutput output =
+        CheckUtils.getTestOutput(process, testRunner.getCommandLine().getCommandLineString(), isAdaptive);
+      return output.isSuccess() ? CheckStatus.Solved : CheckStatus.Failed;
+    }
+    catch (ExecutionException | IOException e) {
+      LOG.warn(e);
+      return null;
+    }
+  }
+
+  /**
+   * Text and placeholders of a task file at the moment check failed, variants for all placeholders are built from it
+   */
+  static class TaskFileSnapshot {
+    private final String myFileName;
+    private final Charset myCharset;
+    private final String myText;
+    private final List<PlaceholderSnapshot> myPlaceholders = new ArrayList<>();
+
+    TaskFileSnapshot(@NotNull String fileName,
+                     @NotNull Charset charset,
+                     @NotNull String text,
+                     @NotNull List<AnswerPlaceholder> placeholders) {
+      myFileName = fileName;
+      myCharset = charset;
+      myText = text;
+      for (AnswerPlaceholder placeholder : placeholders) {
+        final int start = placeholder.getOffset();
+        final int end = start + placeholder.getRealLength();
+        final String possibleAnswer = placeholder.getPossibleAnswer();
+        myPlaceholders.add(new PlaceholderSnapshot(placeholder, start, end, text.substring(start, end),
+                                                   possibleAnswer == null ? "" : possibleAnswer));
+      }
+    }
+
+    /**
+     * Should be called on EDT
+     */
+    @Nullable
+    static TaskFileSnapshot create(@NotNull TaskFile taskFile, @NotNull VirtualFile taskDir) {
+      final VirtualFile virtualFile = EduUtils.findTaskFileInDir(taskFile, taskDir);
+      if (virtualFile == null) {
+        return null;
+      }
+      final Document document = FileDocumentManager.getInstance().getDocument(virtualFile);
+      if (document == null) {
+        return null;
+      }
+      return new TaskFileSnapshot(virtualFile.getName(), virtualFile.getCharset(), document.getText(), taskFile.getAnswerPlaceholders());
+    }
+
+    /**
+     * @return text of the file where given placeholder contains user's answer and the others contain possible answers
+     */
+    @NotNull
+    String getVariantText(@NotNull PlaceholderSnapshot checkedPlaceholder) {
+      final List<PlaceholderSnapshot> placeholders = new ArrayList<>(myPlaceholders);
+      placeholders.sort(Comparator.comparingInt(placeholder -> placeholder.myStart));
+
+      final StringBuilder text = new StringBuilder(myText.length());
+      int lastEnd = 0;
+      for (PlaceholderSnapshot placeholder : placeholders) {
+        text.append(myText, lastEnd, placeholder.myStart);
+        text.append(getVariantAnswer(placeholder, checkedPlaceholder));
+        lastEnd = placeholder.myEnd;
+      }
+      text.append(myText, lastEnd, myText.length());
+      return text.toString();
+    }
+
+    /**
+     * @return content of windows file for the variant, it's read by test helper to get placeholder texts
+     */
+    @NotNull
+    String getWindowsText(@NotNull PlaceholderSnapshot checkedPlaceholder) {
+      final StringBuilder text = new StringBuilder();
+      for (PlaceholderSnapshot placeholder : myPlaceholders) {
+        text.append("#educational_plugin_window = ").append(getVariantAnswer(placeholder, checkedPlaceholder)).append(System.lineSeparator());
+      }
+      return text.toString();
+    }
+
+    @NotNull
+    List<PlaceholderSnapshot> getPlaceholders() {
+      return myPlaceholders;
+    }
+
+    @NotNull
+    private static String getVariantAnswer(@NotNull PlaceholderSnapshot placeholder, @NotNull PlaceholderSnapshot checkedPlaceholder) {
+      return placeholder == checkedPlaceholder ? placeholder.myUserAnswer : placeholder.myPossibleAnswer;
+    }
+  }
+
+  static class PlaceholderSnapshot {
+    private final AnswerPlaceholder myPlaceholder;
+    private final int myStart;
+    private final int myEnd;
+    private final String myUserAnswer;
+    private final String myPossibleAnswer;
+
+    private PlaceholderSnapshot(@NotNull AnswerPlaceholder placeholder,
+                                int start,
+                                int end,
+                                @NotNull String userAnswer,
+                                @NotNull String possibleAnswer) {
+      myPlaceholder = placeholder;
+      myStart = start;
+      myEnd = end;
+      myUserAnswer = userAnswer;
+      myPossibleAnswer = possibleAnswer;
     }
-    return null;
   }
 }
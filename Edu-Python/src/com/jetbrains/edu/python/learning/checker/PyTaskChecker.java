@@ -2,10 +2,11 @@ package com.jetbrains.edu.python.learning.checker;
 
 import com.intellij.execution.ExecutionException;
 import com.intellij.openapi.application.ApplicationManager;
-import com.intellij.openapi.command.CommandProcessor;
+import com.intellij.openapi.application.Experiments;
 import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.vfs.VirtualFile;
+import com.jetbrains.edu.learning.EduExperimentalFeatures;
 import com.jetbrains.edu.learning.EduState;
 import com.jetbrains.edu.learning.EduUtils;
 import com.jetbrains.edu.learning.checker.CheckResult;
@@ -21,6 +22,8 @@ import com.jetbrains.edu.learning.editor.EduEditor;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CountDownLatch;
 
@@ -56,11 +59,19 @@ public class PyTaskChecker extends TaskChecker<EduTask> {
       if (fileToCheck != null) {
         //otherwise answer placeholders might have been not flushed yet
         latch.await();
+        final boolean isAdaptive = task.getLesson().getCourse().isAdaptive();
+        if (Experiments.isFeatureEnabled(EduExperimentalFeatures.PYTHON_TEST_WORKER)) {
+          final TestsOutputParser.TestsOutput output =
+            PyTestWorker.getInstance(project).runTests(taskDir, fileToCheck.getPath(), isAdaptive);
+          if (output != null) {
+            return CheckResult.fromTestsOutput(output);
+          }
+        }
         Process testProcess = testRunner.createCheckProcess(project, fileToCheck.getPath());
         TestsOutputParser.TestsOutput output =
           CheckUtils
-            .getTestOutput(testProcess, testRunner.getCommandLine().getCommandLineString(), task.getLesson().getCourse().isAdaptive());
-        return new CheckResult(output.isSuccess() ? CheckStatus.Solved : CheckStatus.Failed, output.getMessage());
+            .getTestOutput(testProcess, testRunner.getCommandLine().getCommandLineString(), isAdaptive);
+        return CheckResult.fromTestsOutput(output);
       }
     }
     catch (ExecutionException | InterruptedException e) {
@@ -85,19 +96,26 @@ public class PyTaskChecker extends TaskChecker<EduTask> {
     ApplicationManager.getApplication().invokeLater(() -> {
       VirtualFile taskDir = task.getTaskDir(project);
       if (taskDir == null) return;
-      for (Map.Entry<String, TaskFile> entry : task.getTaskFiles().entrySet()) {
-        final TaskFile taskFile = entry.getValue();
-        if (taskFile.getAnswerPlaceholders().size() < 2) {
-          continue;
-        }
-        final Course course = task.getLesson().getCourse();
-        if (course != null && course.isStudy()) {
-          CommandProcessor.getInstance().runUndoTransparentAction(
-            () -> ApplicationManager.getApplication().runWriteAction(
-              () -> PySmartChecker.runSmartTestProcess(taskDir, new PyTestRunner(taskDir), taskFile, project)));
+      final Course course = task.getLesson().getCourse();
+      final List<PySmartChecker.TaskFileSnapshot> snapshots = new ArrayList<>();
+      if (course != null && course.isStudy()) {
+        for (TaskFile taskFile : task.getTaskFiles().values()) {
+          if (taskFile.getAnswerPlaceholders().size() < 2) {
+            continue;
+          }
+          final PySmartChecker.TaskFileSnapshot snapshot = PySmartChecker.TaskFileSnapshot.create(taskFile, taskDir);
+          if (snapshot != null) {
+            snapshots.add(snapshot);
+          }
         }
       }
-      CheckUtils.navigateToFailedPlaceholder(new EduState(EduUtils.getSelectedEduEditor(project)), task, taskDir, project);
+      final Runnable navigateToFailedPlaceholder =
+        () -> CheckUtils.navigateToFailedPlaceholder(new EduState(EduUtils.getSelectedEduEditor(project)), task, taskDir, project);
+      if (snapshots.isEmpty()) {
+        navigateToFailedPlaceholder.run();
+        return;
+      }
+      PySmartChecker.runSmartCheck(project, taskDir, snapshots, course.isAdaptive(), navigateToFailedPlaceholder);
     });
   }
 
@@ -0,0 +1,285 @@
+package com.jetbrains.edu.python.learning.checker;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.intellij.execution.ExecutionException;
+import com.intellij.execution.configurations.GeneralCommandLine;
+import com.intellij.execution.process.OSProcessHandler;
+import com.intellij.execution.process.ProcessAdapter;
+import com.intellij.execution.process.ProcessEvent;
+import com.intellij.execution.process.ProcessOutput;
+import com.intellij.execution.process.ProcessOutputTypes;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.module.Module;
+import com.intellij.openapi.module.ModuleManager;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.projectRoots.Sdk;
+import com.intellij.openapi.util.Key;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.jetbrains.edu.learning.EduConfigurator;
+import com.jetbrains.edu.learning.EduConfiguratorManager;
+import com.jetbrains.edu.learning.EduExperimentalFeatures;
+import com.jetbrains.edu.learning.checker.StreamingOutputCollector;
+import com.jetbrains.edu.learning.checker.TestsOutputParser;
+import com.jetbrains.python.PythonLanguage;
+import com.jetbrains.python.sdk.PythonSdkType;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Long-lived Python process which runs tests of Python tasks, so a check doesn't have to start a new interpreter.
+ * Used instead of {@link PyTestRunner} if {@link EduExperimentalFeatures#PYTHON_TEST_WORKER} experimental feature is enabled.
+ *
+ * Checks are run one at a time. Worker is restarted if it dies, exceeds time limit, check is cancelled
+ * or project SDK changes.
+ */
+public class PyTestWorker implements Disposable {
+  private static final Logger LOG = Logger.getInstance(PyTestWorker.class);
+
+  private static final String WORKER_SCRIPT = "/checker/test_worker.py";
+  private static final String RESULT_PREFIX = "#educational_plugin_worker_result ";
+  private static final String PYTHONPATH = "PYTHONPATH";
+  private static final long WAIT_TIMEOUT_MS = 100;
+
+  private final Project myProject;
+  private final BlockingQueue<String> myResults = new LinkedBlockingQueue<>();
+  @Nullable private volatile OSProcessHandler myHandler;
+  @Nullable private String mySdkHome;
+  @Nullable private File myWorkerScript;
+
+  public PyTestWorker(@NotNull Project project) {
+    myProject = project;
+  }
+
+  public static PyTestWorker getInstance(@NotNull Project project) {
+    return ServiceManager.getService(project, PyTestWorker.class);
+  }
+
+  /**
+   * Runs tests of the task on given file, the same way {@link PyTestRunner} process does.
+   *
+   * @return tests output or null if worker can't be started, e.g. because Python SDK isn't configured
+   */
+  @Nullable
+  public synchronized TestsOutputParser.TestsOutput runTests(@NotNull VirtualFile taskDir,
+                                                             @NotNull String filePath,
+                                                             boolean isAdaptive) throws ExecutionException {
+    EduConfigurator<?> configurator = EduConfiguratorManager.forLanguage(PythonLanguage.getInstance());
+    if (configurator == null) {
+      LOG.warn("Plugin configurator for Python is null");
+      return null;
+    }
+    final OSProcessHandler handler = getOrStartWorker();
+    if (handler == null) {
+      return null;
+    }
+
+    final JsonObject request = new JsonObject();
+    request.addProperty("tests", new File(taskDir.getPath(), configurator.getTestFileName()).getPath());
+    request.addProperty("file", FileUtil.toSystemDependentName(filePath));
+    request.addProperty("cwd", taskDir.getPath());
+    final VirtualFile courseDir = myProject.getBaseDir();
+    if (courseDir != null) {
+      request.addProperty("courseDir", courseDir.getPath());
+    }
+    myResults.clear();
+    try {
+      final OutputStream input = handler.getProcessInput();
+      input.write((request.toString() + "\n").getBytes(StandardCharsets.UTF_8));
+      input.flush();
+    }
+    catch (IOException e) {
+      stopWorker();
+      throw new ExecutionException("Failed to send tests to Python test worker", e);
+    }
+
+    final String result = waitForResult(handler);
+    if (result == null) {
+      return new TestsOutputParser.TestsOutput(false, "Time limit exceeded: tests didn't finish in " +
+                                                      StringUtil.formatDuration(StreamingOutputCollector.TIME_LIMIT_MS));
+    }
+    final ProcessOutput output = parseResult(result);
+    final TestsOutputParser.TestsOutput testsOutput = TestsOutputParser.getTestsOutput(output, isAdaptive);
+    if (!output.getStderr().isEmpty() && output.getStdout().isEmpty()) {
+      LOG.info("#educational " + output.getStderr());
+      return new TestsOutputParser.TestsOutput(false, output.getStderr());
+    }
+    return testsOutput;
+  }
+
+  /**
+   * @return result line sent by the worker or null if tests didn't finish in time
+   */
+  @Nullable
+  private String waitForResult(@NotNull OSProcessHandler handler) throws ExecutionException {
+    final ProgressIndicator indicator = ProgressManager.getInstance().getProgressIndicator();
+    final long deadline = System.currentTimeMillis() + StreamingOutputCollector.TIME_LIMIT_MS;
+    while (true) {
+      final String result;
+      try {
+        result = myResults.poll(WAIT_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+      }
+      catch (InterruptedException e) {
+        stopWorker();
+        throw new ProcessCanceledException(e);
+      }
+      if (result != null) {
+        return result;
+      }
+      if (indicator != null && indicator.isCanceled()) {
+        stopWorker();
+        throw new ProcessCanceledException();
+      }
+      if (System.currentTimeMillis() > deadline) {
+        stopWorker();
+        return null;
+      }
+      if (handler.isProcessTerminated() && myResults.isEmpty()) {
+        stopWorker();
+        throw new ExecutionException("Python test worker terminated unexpectedly");
+      }
+    }
+  }
+
+  @NotNull
+  private static ProcessOutput parseResult(@NotNull String result) throws ExecutionException {
+    try {
+      final JsonObject json = new JsonParser().parse(result).getAsJsonObject();
+      final ProcessOutput output = new ProcessOutput(json.get("exitCode").getAsInt());
+      output.appendStdout(json.get("stdout").getAsString());
+      output.appendStderr(json.get("stderr").getAsString());
+      return output;
+    }
+    catch (JsonParseException | IllegalStateException | NullPointerException e) {
+      throw new ExecutionException("Unexpected result of Python test worker: " + StringUtil.first(result, 100, true), e);
+    }
+  }
+
+  @Nullable
+  private OSProcessHandler getOrStartWorker() throws ExecutionException {
+    final Module[] modules = ModuleManager.getInstance(myProject).getModules();
+    final Sdk sdk = modules.length == 0 ? null : PythonSdkType.findPythonSdk(modules[0]);
+    final String sdkHome = sdk == null ? null : sdk.getHomePath();
+    if (sdkHome == null) {
+      return null;
+    }
+    final OSProcessHandler runningHandler = myHandler;
+    if (runningHandler != null && !runningHandler.isProcessTerminated() && sdkHome.equals(mySdkHome)) {
+      return runningHandler;
+    }
+    stopWorker();
+
+    final GeneralCommandLine commandLine = new GeneralCommandLine(sdkHome, getWorkerScript().getPath());
+    commandLine.withCharset(StandardCharsets.UTF_8);
+    commandLine.getEnvironment().put("PYTHONIOENCODING", "utf-8");
+    final VirtualFile courseDir = myProject.getBaseDir();
+    if (courseDir != null) {
+      commandLine.withWorkDirectory(courseDir.getPath());
+      commandLine.getEnvironment().put(PYTHONPATH, courseDir.getPath());
+    }
+
+    final OSProcessHandler handler = new OSProcessHandler(commandLine);
+    final ResultReader resultReader = new ResultReader(myResults::offer);
+    handler.addProcessListener(new ProcessAdapter() {
+      @Override
+      public void onTextAvailable(@NotNull ProcessEvent event, @NotNull Key outputType) {
+        final String text = event.getText();
+        if (outputType == ProcessOutputTypes.STDOUT) {
+          resultReader.append(text);
+        }
+        else if (outputType == ProcessOutputTypes.STDERR) {
+          LOG.debug(text);
+        }
+      }
+    });
+    handler.startNotify();
+    myHandler = handler;
+    mySdkHome = sdkHome;
+    return handler;
+  }
+
+  @NotNull
+  private File getWorkerScript() throws ExecutionException {
+    if (myWorkerScript != null && myWorkerScript.exists()) {
+      return myWorkerScript;
+    }
+    try (InputStream stream = PyTestWorker.class.getResourceAsStream(WORKER_SCRIPT)) {
+      if (stream == null) {
+        throw new ExecutionException("Python test worker script is not found");
+      }
+      final File script = FileUtil.createTempFile("edu_test_worker", ".py", true);
+      FileUtil.writeToFile(script, FileUtil.loadBytes(stream));
+      myWorkerScript = script;
+      return script;
+    }
+    catch (IOException e) {
+      throw new ExecutionException("Failed to create Python test worker script", e);
+    }
+  }
+
+  private void stopWorker() {
+    final OSProcessHandler handler = myHandler;
+    myHandler = null;
+    if (handler != null) {
+      handler.destroyProcess();
+    }
+  }
+
+  @Override
+  public void dispose() {
+    stopWorker();
+  }
+
+  /**
+   * Splits stdout of the worker into lines and passes results to the consumer.
+   * Result line can come in several chunks and can be preceded by output of native code which isn't redirected.
+   */
+  static class ResultReader {
+    private final Consumer<String> myConsumer;
+    private final StringBuilder myLine = new StringBuilder();
+
+    ResultReader(@NotNull Consumer<String> consumer) {
+      myConsumer = consumer;
+    }
+
+    void append(@NotNull String text) {
+      int start = 0;
+      while (start < text.length()) {
+        final int lineEnd = text.indexOf('\n', start);
+        if (lineEnd < 0) {
+          if (myLine.length() + text.length() - start > StreamingOutputCollector.OUTPUT_LIMIT) {
+            // not a result line, results are limited by the worker
+            myLine.setLength(0);
+          }
+          myLine.append(text, start, text.length());
+          return;
+        }
+        myLine.append(text, start, lineEnd);
+        final int prefixIndex = myLine.indexOf(RESULT_PREFIX);
+        if (prefixIndex >= 0) {
+          myConsumer.accept(myLine.substring(prefixIndex + RESULT_PREFIX.length()).trim());
+        }
+        myLine.setLength(0);
+        start = lineEnd + 1;
+      }
+    }
+  }
+}
@@ -0,0 +1,174 @@
+package com.jetbrains.edu.python.learning.checkio.checker;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.project.Project;
+import com.jetbrains.edu.learning.ui.taskDescription.BrowserWindow;
+import com.jetbrains.edu.python.learning.checkio.utils.PyCheckiONames;
+import javafx.application.Platform;
+import javafx.beans.value.ChangeListener;
+import javafx.concurrent.Worker;
+import javafx.scene.web.WebEngine;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Keeps browsers used by {@link PyCheckiOMissionCheck} with the test form already loaded,
+ * so a check doesn't have to create a new WebView and load the form every time.
+ *
+ * Each check acquires its own browser, so several missions can be checked at the same time.
+ * Browser of the last check shows its results in the task description tool window,
+ * so it returns to the pool only when results of the next check replace it.
+ */
+public class PyCheckiOBrowserPool implements Disposable {
+  private static final int MAX_IDLE_BROWSERS = 2;
+
+  private final Project myProject;
+  private final Deque<CheckBrowser> myIdleBrowsers = new ArrayDeque<>();
+  @Nullable private CheckBrowser myDisplayedBrowser;
+  private boolean myDisposed;
+
+  public PyCheckiOBrowserPool(@NotNull Project project) {
+    myProject = project;
+  }
+
+  public static PyCheckiOBrowserPool getInstance(@NotNull Project project) {
+    return ServiceManager.getService(project, PyCheckiOBrowserPool.class);
+  }
+
+  /**
+   * @return idle browser, preferably one with the test form loaded, or a new browser if all of them are in use
+   */
+  @NotNull
+  public synchronized CheckBrowser acquire() {
+    for (Iterator<CheckBrowser> iterator = myIdleBrowsers.iterator(); iterator.hasNext(); ) {
+      CheckBrowser browser = iterator.next();
+      if (browser.isFormLoaded()) {
+        iterator.remove();
+        return browser;
+      }
+    }
+    CheckBrowser browser = myIdleBrowsers.pollFirst();
+    return browser != null ? browser : new CheckBrowser(new BrowserWindow(myProject, false, false));
+  }
+
+  /**
+   * Resets the browser and loads the test form into it for the next check
+   */
+  public void release(@NotNull CheckBrowser browser) {
+    synchronized (this) {
+      if (browser == myDisplayedBrowser) {
+        myDisplayedBrowser = null;
+      }
+      if (myDisposed || myIdleBrowsers.size() >= MAX_IDLE_BROWSERS) {
+        browser.dispose();
+        return;
+      }
+      myIdleBrowsers.addLast(browser);
+    }
+    browser.reset();
+  }
+
+  /**
+   * Marks the browser as shown in the tool window, browser shown before it isn't visible anymore and can be reused
+   */
+  public void setDisplayed(@NotNull CheckBrowser browser) {
+    CheckBrowser previous;
+    synchronized (this) {
+      previous = myDisplayedBrowser;
+      myDisplayedBrowser = browser;
+    }
+    if (previous != null && previous != browser) {
+      release(previous);
+    }
+  }
+
+  @Override
+  public void dispose() {
+    List<CheckBrowser> browsers;
+    synchronized (this) {
+      myDisposed = true;
+      browsers = new ArrayList<>(myIdleBrowsers);
+      myIdleBrowsers.clear();
+      if (myDisplayedBrowser != null) {
+        browsers.add(myDisplayedBrowser);
+        myDisplayedBrowser = null;
+      }
+    }
+    browsers.forEach(CheckBrowser::dispose);
+  }
+
+  public static class CheckBrowser {
+    private final BrowserWindow myWindow;
+    private volatile boolean myFormLoaded;
+
+    private CheckBrowser(@NotNull BrowserWindow window) {
+      myWindow = window;
+      // window initializes its engine on FX thread, so the listener is added after it
+      Platform.runLater(() -> getEngine().getLoadWorker().stateProperty().addListener((observable, oldState, newState) -> {
+        myFormLoaded = newState == Worker.State.SUCCEEDED && isTestFormLocation(getEngine().getLocation());
+      }));
+    }
+
+    @NotNull
+    public BrowserWindow getWindow() {
+      return myWindow;
+    }
+
+    /**
+     * Should be called on FX thread only
+     */
+    @NotNull
+    public WebEngine getEngine() {
+      return myWindow.getEngine();
+    }
+
+    public boolean isFormLoaded() {
+      return myFormLoaded;
+    }
+
+    /**
+     * Should be called on FX thread only
+     */
+    public void loadTestForm() {
+      myFormLoaded = false;
+      getEngine().load(getTestFormUrl());
+    }
+
+    public void addStateListener(@NotNull ChangeListener<Worker.State> listener) {
+      Platform.runLater(() -> getEngine().getLoadWorker().stateProperty().addListener(listener));
+    }
+
+    public void removeStateListener(@NotNull ChangeListener<Worker.State> listener) {
+      Platform.runLater(() -> getEngine().getLoadWorker().stateProperty().removeListener(listener));
+    }
+
+    private void reset() {
+      Platform.runLater(() -> {
+        getEngine().getLoadWorker().cancel();
+        loadTestForm();
+      });
+    }
+
+    private void dispose() {
+      myFormLoaded = false;
+      Platform.runLater(() -> getEngine().getLoadWorker().cancel());
+      myWindow.dispose();
+    }
+
+    static boolean isTestFormLocation(@Nullable String location) {
+      return location != null && location.contains("checkioTestForm.html");
+    }
+
+    @NotNull
+    private static String getTestFormUrl() {
+      return PyCheckiOBrowserPool.class.getResource(PyCheckiONames.PY_CHECKIO_TEST_FORM_URL).toExternalForm();
+    }
+  }
+}
@@ -3,9 +3,10 @@ package com.jetbrains.edu.python.learning.checkio.checker;
 import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.editor.Document;
 import com.intellij.openapi.fileEditor.FileDocumentManager;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.Computable;
-import com.intellij.openapi.util.Ref;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.jetbrains.edu.learning.EduUtils;
 import com.jetbrains.edu.learning.checker.CheckResult;
@@ -16,12 +17,14 @@ import com.jetbrains.edu.learning.checkio.utils.CheckiONames;
 import com.jetbrains.edu.learning.courseFormat.CheckStatus;
 import com.jetbrains.edu.learning.courseFormat.TaskFile;
 import com.jetbrains.edu.learning.courseFormat.tasks.Task;
-import com.jetbrains.edu.learning.ui.taskDescription.BrowserWindow;
+import com.jetbrains.edu.python.learning.checkio.checker.PyCheckiOBrowserPool.CheckBrowser;
 import com.jetbrains.edu.python.learning.checkio.connectors.PyCheckiOOAuthConnector;
 import com.jetbrains.edu.python.learning.checkio.utils.PyCheckiONames;
 import javafx.application.Platform;
+import javafx.beans.value.ChangeListener;
+import javafx.beans.value.ObservableValue;
 import javafx.concurrent.Worker;
-import javafx.embed.swing.JFXPanel;
+import javafx.scene.web.WebEngine;
 import netscape.javascript.JSObject;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -34,22 +37,32 @@ import java.util.concurrent.Callable;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
+/**
+ * Checks a mission in a browser from {@link PyCheckiOBrowserPool}. The browser isn't released here,
+ * its listeners are removed when the check finishes, so the caller can show results and return it to the pool.
+ */
 public class PyCheckiOMissionCheck implements Callable<CheckResult> {
+  private static final long CHECK_TIMEOUT_MS = TimeUnit.SECONDS.toMillis(30);
+  private static final long CANCEL_CHECK_INTERVAL_MS = 100;
+
   private final Project myProject;
   private final Task myTask;
 
-  private final BrowserWindow myBrowserWindow;
+  private final CheckBrowser myBrowser;
   private final CheckiOTestResultHandler myResultHandler;
 
-  @Nullable private CheckResult myCheckResult;
+  @Nullable private volatile CheckResult myCheckResult;
   @NotNull private final CountDownLatch myLatch = new CountDownLatch(1);
 
-  public PyCheckiOMissionCheck(@NotNull Project project, @NotNull Task task) {
+  @Nullable private ChangeListener<Worker.State> myTestFormLoadedListener;
+  @Nullable private ChangeListener<Worker.State> myCheckDoneListener;
+
+  public PyCheckiOMissionCheck(@NotNull Project project, @NotNull Task task, @NotNull CheckBrowser browser) {
     myProject = project;
     myTask = task;
 
     myResultHandler = new CheckiOTestResultHandler();
-    myBrowserWindow = new BrowserWindow(myProject, false, false);
+    myBrowser = browser;
   }
 
   @NotNull
@@ -69,6 +82,8 @@ public class PyCheckiOMissionCheck implements Callable<CheckResult> {
         PyCheckiOOAuthConnector.getInstance()
       ).handle(e);
       return CheckResult.FAILED_TO_CHECK;
+    } finally {
+      removeListeners();
     }
   }
 
@@ -99,74 +114,106 @@ public class PyCheckiOMissionCheck implements Callable<CheckResult> {
   private CheckResult doCheck(@NotNull String accessToken, @NotNull String taskId, @NotNull String code)
     throws InterruptedException, NetworkException {
 
+    myTestFormLoadedListener = createTestFormLoadedListener(accessToken, taskId, code);
+    myCheckDoneListener = createCheckDoneListener();
+    final ChangeListener<Worker.State> testFormLoadedListener = myTestFormLoadedListener;
+    final ChangeListener<Worker.State> checkDoneListener = myCheckDoneListener;
+
     Platform.runLater(() -> {
-      setTestFormLoadedListener(accessToken, taskId, code);
-      setCheckDoneListener();
-      loadTestForm();
+      final WebEngine engine = myBrowser.getEngine();
+      engine.getLoadWorker().stateProperty().addListener(checkDoneListener);
+      if (myBrowser.isFormLoaded()) {
+        submitTestForm(accessToken, taskId, code);
+      }
+      else {
+        engine.getLoadWorker().stateProperty().addListener(testFormLoadedListener);
+        myBrowser.loadTestForm();
+      }
     });
 
-    boolean timeoutExceeded = !myLatch.await(30L, TimeUnit.SECONDS);
-    if (timeoutExceeded) {
-      return new CheckResult(CheckStatus.Unchecked, "Checking took too much time");
+    final ProgressIndicator indicator = ProgressManager.getInstance().getProgressIndicator();
+    final long deadline = System.currentTimeMillis() + CHECK_TIMEOUT_MS;
+    while (!myLatch.await(CANCEL_CHECK_INTERVAL_MS, TimeUnit.MILLISECONDS)) {
+      if (indicator != null && indicator.isCanceled()) {
+        return new CheckResult(CheckStatus.Unchecked, "Checking was cancelled");
+      }
+      if (System.currentTimeMillis() > deadline) {
+        return new CheckResult(CheckStatus.Unchecked, "Checking took too much time");
+      }
     }
 
-    if (myCheckResult == CheckResult.CONNECTION_FAILED) {
+    final CheckResult checkResult = myCheckResult;
+    if (checkResult == CheckResult.CONNECTION_FAILED) {
       throw new NetworkException();
     }
 
     //noinspection ConstantConditions cannot be null because of handler implementation
-    return myCheckResult;
+    return checkResult;
   }
 
-  private void loadTestForm() {
-    final String formUrl = getClass().getResource(PyCheckiONames.PY_CHECKIO_TEST_FORM_URL).toExternalForm();
-    myBrowserWindow.getEngine().load(formUrl);
+  @NotNull
+  private ChangeListener<Worker.State> createCheckDoneListener() {
+    return new ChangeListener<Worker.State>() {
+      private boolean myVisited;
+
+      @Override
+      public void changed(ObservableValue<? extends Worker.State> observable, Worker.State oldState, Worker.State newState) {
+        if (newState == Worker.State.FAILED) {
+          setConnectionError();
+          return;
+        }
+
+        final WebEngine engine = myBrowser.getEngine();
+        if (engine.getLocation().contains(CheckiONames.CHECKIO_URL) && newState == Worker.State.SUCCEEDED && !myVisited) {
+          myVisited = true;
+
+          final JSObject windowObject = (JSObject)engine.executeScript("window");
+          windowObject.setMember("javaHandler", myResultHandler);
+
+          engine.executeScript(
+            "function handleEvent(e) {\n" +
+            "\twindow.javaHandler.handleTestEvent(e.detail.success)\n" +
+            "}\n" +
+            "window.addEventListener(\"checkio:checkDone\", handleEvent, false)"
+          );
+        }
+      }
+    };
   }
 
-  private void setCheckDoneListener() {
-    final Ref<Boolean> visited = new Ref<>(Boolean.FALSE);
-
-    myBrowserWindow.getEngine().getLoadWorker().stateProperty().addListener((observable, oldState, newState) -> {
+  @NotNull
+  private ChangeListener<Worker.State> createTestFormLoadedListener(@NotNull String accessToken,
+                                                                    @NotNull String taskId,
+                                                                    @NotNull String code) {
+    return (observable, oldState, newState) -> {
       if (newState == Worker.State.FAILED) {
         setConnectionError();
         return;
       }
 
-      if (myBrowserWindow.getEngine().getLocation().contains(CheckiONames.CHECKIO_URL) && newState == Worker.State.SUCCEEDED && !visited.get()) {
-        visited.set(Boolean.TRUE);
-
-        final JSObject windowObject = (JSObject)myBrowserWindow.getEngine().executeScript("window");
-        windowObject.setMember("javaHandler", myResultHandler);
-
-        myBrowserWindow.getEngine().executeScript(
-          "function handleEvent(e) {\n" +
-          "\twindow.javaHandler.handleTestEvent(e.detail.success)\n" +
-          "}\n" +
-          "window.addEventListener(\"checkio:checkDone\", handleEvent, false)"
-        );
+      if (newState == Worker.State.SUCCEEDED && CheckBrowser.isTestFormLocation(myBrowser.getEngine().getLocation())) {
+        submitTestForm(accessToken, taskId, code);
       }
-    });
+    };
   }
 
-  private void setTestFormLoadedListener(@NotNull String accessToken,
-                                         @NotNull String taskId,
-                                         @NotNull String code) {
-    myBrowserWindow.getEngine().getLoadWorker().stateProperty().addListener(((observable, oldState, newState) -> {
-      if (newState == Worker.State.FAILED) {
-        setConnectionError();
-        return;
-      }
+  private void submitTestForm(@NotNull String accessToken, @NotNull String taskId, @NotNull String code) {
+    final org.w3c.dom.Document documentWithForm = myBrowser.getEngine().getDocument();
+    ((HTMLInputElement)documentWithForm.getElementById("access-token")).setValue(accessToken);
+    ((HTMLInputElement)documentWithForm.getElementById("task-id")).setValue(taskId);
+    ((HTMLInputElement)documentWithForm.getElementById("interpreter")).setValue(PyCheckiONames.PY_CHECKIO_INTERPRETER);
+    ((HTMLTextAreaElement)documentWithForm.getElementById("code")).setValue(code);
 
-      if (newState == Worker.State.SUCCEEDED && myBrowserWindow.getEngine().getLocation().contains("checkioTestForm.html")) {
-        final org.w3c.dom.Document documentWithForm = myBrowserWindow.getEngine().getDocument();
-        ((HTMLInputElement)documentWithForm.getElementById("access-token")).setValue(accessToken);
-        ((HTMLInputElement)documentWithForm.getElementById("task-id")).setValue(taskId);
-        ((HTMLInputElement)documentWithForm.getElementById("interpreter")).setValue(PyCheckiONames.PY_CHECKIO_INTERPRETER);
-        ((HTMLTextAreaElement)documentWithForm.getElementById("code")).setValue(code);
+    ((HTMLFormElement)documentWithForm.getElementById("test-form")).submit();
+  }
 
-        ((HTMLFormElement)documentWithForm.getElementById("test-form")).submit();
-      }
-    }));
+  private void removeListeners() {
+    if (myTestFormLoadedListener != null) {
+      myBrowser.removeStateListener(myTestFormLoadedListener);
+    }
+    if (myCheckDoneListener != null) {
+      myBrowser.removeStateListener(myCheckDoneListener);
+    }
   }
 
   private void setConnectionError() {
@@ -174,10 +221,6 @@ public class PyCheckiOMissionCheck implements Callable<CheckResult> {
     myLatch.countDown();
   }
 
-  public JFXPanel getBrowserPanel() {
-    return myBrowserWindow.getPanel();
-  }
-
   public class CheckiOTestResultHandler {
     @SuppressWarnings("unused") // used in JS code
     public void handleTestEvent(int result) {
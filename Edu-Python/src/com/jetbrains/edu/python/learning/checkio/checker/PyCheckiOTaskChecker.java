@@ -1,8 +1,6 @@
 package com.jetbrains.edu.python.learning.checkio.checker;
 
 import com.intellij.icons.AllIcons;
-import com.intellij.openapi.application.ex.ApplicationUtil;
-import com.intellij.openapi.progress.ProgressManager;
 import com.intellij.openapi.project.Project;
 import com.jetbrains.edu.learning.EduUtils;
 import com.jetbrains.edu.learning.checker.CheckResult;
@@ -62,14 +60,19 @@ public class PyCheckiOTaskChecker extends TaskChecker<EduTask> {
   @NotNull
   @Override
   public CheckResult check() {
-    final PyCheckiOMissionCheck missionCheck = new PyCheckiOMissionCheck(project, task);
+    final PyCheckiOBrowserPool browserPool = PyCheckiOBrowserPool.getInstance(project);
+    final PyCheckiOBrowserPool.CheckBrowser browser = browserPool.acquire();
+    boolean isDisplayed = false;
 
     try {
-      final CheckResult checkResult =
-        ApplicationUtil.runWithCheckCanceled(missionCheck, ProgressManager.getInstance().getProgressIndicator());
+      // mission check waits for results itself and stops waiting when the progress indicator is cancelled
+      final CheckResult checkResult = new PyCheckiOMissionCheck(project, task, browser).call();
 
       if (checkResult.getStatus() != CheckStatus.Unchecked) {
-        showTestResultPanel(missionCheck.getBrowserPanel());
+        isDisplayed = showTestResultPanel(browser.getWindow().getPanel());
+        if (isDisplayed) {
+          browserPool.setDisplayed(browser);
+        }
       }
 
       return checkResult;
@@ -78,9 +81,14 @@ public class PyCheckiOTaskChecker extends TaskChecker<EduTask> {
       LOG.warn(e.getMessage());
       return CheckResult.FAILED_TO_CHECK;
     }
+    finally {
+      if (!isDisplayed) {
+        browserPool.release(browser);
+      }
+    }
   }
 
-  private void showTestResultPanel(@NotNull JFXPanel browserPanel) {
+  private boolean showTestResultPanel(@NotNull JFXPanel browserPanel) {
     final JPanel testResultPanel = new JPanel(new BorderLayout());
 
     testResultPanel.add(createBackButtonUI(), BorderLayout.PAGE_START);
@@ -91,7 +99,9 @@ public class PyCheckiOTaskChecker extends TaskChecker<EduTask> {
     if (toolWindow != null) {
       toolWindow.getContentPanel().add(TEST_RESULTS_ID, testResultPanel);
       toolWindow.showPanelById(TEST_RESULTS_ID);
+      return true;
     }
+    return false;
   }
 
   private static JComponent createBrowserWindowUI(@NotNull JFXPanel browserPanel) {
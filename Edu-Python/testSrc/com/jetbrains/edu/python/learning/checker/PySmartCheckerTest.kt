@@ -0,0 +1,44 @@
+package com.jetbrains.edu.python.learning.checker
+
+import com.jetbrains.edu.learning.EduTestCase
+import com.jetbrains.edu.learning.courseFormat.AnswerPlaceholder
+
+class PySmartCheckerTest : EduTestCase() {
+
+  fun `test variant keeps user answer only in checked placeholder`() {
+    val text = "a = 1\nb = 22\nc = 333\n"
+    val snapshot = PySmartChecker.TaskFileSnapshot("task.py", Charsets.UTF_8, text, listOf(
+      placeholder(text.indexOf("1"), 1, "x"),
+      placeholder(text.indexOf("22"), 2, "yy"),
+      placeholder(text.indexOf("333"), 3, "zzz")
+    ))
+    val (first, second, third) = snapshot.placeholders
+
+    assertEquals("a = 1\nb = yy\nc = zzz\n", snapshot.getVariantText(first))
+    assertEquals("a = x\nb = 22\nc = zzz\n", snapshot.getVariantText(second))
+    assertEquals("a = x\nb = yy\nc = 333\n", snapshot.getVariantText(third))
+  }
+
+  fun `test windows text lists placeholders in task file order`() {
+    val text = "print(first, second)"
+    val snapshot = PySmartChecker.TaskFileSnapshot("task.py", Charsets.UTF_8, text, listOf(
+      placeholder(text.indexOf("second"), "second".length, "2"),
+      placeholder(text.indexOf("first"), "first".length, "1")
+    ))
+    val (second, first) = snapshot.placeholders
+
+    assertEquals("print(first, 2)", snapshot.getVariantText(first))
+    val separator = System.lineSeparator()
+    assertEquals("#educational_plugin_window = 2$separator#educational_plugin_window = first$separator",
+                 snapshot.getWindowsText(first))
+    assertEquals("print(1, second)", snapshot.getVariantText(second))
+  }
+
+  private fun placeholder(offset: Int, length: Int, possibleAnswer: String): AnswerPlaceholder {
+    val placeholder = AnswerPlaceholder()
+    placeholder.offset = offset
+    placeholder.length = length
+    placeholder.possibleAnswer = possibleAnswer
+    return placeholder
+  }
+}
@@ -0,0 +1,29 @@
+package com.jetbrains.edu.python.learning.checker
+
+import com.jetbrains.edu.learning.EduTestCase
+
+class PyTestWorkerResultReaderTest : EduTestCase() {
+
+  fun `test result split into chunks`() {
+    val results = mutableListOf<String>()
+    val reader = PyTestWorker.ResultReader { results.add(it) }
+
+    reader.append("#educational_plugin_worker_result {\"stdout\": \"a")
+    reader.append("b\", \"stderr\": \"\",")
+    assertEquals(emptyList<String>(), results)
+    reader.append(" \"exitCode\": 0}\n#educational_plugin_worker_result {}\n")
+
+    assertEquals(listOf("{\"stdout\": \"ab\", \"stderr\": \"\", \"exitCode\": 0}", "{}"), results)
+  }
+
+  fun `test result after unterminated output`() {
+    val results = mutableListOf<String>()
+    val reader = PyTestWorker.ResultReader { results.add(it) }
+
+    reader.append("native output\n")
+    reader.append("no line end")
+    reader.append("#educational_plugin_worker_result {}\r\n")
+
+    assertEquals(listOf("{}"), results)
+  }
+}
@@ -0,0 +1,36 @@
+package com.jetbrains.edu.coursecreator.actions
+
+import com.intellij.openapi.actionSystem.AnActionEvent
+import com.intellij.openapi.fileEditor.FileDocumentManager
+import com.intellij.openapi.progress.ProgressIndicator
+import com.intellij.openapi.progress.ProgressManager
+import com.intellij.openapi.progress.Task
+import com.intellij.openapi.project.DumbAwareAction
+import com.jetbrains.edu.coursecreator.CCUtils
+import com.jetbrains.edu.learning.EduSettings
+import com.jetbrains.edu.learning.StudyTaskManager
+import com.jetbrains.edu.learning.checker.CheckUtils
+import com.jetbrains.edu.learning.checker.CourseCheckEngine
+
+class CCCheckAllTasks : DumbAwareAction("Check All Tasks", "Check all tasks of the course and show summary", null) {
+
+  override fun actionPerformed(e: AnActionEvent) {
+    val project = e.project ?: return
+    val course = StudyTaskManager.getInstance(project).course ?: return
+    FileDocumentManager.getInstance().saveAllDocuments()
+
+    ProgressManager.getInstance().run(object : Task.Backgroundable(project, "Checking All Tasks", true) {
+      override fun run(indicator: ProgressIndicator) {
+        indicator.isIndeterminate = false
+        val engine = CourseCheckEngine(project, EduSettings.getInstance().courseCheckParallelism)
+        val report = engine.checkCourse(course, indicator)
+        CheckUtils.showOutputToolWindow(project, report.toString())
+      }
+    })
+  }
+
+  override fun update(e: AnActionEvent) {
+    val project = e.project
+    e.presentation.isEnabledAndVisible = project != null && CCUtils.isCourseCreator(project)
+  }
+}
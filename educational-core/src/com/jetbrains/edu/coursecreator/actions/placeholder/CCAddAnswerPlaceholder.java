@@ -83,9 +83,9 @@ public class CCAddAnswerPlaceholder extends CCAnswerPlaceholderAction {
 
     @Override
     public void performUndo() {
-      final List<AnswerPlaceholder> answerPlaceholders = getTaskFile().getAnswerPlaceholders();
-      if (answerPlaceholders.contains(myPlaceholder)) {
-        answerPlaceholders.remove(myPlaceholder);
+      final TaskFile taskFile = getTaskFile();
+      if (taskFile.getAnswerPlaceholders().contains(myPlaceholder)) {
+        taskFile.removeAnswerPlaceholder(myPlaceholder);
         NewPlaceholderPainter.removePainter(getEditor(), myPlaceholder);
       }
     }
@@ -129,7 +129,7 @@ public class CCAddAnswerPlaceholder extends CCAnswerPlaceholderAction {
       return !arePlaceholdersIntersect(taskFile, start, end);
     }
     int offset = editor.getCaretModel().getOffset();
-    return EduUtils.getAnswerPlaceholder(offset, taskFile.getAnswerPlaceholders()) == null;
+    return taskFile.getAnswerPlaceholder(offset) == null;
   }
 
   protected CCCreateAnswerPlaceholderDialog createDialog(Project project, AnswerPlaceholder answerPlaceholder) {
@@ -6,6 +6,7 @@ import com.intellij.openapi.editor.event.DocumentListener;
 import com.intellij.openapi.editor.impl.event.DocumentEventImpl;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.TextRange;
+import com.intellij.openapi.util.text.StringUtil;
 import com.jetbrains.edu.coursecreator.stepik.StepikCourseChangeHandler;
 import com.jetbrains.edu.coursecreator.configuration.YamlFormatSynchronizer;
 import com.jetbrains.edu.learning.courseFormat.AnswerPlaceholder;
@@ -51,16 +52,17 @@ public class EduDocumentListener implements DocumentListener {
     int offset = e.getOffset();
     int change = event.getNewLength() - event.getOldLength();
 
-    final CharSequence fragment = e.getNewFragment();
-    CharSequence oldFragment = e.getOldFragment();
+    final boolean isNewLineInserted = e.getOldLength() == 0 && StringUtil.startsWithChar(e.getNewFragment(), '\n');
+    final boolean isNewLineDeleted = e.getNewLength() == 0 && StringUtil.startsWithChar(e.getOldFragment(), '\n');
 
-    for (AnswerPlaceholder placeholder : myTaskFile.getAnswerPlaceholders()) {
+    // placeholders which end before the change aren't affected by it
+    for (AnswerPlaceholder placeholder : myTaskFile.getAnswerPlaceholdersEndingAtOrAfter(offset)) {
       int placeholderStart = placeholder.getOffset();
       int placeholderEnd = placeholder.getEndOffset();
 
       int changeForPlaceholder = getChangeForPlaceholder(offset, change, placeholder);
 
-      if (placeholderStart - 1 == offset && fragment.toString().isEmpty() && oldFragment.toString().startsWith("\n")) {
+      if (placeholderStart - 1 == offset && isNewLineDeleted) {
         placeholderStart -= 1;
       }
 
@@ -75,7 +77,7 @@ public class EduDocumentListener implements DocumentListener {
       else if (placeholderEnd > offset) {
         placeholderEnd += placeholderStart >= offset ? change : changeForPlaceholder;
       }
-      if (placeholderStart == offset && oldFragment.toString().isEmpty() && fragment.toString().startsWith("\n")) {
+      if (placeholderStart == offset && isNewLineInserted) {
         placeholderStart += 1;
       }
 
@@ -3,4 +3,7 @@ package com.jetbrains.edu.learning
 object EduExperimentalFeatures {
   const val YAML_FORMAT = "edu.course.creator.yaml"
   const val ANDROID_COURSES = "com.jetbrains.edu.android"
+  const val GRADLE_TOOLING_API_CHECKER = "edu.gradle.tooling.api.checker"
+  const val JAVA_DIRECT_CHECKER = "edu.java.direct.checker"
+  const val PYTHON_TEST_WORKER = "edu.python.test.worker"
 }
@@ -55,6 +55,7 @@ public class EduNames {
   public static final String OUT = "out";
 
   public static final String STUDY_PROJECT_XML_PATH = "/.idea/study_project.xml";
+  public static final String STUDY_COURSE_STATE_PATH = "/.idea/study/course.xml";
 
   // IDs of supported languages. They are the same that `Language#getID` returns
   // but in some cases we don't have corresponding Language in classpath to get its id via `getID` method
@@ -255,6 +255,7 @@ public class EduProjectComponent implements ProjectComponent {
         }
       }
     }
+    StepikConnectionPool.logStatistics();
   }
 
   @Override
@@ -26,6 +26,8 @@ public class EduSettings implements PersistentStateComponent<EduSettings> {
   public long LAST_TIME_CHECKED = 0;
   private boolean myEnableTestingFromSamples = false;
   public boolean myShouldUseJavaFx = EduUtils.hasJavaFx();
+  private int mySolutionsLoadingParallelism = 4;
+  private int myCourseCheckParallelism = Runtime.getRuntime().availableProcessors();
 
   public EduSettings() {
   }
@@ -88,6 +90,28 @@ public class EduSettings implements PersistentStateComponent<EduSettings> {
     ApplicationManager.getApplication().getMessageBus().syncPublisher(SETTINGS_CHANGED).settingsChanged();
   }
 
+  /**
+   * Max number of tasks which solutions are loaded from Stepik simultaneously
+   */
+  public int getSolutionsLoadingParallelism() {
+    return mySolutionsLoadingParallelism;
+  }
+
+  public void setSolutionsLoadingParallelism(int solutionsLoadingParallelism) {
+    mySolutionsLoadingParallelism = Math.max(1, solutionsLoadingParallelism);
+  }
+
+  /**
+   * Max number of tasks which are checked simultaneously when all tasks of a course are checked
+   */
+  public int getCourseCheckParallelism() {
+    return myCourseCheckParallelism;
+  }
+
+  public void setCourseCheckParallelism(int courseCheckParallelism) {
+    myCourseCheckParallelism = Math.max(1, courseCheckParallelism);
+  }
+
   @NotNull
   private static List<StepikUserWidget> getStepikWidgets() {
     IdeFrame[] frames = WindowManager.getInstance().getAllProjectFrames();
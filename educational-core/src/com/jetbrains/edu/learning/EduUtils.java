@@ -2,6 +2,7 @@ package com.jetbrains.edu.learning;
 
 import com.google.common.collect.Lists;
 import com.google.gson.*;
+import com.google.gson.reflect.TypeToken;
 import com.intellij.ide.SaveAndSyncHandler;
 import com.intellij.ide.fileTemplates.FileTemplate;
 import com.intellij.ide.fileTemplates.FileTemplateManager;
@@ -96,6 +97,7 @@ import javax.imageio.ImageIO;
 import javax.swing.*;
 import java.awt.*;
 import java.io.*;
+import java.lang.reflect.Type;
 import java.net.URI;
 import java.util.*;
 import java.util.List;
@@ -113,6 +115,15 @@ public class EduUtils {
   public static final Comparator<StudyItem> INDEX_COMPARATOR = Comparator.comparingInt(StudyItem::getIndex);
   private static final String SHORTCUT_ENTITY = "&shortcut:";
   private static final Logger LOG = Logger.getInstance(EduUtils.class.getName());
+  private static final int MAX_CACHED_COURSE_METAS = 20;
+  // archive path -> parsed course.json of the archive, the least recently used ones are evicted
+  private static final Map<String, LocalCourseMeta> ourLocalCourseMetas = Collections.synchronizedMap(
+    new LinkedHashMap<String, LocalCourseMeta>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, LocalCourseMeta> eldest) {
+        return size() > MAX_CACHED_COURSE_METAS;
+      }
+    });
 
   public static void closeSilently(@Nullable final Closeable stream) {
     if (stream != null) {
@@ -1065,29 +1076,48 @@ public class EduUtils {
     return courses;
   }
 
+  /**
+   * Course items are bound when they are accessed for the first time, so only course info is bound
+   * for courses which are just shown in course list
+   */
   @Nullable
   public static Course getLocalCourse(@NotNull final String zipFilePath) {
+    final LocalCourseMeta courseMeta = getLocalCourseMeta(zipFilePath);
+    if (courseMeta == null) {
+      return null;
+    }
+    // course is bound on each call because callers modify it
+    final Course course = LocalCourseGson.INSTANCE.fromJson(courseMeta.myHeader, courseMeta.myIsRemote ? RemoteCourse.class : Course.class);
+    course.setItems(new LocalCourseItems(courseMeta.myItemsText));
+    return course;
+  }
+
+  /**
+   * Bundled courses are loaded each time course list is shown, so parsed course.json of an archive is kept
+   * until the archive is changed
+   */
+  @Nullable
+  private static LocalCourseMeta getLocalCourseMeta(@NotNull final String zipFilePath) {
+    final File archive = new File(zipFilePath);
+    final LocalCourseMeta cached = ourLocalCourseMetas.get(zipFilePath);
+    if (cached != null && cached.isUpToDate(archive)) {
+      return cached;
+    }
     try {
       final JBZipFile zipFile = new JBZipFile(zipFilePath);
-      final JBZipEntry entry = zipFile.getEntry(EduNames.COURSE_META_FILE);
-      if (entry == null) {
-        return null;
+      try {
+        final JBZipEntry entry = zipFile.getEntry(EduNames.COURSE_META_FILE);
+        if (entry == null) {
+          return null;
+        }
+        final String jsonText = new String(entry.getData(), CharsetToolkit.UTF8_CHARSET);
+        final LocalCourseMeta courseMeta = new LocalCourseMeta(archive, new JsonParser().parse(jsonText).getAsJsonObject());
+        ourLocalCourseMetas.put(zipFilePath, courseMeta);
+        return courseMeta;
       }
-      byte[] bytes = entry.getData();
-      final String jsonText = new String(bytes, CharsetToolkit.UTF8_CHARSET);
-      Gson gson = new GsonBuilder()
-          .registerTypeAdapter(Task.class, new SerializationUtils.Json.TaskAdapter())
-          .registerTypeAdapter(StudyItem.class, new SerializationUtils.Json.LessonSectionAdapter())
-          .setFieldNamingPolicy(FieldNamingPolicy.LOWER_CASE_WITH_UNDERSCORES)
-          .create();
-      zipFile.close();
-      JsonParser parser = new JsonParser();
-      JsonObject object = parser.parse(jsonText).getAsJsonObject();
-      JsonElement id = object.get("id");
-      if (id != null && 0 != id.getAsInt()) {
-        return gson.fromJson(object, RemoteCourse.class);
+      finally {
+        zipFile.close();
       }
-      return gson.fromJson(object, Course.class);
     }
     catch (IOException e) {
       LOG.error("Failed to unzip course archive");
@@ -1096,6 +1126,90 @@ public class EduUtils {
     return null;
   }
 
+  private static class LocalCourseMeta {
+    private final long myTimeStamp;
+    private final long myLength;
+    // course.json without items, it isn't modified by deserialization
+    private final JsonObject myHeader;
+    // items are deserialized from text because item deserializers modify json
+    private final String myItemsText;
+    private final boolean myIsRemote;
+
+    LocalCourseMeta(@NotNull File archive, @NotNull JsonObject courseJson) {
+      myTimeStamp = archive.lastModified();
+      myLength = archive.length();
+      final JsonElement items = courseJson.remove(SerializationUtils.ITEMS);
+      myItemsText = items != null ? items.toString() : "[]";
+      myHeader = courseJson;
+      final JsonElement id = courseJson.get("id");
+      myIsRemote = id != null && 0 != id.getAsInt();
+    }
+
+    boolean isUpToDate(@NotNull File archive) {
+      return archive.lastModified() == myTimeStamp && archive.length() == myLength;
+    }
+  }
+
+  private static class LocalCourseItems extends AbstractList<StudyItem> {
+    private static final Type ITEMS_TYPE = new TypeToken<List<StudyItem>>() {}.getType();
+    private final String myItemsText;
+    private volatile List<StudyItem> myItems;
+
+    LocalCourseItems(@NotNull String itemsText) {
+      myItemsText = itemsText;
+    }
+
+    @NotNull
+    private List<StudyItem> getItems() {
+      List<StudyItem> items = myItems;
+      if (items == null) {
+        synchronized (this) {
+          items = myItems;
+          if (items == null) {
+            List<StudyItem> deserialized = LocalCourseGson.INSTANCE.fromJson(myItemsText, ITEMS_TYPE);
+            items = myItems = deserialized != null ? new ArrayList<>(deserialized) : new ArrayList<>();
+          }
+        }
+      }
+      return items;
+    }
+
+    @Override
+    public StudyItem get(int index) {
+      return getItems().get(index);
+    }
+
+    @Override
+    public int size() {
+      return getItems().size();
+    }
+
+    @Override
+    public StudyItem set(int index, StudyItem item) {
+      return getItems().set(index, item);
+    }
+
+    @Override
+    public void add(int index, StudyItem item) {
+      getItems().add(index, item);
+      modCount++;
+    }
+
+    @Override
+    public StudyItem remove(int index) {
+      modCount++;
+      return getItems().remove(index);
+    }
+  }
+
+  private static class LocalCourseGson {
+    private static final Gson INSTANCE = new GsonBuilder()
+      .registerTypeAdapter(Task.class, new SerializationUtils.Json.TaskAdapter())
+      .registerTypeAdapter(StudyItem.class, new SerializationUtils.Json.LessonSectionAdapter())
+      .setFieldNamingPolicy(FieldNamingPolicy.LOWER_CASE_WITH_UNDERSCORES)
+      .create();
+  }
+
   public static boolean isTaskDirectory(@NotNull Project project, @NotNull VirtualFile virtualFile) {
     if (!virtualFile.isDirectory()) {
       return false;
@@ -6,51 +6,119 @@ import com.intellij.openapi.ui.AbstractPainter
 import com.intellij.openapi.wm.IdeGlassPaneUtil
 import com.intellij.util.ui.JBUI
 import com.jetbrains.edu.learning.courseFormat.AnswerPlaceholder
+import org.jetbrains.annotations.TestOnly
 import java.awt.BasicStroke
 import java.awt.Component
 import java.awt.Graphics2D
+import java.awt.Point
+import java.awt.Rectangle
 import java.awt.Shape
+import java.util.concurrent.ConcurrentHashMap
 
 
 object NewPlaceholderPainter {
 
-  @JvmStatic
-  val placeholderPainters = HashMap<AnswerPlaceholder, AbstractPainter>()
+  private val editorPainters = ConcurrentHashMap<Editor, EditorPlaceholdersPainter>()
 
   @JvmStatic
   fun paintPlaceholder(editor: Editor, placeholder: AnswerPlaceholder) {
     val project = editor.project ?: return
-    if (project.isDisposed) return
-    val isStudentProject = EduUtils.isStudentProject(project)
-
-    val painter: AbstractPainter = object : AbstractPainter() {
-
-      override fun needsRepaint() = !editor.isDisposed
-
-      override fun executePaint(component: Component?, g: Graphics2D) {
-        if (isStudentProject && !placeholder.isVisible) return
-        g.color = placeholder.color
-        g.stroke = BasicStroke(JBUI.scale(2f))
-        val shape = getPlaceholderShape(editor, placeholder.offset, placeholder.endOffset).getShape()
-        if (!isVisible(shape, editor)) return
-        g.draw(shape)
+    if (project.isDisposed || editor.isDisposed) return
+    val painter = editorPainters.computeIfAbsent(editor) {
+      EditorPlaceholdersPainter(editor, EduUtils.isStudentProject(project)).also {
+        IdeGlassPaneUtil.installPainter(editor.contentComponent, it, project)
       }
     }
-    placeholderPainters[placeholder] = painter
-    IdeGlassPaneUtil.installPainter(editor.contentComponent, painter, editor.project)
+    painter.addPlaceholder(placeholder)
+  }
+
+  @JvmStatic
+  fun removePainter(editor: Editor, placeholder: AnswerPlaceholder) {
+    editorPainters[editor]?.removePlaceholder(placeholder)
   }
 
-  private fun isVisible(shape: Shape, editor: Editor) : Boolean {
-    return editor.contentComponent.visibleRect.contains(shape.bounds)
+  /**
+   * Removes painter of all placeholders of the editor, should be called when the editor is released
+   */
+  @JvmStatic
+  fun removePainters(editor: Editor) {
+    val painter = editorPainters.remove(editor) ?: return
+    if (!ApplicationManager.getApplication().isUnitTestMode) {
+      IdeGlassPaneUtil.find(editor.contentComponent)?.removePainter(painter)
+    }
   }
 
+  @TestOnly
   @JvmStatic
-  fun removePainter(editor: Editor, placeholder: AnswerPlaceholder) {
-    if (placeholderPainters.containsKey(placeholder)) {
-      val painter = placeholderPainters.remove(placeholder)
-      if (!ApplicationManager.getApplication().isUnitTestMode) {
-        IdeGlassPaneUtil.find(editor.contentComponent)?.removePainter(painter)
+  fun getPaintedPlaceholders(): List<AnswerPlaceholder> = editorPainters.values.flatMap { it.placeholders }
+
+  /**
+   * Paints all placeholders of an editor in one pass.
+   * Placeholder shapes are cached until document, editor layout or visible area changes,
+   * and placeholders outside of visible lines are skipped before computing their shapes.
+   */
+  private class EditorPlaceholdersPainter(private val editor: Editor, private val isStudentProject: Boolean) : AbstractPainter() {
+    val placeholders = LinkedHashSet<AnswerPlaceholder>()
+    private val shapes = HashMap<AnswerPlaceholder, CachedShape>()
+    private var layoutStamp: LayoutStamp? = null
+
+    fun addPlaceholder(placeholder: AnswerPlaceholder) {
+      placeholders.add(placeholder)
+      setNeedsRepaint(true)
+    }
+
+    fun removePlaceholder(placeholder: AnswerPlaceholder) {
+      placeholders.remove(placeholder)
+      shapes.remove(placeholder)
+      setNeedsRepaint(true)
+    }
+
+    override fun needsRepaint() = !editor.isDisposed
+
+    override fun executePaint(component: Component?, g: Graphics2D) {
+      val document = editor.document
+      if (placeholders.isEmpty() || document.lineCount == 0) return
+
+      val visibleRect = editor.contentComponent.visibleRect
+      val stamp = LayoutStamp(document.modificationStamp, visibleRect.x, visibleRect.width, editor.lineHeight,
+                              editor.offsetToXY(document.textLength))
+      if (stamp != layoutStamp) {
+        shapes.clear()
+        layoutStamp = stamp
+      }
+
+      val firstVisibleLine = editor.xyToLogicalPosition(Point(0, visibleRect.y)).line
+      val lastVisibleLine = editor.xyToLogicalPosition(Point(0, visibleRect.y + visibleRect.height)).line
+      val visibleStart = document.getLineStartOffset(Math.min(firstVisibleLine, document.lineCount - 1))
+      val visibleEnd = document.getLineEndOffset(Math.min(lastVisibleLine, document.lineCount - 1))
+
+      g.stroke = BasicStroke(JBUI.scale(2f))
+      for (placeholder in placeholders) {
+        if (isStudentProject && !placeholder.isVisible) continue
+        val startOffset = placeholder.offset
+        val endOffset = placeholder.endOffset
+        if (endOffset < visibleStart || startOffset > visibleEnd) continue
+
+        var cachedShape = shapes[placeholder]
+        if (cachedShape == null || cachedShape.startOffset != startOffset || cachedShape.endOffset != endOffset) {
+          val shape = getPlaceholderShape(editor, startOffset, endOffset).getShape()
+          cachedShape = CachedShape(startOffset, endOffset, shape, shape.bounds)
+          shapes[placeholder] = cachedShape
+        }
+        if (!visibleRect.contains(cachedShape.bounds)) continue
+        g.color = placeholder.color
+        g.draw(cachedShape.shape)
       }
     }
   }
+
+  private class CachedShape(val startOffset: Int, val endOffset: Int, val shape: Shape, val bounds: Rectangle)
+
+  private data class LayoutStamp(
+    val modificationStamp: Long,
+    val visibleX: Int,
+    val visibleWidth: Int,
+    val lineHeight: Int,
+    val documentEnd: Point
+  )
 }
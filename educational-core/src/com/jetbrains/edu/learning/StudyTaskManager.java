@@ -3,26 +3,54 @@ package com.jetbrains.edu.learning;
 import com.intellij.ide.fileTemplates.FileTemplate;
 import com.intellij.ide.fileTemplates.FileTemplateManager;
 import com.intellij.ide.fileTemplates.FileTemplateUtil;
+import com.intellij.openapi.actionSystem.ActionManager;
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.actionSystem.CommonDataKeys;
+import com.intellij.openapi.actionSystem.DataContext;
+import com.intellij.openapi.actionSystem.ex.AnActionListener;
 import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.components.*;
 import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.editor.EditorFactory;
+import com.intellij.openapi.editor.event.DocumentEvent;
+import com.intellij.openapi.editor.event.DocumentListener;
+import com.intellij.openapi.fileEditor.FileDocumentManager;
 import com.intellij.openapi.project.DumbAware;
+import com.intellij.openapi.project.ProjectCoreUtil;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.project.ProjectManager;
+import com.intellij.openapi.project.ProjectManagerListener;
 import com.intellij.openapi.startup.StartupManager;
+import com.intellij.openapi.util.Pair;
+import com.intellij.openapi.util.SimpleModificationTracker;
 import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.openapi.vfs.LocalFileSystem;
+import com.intellij.openapi.vfs.VfsUtilCore;
 import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.openapi.vfs.newvfs.BulkFileListener;
+import com.intellij.openapi.vfs.newvfs.events.VFileEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFileMoveEvent;
 import com.intellij.psi.PsiDirectory;
 import com.intellij.psi.PsiManager;
+import com.intellij.util.PathUtil;
 import com.intellij.util.containers.hash.HashMap;
 import com.intellij.util.messages.Topic;
+import com.intellij.util.xmlb.SerializationFilter;
+import com.intellij.util.xmlb.XmlSerializationException;
 import com.intellij.util.xmlb.XmlSerializer;
+import com.intellij.util.xmlb.annotations.AbstractCollection;
 import com.intellij.util.xmlb.annotations.Transient;
 import com.jetbrains.edu.learning.checkio.courseFormat.CheckiOCourse;
 import com.jetbrains.edu.learning.courseFormat.Course;
+import com.jetbrains.edu.learning.courseFormat.Lesson;
 import com.jetbrains.edu.learning.courseFormat.RemoteCourse;
 import com.jetbrains.edu.learning.courseFormat.TaskFile;
 import com.jetbrains.edu.learning.courseFormat.UserTest;
 import com.jetbrains.edu.learning.courseFormat.tasks.Task;
+import com.jetbrains.edu.learning.serialization.LazyTaskList;
 import com.jetbrains.edu.learning.serialization.SerializationUtils;
 import com.jetbrains.edu.learning.serialization.StudyUnrecognizedFormatException;
 import org.jdom.Element;
@@ -30,10 +58,7 @@ import org.jdom.output.XMLOutputter;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
 
 import static com.jetbrains.edu.learning.serialization.SerializationUtils.Xml.CHECKIO_COURSE;
 import static com.jetbrains.edu.learning.serialization.SerializationUtils.Xml.REMOTE_COURSE;
@@ -41,12 +66,29 @@ import static com.jetbrains.edu.learning.serialization.SerializationUtils.Xml.RE
 /**
  * Implementation of class which contains all the information
  * about study in context of current project
+ *
+ * Serializing the whole course is expensive for big courses, so state is split by {@link TaskStateSplitter}:
+ * .idea/study/course.xml contains the course without tasks and every task is stored in a separate file,
+ * which is written by the platform only if the task state is changed.
+ * Only tasks changed since the last save are serialized again: tasks of changed documents and files,
+ * task of the file where an action was performed and tasks passed to {@link #taskChanged(Task)}.
+ * Stored state of other tasks is reused. Before project is closed all loaded tasks are serialized.
+ * Tasks of a lesson are deserialized when its task list is accessed for the first time.
+ *
+ * Course stored in study_project.xml as a whole is moved to the split state on the first save.
  */
 
-@State(name = "StudySettings", storages = @Storage(value = "study_project.xml", roamingType = RoamingType.DISABLED))
-public class StudyTaskManager implements PersistentStateComponent<Element>, DumbAware {
+@State(name = "StudySettings", storages = {
+  @Storage(value = "study", stateSplitter = StudyTaskManager.TaskStateSplitter.class, roamingType = RoamingType.DISABLED),
+  @Storage(value = "study_project.xml", roamingType = RoamingType.DISABLED, deprecated = true)
+})
+public class StudyTaskManager implements PersistentStateComponentWithModificationTracker<Element>, DumbAware {
   public static final Topic<CourseSetListener> COURSE_SET = Topic.create("Edu.courseSet", CourseSetListener.class);
   private static final Logger LOG = Logger.getInstance(StudyTaskManager.class);
+  private static final SerializationFilter SKIP_TASKS_FILTER =
+    (accessor, bean) -> !(bean instanceof Lesson && SerializationUtils.Xml.TASK_LIST.equals(accessor.getName()));
+  private static final String COURSE_STATE_FILE = "course";
+  private static final Map<String, Class<? extends Task>> TASK_CLASSES = collectTaskClasses();
 
   private Course myCourse;
   public int VERSION = EduVersions.XML_FORMAT_VERSION;
@@ -54,9 +96,15 @@ public class StudyTaskManager implements PersistentStateComponent<Element>, Dumb
   public final Map<Task, List<UserTest>> myUserTests = new HashMap<>();
 
   @Transient @Nullable private final Project myProject;
+  @Transient private final SimpleModificationTracker myModificationTracker = new SimpleModificationTracker();
+  @Transient private final Map<Task, StoredTask> myStoredTasks = Collections.synchronizedMap(new IdentityHashMap<>());
+  @Transient private final Set<Task> myChangedTasks = Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<>()));
 
   public StudyTaskManager(@Nullable Project project) {
     myProject = project;
+    if (project != null) {
+      trackModifications(project);
+    }
   }
 
   public StudyTaskManager() {
@@ -65,6 +113,7 @@ public class StudyTaskManager implements PersistentStateComponent<Element>, Dumb
 
   public void setCourse(Course course) {
     myCourse = course;
+    incModificationCount();
     if (myProject != null) {
       myProject.getMessageBus().syncPublisher(COURSE_SET).courseSet(course);
     }
@@ -105,6 +154,114 @@ public class StudyTaskManager implements PersistentStateComponent<Element>, Dumb
     return taskFile.getAnswerPlaceholders().size() > 0 && taskFile.hasFailedPlaceholders();
   }
 
+  /**
+   * Should be called after changes of the course structure which aren't accompanied by file or action events.
+   * Changes of tasks are saved only if they are passed to {@link #taskChanged(Task)}
+   */
+  public void incModificationCount() {
+    myModificationTracker.incModificationCount();
+  }
+
+  /**
+   * Should be called after task changes which aren't accompanied by document, file or action events,
+   * e.g. after task status is updated in background
+   */
+  public void taskChanged(@NotNull Task task) {
+    myChangedTasks.add(task);
+    incModificationCount();
+  }
+
+  @Transient
+  @Override
+  public long getStateModificationCount() {
+    return myModificationTracker.getModificationCount();
+  }
+
+  private void trackModifications(@NotNull Project project) {
+    EditorFactory.getInstance().getEventMulticaster().addDocumentListener(new DocumentListener() {
+      @Override
+      public void documentChanged(DocumentEvent event) {
+        final VirtualFile file = FileDocumentManager.getInstance().getFile(event.getDocument());
+        if (file != null) {
+          fileChanged(project, file);
+        }
+      }
+    }, project);
+    project.getMessageBus().connect(project).subscribe(VirtualFileManager.VFS_CHANGES, new BulkFileListener() {
+      @Override
+      public void after(@NotNull List<? extends VFileEvent> events) {
+        if (myCourse == null) return;
+        for (VFileEvent event : events) {
+          final VirtualFile file = event.getFile();
+          if (file != null && file.isValid()) {
+            fileChanged(project, file);
+          }
+          // task of a deleted or moved file is found by its parent
+          final VirtualFile parent = LocalFileSystem.getInstance().findFileByPath(PathUtil.getParentPath(event.getPath()));
+          if (parent != null) {
+            fileChanged(project, parent);
+          }
+          if (event instanceof VFileMoveEvent) {
+            fileChanged(project, ((VFileMoveEvent)event).getOldParent());
+          }
+        }
+      }
+    });
+    ActionManager.getInstance().addAnActionListener(new AnActionListener() {
+      @Override
+      public void afterActionPerformed(AnAction action, DataContext dataContext, AnActionEvent event) {
+        if (myCourse == null) return;
+        // action may change course structure or the task it's performed in
+        incModificationCount();
+        final VirtualFile file = CommonDataKeys.VIRTUAL_FILE.getData(dataContext);
+        if (file != null && file.isValid()) {
+          fileChanged(project, file);
+        }
+      }
+    }, project);
+    ProjectManager.getInstance().addProjectManagerListener(project, new ProjectManagerListener() {
+      @Override
+      public boolean canCloseProject(Project project) {
+        // changes which weren't tracked mustn't be lost
+        allTasksChanged();
+        return true;
+      }
+    });
+  }
+
+  private void fileChanged(@NotNull Project project, @NotNull VirtualFile file) {
+    final Course course = myCourse;
+    if (course == null || ProjectCoreUtil.isProjectOrWorkspaceFile(file)) {
+      return;
+    }
+    final VirtualFile courseDir = EduUtils.getCourseDir(project);
+    if (!VfsUtilCore.isAncestor(courseDir, file, false)) {
+      return;
+    }
+    Task task = EduUtils.getTaskForFile(project, file);
+    if (task == null && file.isDirectory()) {
+      task = EduUtils.getTask(file, course);
+    }
+    if (task != null) {
+      taskChanged(task);
+    }
+    else {
+      incModificationCount();
+    }
+  }
+
+  private void allTasksChanged() {
+    if (myCourse == null) return;
+    myCourse.visitLessons(lesson -> {
+      final List<Task> tasks = lesson.getTaskList();
+      if (!(tasks instanceof LazyTaskList) || ((LazyTaskList)tasks).isLoaded()) {
+        myChangedTasks.addAll(tasks);
+      }
+      return true;
+    });
+    incModificationCount();
+  }
+
   @Nullable
   @Override
   public Element getState() {
@@ -119,7 +276,7 @@ public class StudyTaskManager implements PersistentStateComponent<Element>, Dumb
   private Element serialize() {
     Element el = new Element("taskManager");
     Element taskManagerElement = new Element(SerializationUtils.Xml.MAIN_ELEMENT);
-    XmlSerializer.serializeInto(this, taskManagerElement);
+    XmlSerializer.serializeInto(this, taskManagerElement, SKIP_TASKS_FILTER);
 
     if (myCourse instanceof RemoteCourse) {
       serializeCourse(taskManagerElement, REMOTE_COURSE, RemoteCourse.class);
@@ -127,14 +284,17 @@ public class StudyTaskManager implements PersistentStateComponent<Element>, Dumb
       serializeCourse(taskManagerElement, CHECKIO_COURSE, CheckiOCourse.class);
     }
 
-    el.addContent(taskManagerElement);
+    final Element courseState = new Element(SerializationUtils.Xml.COURSE_STATE);
+    courseState.addContent(taskManagerElement);
+    courseState.addContent(serializeTasks(el));
+    el.addContent(0, courseState);
     return el;
   }
 
   private void serializeCourse(@NotNull Element taskManagerElement, @NotNull String serializedName, @NotNull Class<? extends Course> courseClass) {
     try {
       final Element course = new Element(serializedName);
-      XmlSerializer.serializeInto(courseClass.cast(myCourse), course);
+      XmlSerializer.serializeInto(courseClass.cast(myCourse), course, SKIP_TASKS_FILTER);
 
       final Element xmlCourse = SerializationUtils.Xml.getChildWithName(taskManagerElement, SerializationUtils.COURSE);
       xmlCourse.removeContent();
@@ -145,9 +305,83 @@ public class StudyTaskManager implements PersistentStateComponent<Element>, Dumb
     }
   }
 
+  /**
+   * Adds state of every task to the state element. Only new and changed tasks are serialized,
+   * stored state is used for the rest.
+   *
+   * @return element with chunk ids of tasks of every lesson in order of {@link Course#visitLessons}
+   */
+  @NotNull
+  private Element serializeTasks(@NotNull Element state) {
+    final Element tasksElement = new Element(SerializationUtils.Xml.TASK_CHUNKS);
+    final Map<Task, StoredTask> storedTasks = new IdentityHashMap<>();
+    myCourse.visitLessons(lesson -> {
+      final List<String> lessonChunkIds = new ArrayList<>();
+      final List<Task> tasks = lesson.getTaskList();
+      final Map<String, Element> notLoadedTasks = tasks instanceof LazyTaskList ? ((LazyTaskList)tasks).getStoredTasks() : null;
+      if (notLoadedTasks != null) {
+        for (Map.Entry<String, Element> notLoadedTask : notLoadedTasks.entrySet()) {
+          state.addContent(createTaskChunk(notLoadedTask.getKey(), notLoadedTask.getValue()));
+          lessonChunkIds.add(notLoadedTask.getKey());
+        }
+      }
+      else {
+        for (Task task : tasks) {
+          final boolean isChanged = myChangedTasks.remove(task);
+          StoredTask storedTask = myStoredTasks.get(task);
+          if (storedTask == null) {
+            storedTask = new StoredTask(newChunkId(), serializeTask(task));
+          }
+          else if (isChanged) {
+            storedTask = new StoredTask(storedTask.chunkId, serializeTask(task));
+          }
+          storedTasks.put(task, storedTask);
+          state.addContent(createTaskChunk(storedTask.chunkId, storedTask.element));
+          lessonChunkIds.add(storedTask.chunkId);
+        }
+      }
+      final Element lessonElement = new Element(SerializationUtils.Xml.LESSON_TASKS);
+      lessonElement.setAttribute(SerializationUtils.Xml.TASKS, StringUtil.join(lessonChunkIds, " "));
+      tasksElement.addContent(lessonElement);
+      return true;
+    });
+    // forget tasks removed from the course
+    synchronized (myStoredTasks) {
+      myStoredTasks.keySet().retainAll(storedTasks.keySet());
+      myStoredTasks.putAll(storedTasks);
+    }
+    myChangedTasks.retainAll(storedTasks.keySet());
+    return tasksElement;
+  }
+
+  @NotNull
+  private static Element serializeTask(@NotNull Task task) {
+    final Element element = new Element(task.getClass().getSimpleName());
+    XmlSerializer.serializeInto(task, element);
+    return element;
+  }
+
+  @NotNull
+  private static Element createTaskChunk(@NotNull String chunkId, @NotNull Element task) {
+    final Element chunk = new Element(SerializationUtils.Xml.TASK_CHUNK);
+    chunk.setAttribute(SerializationUtils.Xml.CHUNK_ID, chunkId);
+    // stored state is kept for the next saves, so it mustn't be attached to the state given to the platform
+    chunk.addContent(task.clone());
+    return chunk;
+  }
+
+  @NotNull
+  private static String newChunkId() {
+    return UUID.randomUUID().toString();
+  }
+
   @Override
   public void loadState(@NotNull Element state) {
     try {
+      final boolean isSplit = state.getChild(SerializationUtils.Xml.COURSE_STATE) != null;
+      if (isSplit) {
+        state = assembleTasks(state);
+      }
       int version = SerializationUtils.Xml.getVersion(state);
       if (version == -1) {
         LOG.error("StudyTaskManager doesn't contain any version:\n" + state.getValue());
@@ -176,15 +410,21 @@ public class StudyTaskManager implements PersistentStateComponent<Element>, Dumb
             state = SerializationUtils.Xml.convertToTenthVersion(myProject, state);
           case 10:
             state = SerializationUtils.Xml.convertToEleventhVersion(myProject, state);
+          case 11:
+            // tasks are split from the course on save
             // uncomment for future versions
-            //case 11:
-            // state = SerializationUtils.Xml.convertToTwelfthVersion(myProject, state);
+            //case 12:
+            // state = SerializationUtils.Xml.convertToThirteenthVersion(myProject, state);
         }
       }
       deserialize(state);
       VERSION = EduVersions.XML_FORMAT_VERSION;
       if (myCourse != null) {
         myCourse.init(null, null, true);
+        if (!isSplit) {
+          // course stored in study_project.xml is split on the next save
+          incModificationCount();
+        }
       }
     }
     catch (StudyUnrecognizedFormatException e) {
@@ -222,12 +462,123 @@ public class StudyTaskManager implements PersistentStateComponent<Element>, Dumb
     if (taskManagerElement == null) {
       throw new StudyUnrecognizedFormatException();
     }
+    final List<Map<String, Element>> lessonTasks = detachTasks(taskManagerElement);
     XmlSerializer.deserializeInto(this, taskManagerElement);
     final Element xmlCourse = SerializationUtils.Xml.getChildWithName(taskManagerElement, SerializationUtils.COURSE);
 
     if (!tryDeserializeCourse(xmlCourse, REMOTE_COURSE, new RemoteCourse())) {
       tryDeserializeCourse(xmlCourse, CHECKIO_COURSE, new CheckiOCourse());
     }
+    if (myCourse != null) {
+      final Iterator<Map<String, Element>> tasksIterator = lessonTasks.iterator();
+      myCourse.visitLessons(lesson -> {
+        final Map<String, Element> tasks = tasksIterator.hasNext() ? tasksIterator.next() : Collections.emptyMap();
+        lesson.updateTaskList(new LazyTaskList(lesson, tasks, this::deserializeTask));
+        return true;
+      });
+    }
+  }
+
+  /**
+   * Puts stored tasks back to task lists of their lessons, so the state has the same structure
+   * as state stored in study_project.xml and format converters are applied to the tasks
+   */
+  @NotNull
+  static Element assembleTasks(@NotNull Element state) throws StudyUnrecognizedFormatException {
+    final Element courseState = state.getChild(SerializationUtils.Xml.COURSE_STATE).clone();
+    final Element taskManagerElement = courseState.getChild(SerializationUtils.Xml.MAIN_ELEMENT);
+    final Element tasksElement = courseState.getChild(SerializationUtils.Xml.TASK_CHUNKS);
+    if (taskManagerElement == null || tasksElement == null) {
+      throw new StudyUnrecognizedFormatException();
+    }
+    final Map<String, Element> tasks = new HashMap<>();
+    for (Element chunk : state.getChildren(SerializationUtils.Xml.TASK_CHUNK)) {
+      final List<Element> children = chunk.getChildren();
+      if (!children.isEmpty()) {
+        tasks.put(chunk.getAttributeValue(SerializationUtils.Xml.CHUNK_ID), children.get(0));
+      }
+    }
+    final Iterator<Element> lessonTasks = tasksElement.getChildren(SerializationUtils.Xml.LESSON_TASKS).iterator();
+    int missingTasks = 0;
+    for (Element lesson : SerializationUtils.Xml.getLessonElements(taskManagerElement)) {
+      final Element list = new Element(SerializationUtils.Xml.LIST);
+      final String chunkIds = lessonTasks.hasNext() ? lessonTasks.next().getAttributeValue(SerializationUtils.Xml.TASKS, "") : "";
+      for (String chunkId : StringUtil.split(chunkIds, " ")) {
+        final Element task = tasks.get(chunkId);
+        if (task == null) {
+          missingTasks++;
+          continue;
+        }
+        list.addContent(task.clone().setAttribute(SerializationUtils.Xml.CHUNK_ID, chunkId));
+      }
+      final Element taskList = new Element(SerializationUtils.Xml.OPTION).setAttribute(SerializationUtils.Xml.NAME, SerializationUtils.Xml.TASK_LIST);
+      lesson.addContent(taskList.addContent(list));
+    }
+    if (missingTasks > 0) {
+      LOG.warn("States of " + missingTasks + " tasks aren't found");
+    }
+    final Element result = new Element(state.getName());
+    result.addContent(taskManagerElement.detach());
+    return result;
+  }
+
+  /**
+   * Removes tasks from lessons, they are deserialized when the task list of the lesson is accessed
+   *
+   * @return serialized tasks by chunk ids for every lesson in order of {@link Course#visitLessons}
+   */
+  @NotNull
+  private static List<Map<String, Element>> detachTasks(@NotNull Element taskManagerElement) throws StudyUnrecognizedFormatException {
+    final List<Map<String, Element>> lessonTasks = new ArrayList<>();
+    for (Element lesson : SerializationUtils.Xml.getLessonElements(taskManagerElement)) {
+      final Map<String, Element> tasks = new LinkedHashMap<>();
+      final Element taskList = SerializationUtils.Xml.getChildWithName(lesson, SerializationUtils.Xml.TASK_LIST, true);
+      if (taskList != null) {
+        for (Element task : SerializationUtils.Xml.getChildList(lesson, SerializationUtils.Xml.TASK_LIST)) {
+          // tasks stored in study_project.xml don't have chunk ids
+          final String chunkId = task.getAttributeValue(SerializationUtils.Xml.CHUNK_ID);
+          task.removeAttribute(SerializationUtils.Xml.CHUNK_ID);
+          tasks.put(chunkId != null ? chunkId : newChunkId(), task);
+        }
+        lesson.removeContent(taskList);
+      }
+      lessonTasks.add(tasks);
+    }
+    return lessonTasks;
+  }
+
+  @Nullable
+  private Task deserializeTask(@NotNull String chunkId, @NotNull Element element) {
+    final Class<? extends Task> taskClass = TASK_CLASSES.get(element.getName());
+    if (taskClass == null) {
+      LOG.warn("Unknown task type " + element.getName());
+      return null;
+    }
+    try {
+      final Task task = XmlSerializer.deserialize(element, taskClass);
+      myStoredTasks.put(task, new StoredTask(chunkId, element));
+      return task;
+    }
+    catch (XmlSerializationException e) {
+      LOG.warn("Failed to deserialize task " + chunkId, e);
+      return null;
+    }
+  }
+
+  @NotNull
+  private static Map<String, Class<? extends Task>> collectTaskClasses() {
+    final Map<String, Class<? extends Task>> taskClasses = new HashMap<>();
+    try {
+      // task types are the same as in task list of a lesson
+      final AbstractCollection annotation = Lesson.class.getField(SerializationUtils.Xml.TASK_LIST).getAnnotation(AbstractCollection.class);
+      for (Class<?> elementType : annotation.elementTypes()) {
+        taskClasses.put(elementType.getSimpleName(), elementType.asSubclass(Task.class));
+      }
+    }
+    catch (NoSuchFieldException e) {
+      LOG.error(e);
+    }
+    return taskClasses;
   }
 
   private <T extends Course> boolean tryDeserializeCourse(@NotNull Element xmlCourse, @NotNull String serializedName, @NotNull T courseBean) {
@@ -243,4 +594,31 @@ public class StudyTaskManager implements PersistentStateComponent<Element>, Dumb
   public static StudyTaskManager getInstance(@NotNull final Project project) {
     return ServiceManager.getService(project, StudyTaskManager.class);
   }
+
+  private static class StoredTask {
+    final String chunkId;
+    final Element element;
+
+    StoredTask(@NotNull String chunkId, @NotNull Element element) {
+      this.chunkId = chunkId;
+      this.element = element;
+    }
+  }
+
+  /**
+   * Stores the course without tasks in course.xml and every task in a file named by its chunk id
+   */
+  public static class TaskStateSplitter extends StateSplitterEx {
+    @Override
+    public List<Pair<Element, String>> splitState(@NotNull Element state) {
+      final List<Pair<Element, String>> result = new ArrayList<>();
+      for (Element child : state.getChildren()) {
+        final String name = SerializationUtils.Xml.TASK_CHUNK.equals(child.getName())
+                            ? child.getAttributeValue(SerializationUtils.Xml.CHUNK_ID)
+                            : COURSE_STATE_FILE;
+        result.add(Pair.create(child, name + ".xml"));
+      }
+      return result;
+    }
+  }
 }
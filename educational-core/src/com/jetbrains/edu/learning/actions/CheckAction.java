@@ -22,6 +22,7 @@ import com.jetbrains.edu.coursecreator.CCUtils;
 import com.jetbrains.edu.learning.EduConfigurator;
 import com.jetbrains.edu.learning.EduConfiguratorManager;
 import com.jetbrains.edu.learning.EduUtils;
+import com.jetbrains.edu.learning.StudyTaskManager;
 import com.jetbrains.edu.learning.checker.*;
 import com.jetbrains.edu.learning.courseFormat.CheckStatus;
 import com.jetbrains.edu.learning.courseFormat.RemoteCourse;
@@ -184,16 +185,38 @@ public class CheckAction extends DumbAwareActionWithShortcut {
         myResult = new CheckResult(CheckStatus.Unchecked, "Check for " + myTask.getTaskType() + "task isn't available");
       }
       else {
-        myResult = isRemote ? checkRemoteCourse() : myChecker.check();
+        myResult = isRemote ? checkRemoteCourse(indicator) : checkLocally(indicator);
       }
     }
 
-    private CheckResult checkRemoteCourse() {
+    private CheckResult checkRemoteCourse(@NotNull ProgressIndicator indicator) {
       CheckResult remoteCheckResult = myChecker.checkOnRemote();
       if (remoteCheckResult != CheckResult.USE_LOCAL_CHECK) {
         return remoteCheckResult;
       }
-      return myChecker.check();
+      return checkLocally(indicator);
+    }
+
+    private CheckResult checkLocally(@NotNull ProgressIndicator indicator) {
+      // theory tasks are "checked" just to mark them as read, and course creators may change things outside task files
+      if (myTask instanceof TheoryTask || CCUtils.isCourseCreator(myProject)) {
+        return myChecker.check();
+      }
+      CheckResultCache cache = CheckResultCache.getInstance(myProject);
+      String hash = cache.computeHash(myTask, myChecker.getClass().getName());
+      if (hash == null) {
+        return myChecker.check();
+      }
+      CheckResult cachedResult = cache.getResult(myTask, hash);
+      if (cachedResult != null) {
+        return cachedResult;
+      }
+      CheckResult result = myChecker.check();
+      // output of a cancelled check is incomplete, so its result is never stored
+      if (!indicator.isCanceled()) {
+        cache.putResult(myTask, hash, result);
+      }
+      return result;
     }
 
     @Override
@@ -201,6 +224,7 @@ public class CheckAction extends DumbAwareActionWithShortcut {
       String message = myResult.getMessage();
       CheckStatus status = myResult.getStatus();
       myTask.setStatus(status);
+      StudyTaskManager.getInstance(myProject).taskChanged(myTask);
       switch (status) {
         case Failed:
           myChecker.onTaskFailed(message);
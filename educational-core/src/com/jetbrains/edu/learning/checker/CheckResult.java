@@ -10,10 +10,24 @@ public class CheckResult {
 
   private CheckStatus myStatus;
   private String myMessage;
+  private boolean myIsTestsFinished;
 
   public CheckResult(CheckStatus status, String message) {
+    this(status, message, false);
+  }
+
+  /**
+   * @param isTestsFinished true if the result is reported by tests which ran to completion,
+   *                        e.g. not by a killed or failed to start process
+   */
+  public CheckResult(CheckStatus status, String message, boolean isTestsFinished) {
     myStatus = status;
     myMessage = message;
+    myIsTestsFinished = isTestsFinished;
+  }
+
+  public static CheckResult fromTestsOutput(TestsOutputParser.TestsOutput output) {
+    return new CheckResult(output.isSuccess() ? CheckStatus.Solved : CheckStatus.Failed, output.getMessage(), output.isFinished());
   }
 
   public CheckStatus getStatus() {
@@ -23,4 +37,8 @@ public class CheckResult {
   public String getMessage() {
     return myMessage;
   }
+
+  public boolean isTestsFinished() {
+    return myIsTestsFinished;
+  }
 }
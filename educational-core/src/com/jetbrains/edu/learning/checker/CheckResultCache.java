@@ -0,0 +1,291 @@
+package com.jetbrains.edu.learning.checker;
+
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.components.PersistentStateComponent;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.components.State;
+import com.intellij.openapi.components.Storage;
+import com.intellij.openapi.components.StoragePathMacros;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.module.Module;
+import com.intellij.openapi.module.ModuleManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.projectRoots.Sdk;
+import com.intellij.openapi.roots.ModuleRootManager;
+import com.intellij.openapi.roots.ProjectRootManager;
+import com.intellij.openapi.util.Pair;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.openapi.vfs.VfsUtilCore;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.util.xmlb.annotations.MapAnnotation;
+import com.intellij.util.xmlb.annotations.Tag;
+import com.jetbrains.edu.learning.EduNames;
+import com.jetbrains.edu.learning.EduUtils;
+import com.jetbrains.edu.learning.courseFormat.CheckStatus;
+import com.jetbrains.edu.learning.courseFormat.Lesson;
+import com.jetbrains.edu.learning.courseGeneration.GeneratorUtils;
+import com.jetbrains.edu.learning.courseFormat.tasks.Task;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+import static com.jetbrains.edu.learning.EduVersions.pluginVersion;
+
+/**
+ * Keeps the last check result of each task together with a hash of everything the result depends on:
+ * task files, test files and additional files of the task, files shared by all tasks of the course,
+ * SDKs of the project and the checker. If task is checked again without changes, the stored result is
+ * returned instead of running the checker. Any change of these inputs changes the hash, so the stored result is dropped.
+ *
+ * Hash is computed before the check, so changes made while the checker runs aren't attributed to its result.
+ * Only results of tests which ran to completion are stored, see {@link CheckResult#isTestsFinished()}.
+ */
+@State(name = "EduCheckResultCache", storages = @Storage(StoragePathMacros.WORKSPACE_FILE))
+public class CheckResultCache implements PersistentStateComponent<CheckResultCache.State> {
+  private static final Logger LOG = Logger.getInstance(CheckResultCache.class);
+
+  private final Project myProject;
+  private State myState = new State();
+
+  public CheckResultCache(@NotNull Project project) {
+    myProject = project;
+  }
+
+  public static CheckResultCache getInstance(@NotNull Project project) {
+    return ServiceManager.getService(project, CheckResultCache.class);
+  }
+
+  /**
+   * @param hash hash of the current task state computed by {@link #computeHash}
+   */
+  @Nullable
+  public CheckResult getResult(@NotNull Task task, @NotNull String hash) {
+    String key = getKey(task);
+    if (key == null) {
+      return null;
+    }
+    CachedResult cached;
+    synchronized (this) {
+      cached = myState.results.get(key);
+    }
+    if (cached == null || !cached.hash.equals(hash)) {
+      return null;
+    }
+    return new CheckResult(cached.status, cached.message, true);
+  }
+
+  /**
+   * @param hash hash of the task state computed by {@link #computeHash} before the check
+   */
+  public void putResult(@NotNull Task task, @NotNull String hash, @NotNull CheckResult result) {
+    String key = getKey(task);
+    if (key == null) {
+      return;
+    }
+    if (result.getStatus() == CheckStatus.Unchecked || !result.isTestsFinished()) {
+      // checker wasn't able to check task, e.g. because of connection problems or time limit, so it should be checked again
+      removeResult(task);
+      return;
+    }
+    synchronized (this) {
+      myState.results.put(key, new CachedResult(hash, result.getStatus(), result.getMessage()));
+    }
+  }
+
+  public synchronized void removeResult(@NotNull Task task) {
+    String key = getKey(task);
+    if (key != null) {
+      myState.results.remove(key);
+    }
+  }
+
+  @Nullable
+  private String getKey(@NotNull Task task) {
+    VirtualFile taskDir = task.getTaskDir(myProject);
+    VirtualFile courseDir = EduUtils.getCourseDir(myProject);
+    if (taskDir == null) {
+      return null;
+    }
+    return VfsUtilCore.getRelativePath(taskDir, courseDir);
+  }
+
+  /**
+   * @param checkerId identity of the checker which checks the task, e.g. its class name
+   * @return hash of files of the task, shared course files, SDKs and checker or null if some file can't be read
+   */
+  @Nullable
+  public String computeHash(@NotNull Task task, @NotNull String checkerId) {
+    try {
+      // VFS and project model are read under read action, collected contents are hashed without it
+      List<Pair<String, byte[]>> files = ReadAction.compute(() -> collectFiles(task));
+      if (files == null) {
+        return null;
+      }
+      List<String> sdks = ReadAction.compute(this::getSdks);
+
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      update(digest, checkerId);
+      update(digest, StringUtil.notNullize(pluginVersion(EduNames.PLUGIN_ID)));
+      for (String sdk : sdks) {
+        update(digest, sdk);
+      }
+      for (Pair<String, byte[]> file : files) {
+        update(digest, file.first);
+        digest.update(file.second);
+        digest.update((byte)0);
+      }
+      StringBuilder hash = new StringBuilder();
+      for (byte b : digest.digest()) {
+        hash.append(String.format("%02x", b));
+      }
+      return hash.toString();
+    }
+    catch (IOException | NoSuchAlgorithmException e) {
+      LOG.warn(e);
+      return null;
+    }
+  }
+
+  /**
+   * @return paths relative to course dir and contents of files the check result depends on, sorted by path
+   */
+  @Nullable
+  private List<Pair<String, byte[]>> collectFiles(@NotNull Task task) throws IOException {
+    VirtualFile taskDir = task.getTaskDir(myProject);
+    if (taskDir == null) {
+      return null;
+    }
+    VirtualFile courseDir = EduUtils.getCourseDir(myProject);
+    List<VirtualFile> files = new ArrayList<>();
+    VfsUtilCore.iterateChildrenRecursively(taskDir, null, file -> {
+      if (!file.isDirectory() && isCheckedFile(task, taskDir, file)) {
+        files.add(file);
+      }
+      return true;
+    });
+    files.addAll(getSharedFiles(task, courseDir, taskDir));
+    files.sort((file1, file2) -> FileUtil.comparePaths(file1.getPath(), file2.getPath()));
+
+    List<Pair<String, byte[]>> contents = new ArrayList<>();
+    for (VirtualFile file : files) {
+      contents.add(Pair.create(String.valueOf(VfsUtilCore.getRelativePath(file, courseDir)), file.contentsToByteArray()));
+    }
+    return contents;
+  }
+
+  private static void update(@NotNull MessageDigest digest, @NotNull String value) {
+    digest.update(value.getBytes(StandardCharsets.UTF_8));
+    digest.update((byte)0);
+  }
+
+  /**
+   * Files outside of task directory tests may depend on: files in course root, e.g. test_helper.py or build scripts,
+   * util sources and files of the additional materials lesson
+   */
+  @NotNull
+  private static List<VirtualFile> getSharedFiles(@NotNull Task task, @NotNull VirtualFile courseDir, @NotNull VirtualFile taskDir) {
+    Set<VirtualFile> files = new HashSet<>();
+    for (VirtualFile child : courseDir.getChildren()) {
+      if (!child.isDirectory() && !child.getName().startsWith(".")) {
+        files.add(child);
+      }
+    }
+    VirtualFile utilDir = courseDir.findChild(EduNames.UTIL);
+    if (utilDir != null) {
+      VfsUtilCore.iterateChildrenRecursively(utilDir, null, file -> {
+        if (!file.isDirectory()) {
+          files.add(file);
+        }
+        return true;
+      });
+    }
+    for (Lesson lesson : task.getLesson().getCourse().getLessons(true)) {
+      if (!lesson.isAdditional()) {
+        continue;
+      }
+      for (String path : GeneratorUtils.additionalFilesToCreate(lesson).keySet()) {
+        VirtualFile file = courseDir.findFileByRelativePath(path);
+        if (file != null && !file.isDirectory()) {
+          files.add(file);
+        }
+      }
+    }
+    files.removeIf(file -> VfsUtilCore.isAncestor(taskDir, file, false));
+    return new ArrayList<>(files);
+  }
+
+  /**
+   * @return description of project and module SDKs, checkers run tests with one of them
+   */
+  @NotNull
+  private List<String> getSdks() {
+    Set<String> sdks = new TreeSet<>();
+    Sdk projectSdk = ProjectRootManager.getInstance(myProject).getProjectSdk();
+    if (projectSdk != null) {
+      sdks.add(describe(projectSdk));
+    }
+    for (Module module : ModuleManager.getInstance(myProject).getModules()) {
+      Sdk sdk = ModuleRootManager.getInstance(module).getSdk();
+      if (sdk != null) {
+        sdks.add(describe(sdk));
+      }
+    }
+    return new ArrayList<>(sdks);
+  }
+
+  @NotNull
+  private static String describe(@NotNull Sdk sdk) {
+    return sdk.getSdkType().getName() + ":" + sdk.getHomePath() + ":" + sdk.getVersionString();
+  }
+
+  private boolean isCheckedFile(@NotNull Task task, @NotNull VirtualFile taskDir, @NotNull VirtualFile file) {
+    String relativePath = VfsUtilCore.getRelativePath(file, taskDir);
+    if (relativePath == null) {
+      return false;
+    }
+    return task.getTaskFile(relativePath) != null
+           || task.getAdditionalFiles().containsKey(relativePath)
+           || task.getTestsText().containsKey(relativePath)
+           || EduUtils.isTestsFile(myProject, file);
+  }
+
+  @Nullable
+  @Override
+  public synchronized State getState() {
+    return myState;
+  }
+
+  @Override
+  public synchronized void loadState(@NotNull State state) {
+    myState = state;
+  }
+
+  public static class State {
+    @Tag("results")
+    @MapAnnotation(surroundWithTag = false, entryTagName = "task", keyAttributeName = "path")
+    public Map<String, CachedResult> results = new HashMap<>();
+  }
+
+  @Tag("result")
+  public static class CachedResult {
+    public String hash = "";
+    public CheckStatus status = CheckStatus.Unchecked;
+    public String message = "";
+
+    @SuppressWarnings("unused") // used for deserialization
+    public CachedResult() {
+    }
+
+    public CachedResult(@NotNull String hash, @NotNull CheckStatus status, @Nullable String message) {
+      this.hash = hash;
+      this.status = status;
+      this.message = message == null ? "" : message;
+    }
+  }
+}
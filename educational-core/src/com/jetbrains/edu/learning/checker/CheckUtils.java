@@ -3,7 +3,7 @@ package com.jetbrains.edu.learning.checker;
 import com.intellij.execution.RunnerAndConfigurationSettings;
 import com.intellij.execution.actions.ConfigurationContext;
 import com.intellij.execution.impl.ConsoleViewImpl;
-import com.intellij.execution.process.CapturingProcessHandler;
+import com.intellij.execution.process.OSProcessHandler;
 import com.intellij.execution.process.ProcessOutput;
 import com.intellij.execution.ui.ConsoleViewContentType;
 import com.intellij.ide.DataManager;
@@ -13,6 +13,7 @@ import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.editor.Editor;
 import com.intellij.openapi.fileEditor.FileEditor;
 import com.intellij.openapi.fileEditor.FileEditorManager;
+import com.intellij.openapi.progress.ProgressIndicator;
 import com.intellij.openapi.progress.ProgressManager;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.ui.popup.Balloon;
@@ -35,6 +36,7 @@ import com.jetbrains.edu.learning.editor.EduEditor;
 import com.jetbrains.edu.learning.navigation.NavigationUtils;
 import com.jetbrains.edu.learning.ui.OutputToolWindowFactory;
 import com.jetbrains.edu.learning.ui.OutputToolWindowFactoryKt;
+import kotlin.Unit;
 import kotlin.collections.CollectionsKt;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -43,6 +45,7 @@ import javax.swing.*;
 import java.awt.*;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class CheckUtils {
   public static final String STUDY_PREFIX = "#educational_plugin";
@@ -51,6 +54,7 @@ public class CheckUtils {
   public static final String NOT_RUNNABLE_MESSAGE = "Solution isn't runnable";
   public static final String LOGIN_NEEDED_MESSAGE = "Please, login to Stepik to check the task";
   public static final String FAILED_TO_CHECK_MESSAGE = "Failed to launch checking";
+  public static final String CHECK_CANCELLED_MESSAGE = "Checking was cancelled";
 
   private static final Logger LOG = Logger.getInstance(CheckUtils.class);
 
@@ -159,11 +163,26 @@ public class CheckUtils {
   public static TestsOutputParser.TestsOutput getTestOutput(@NotNull Process testProcess,
                                                             @NotNull String commandLine,
                                                             boolean isAdaptive) {
-    final CapturingProcessHandler handler = new CapturingProcessHandler(testProcess, null, commandLine);
-    final ProcessOutput output = ProgressManager.getInstance().hasProgressIndicator() ? handler
-      .runProcessWithProgressIndicator(ProgressManager.getInstance().getProgressIndicator()) :
-                                 handler.runProcess();
-    final TestsOutputParser.TestsOutput testsOutput = TestsOutputParser.getTestsOutput(output, isAdaptive);
+    final OSProcessHandler handler = new OSProcessHandler(testProcess, commandLine, null);
+    final ProgressIndicator indicator = ProgressManager.getInstance().getProgressIndicator();
+    final AtomicInteger passedTests = new AtomicInteger();
+    final TestsOutputParser.TestsOutputListener listener = new TestsOutputParser.TestsOutputListener(isAdaptive, event -> {
+      if (indicator != null && event instanceof TestsOutputParser.TestEvent.Passed) {
+        indicator.setText2("Tests passed: " + passedTests.incrementAndGet());
+      }
+      return Unit.INSTANCE;
+    });
+    handler.addProcessListener(listener);
+    final StreamingOutputCollector collector = new StreamingOutputCollector();
+    final ProcessOutput output = collector.run(handler);
+    final String limitMessage = collector.getLimitMessage();
+    if (limitMessage != null) {
+      return new TestsOutputParser.TestsOutput(false, limitMessage);
+    }
+    if (output.isCancelled()) {
+      return new TestsOutputParser.TestsOutput(false, CHECK_CANCELLED_MESSAGE);
+    }
+    final TestsOutputParser.TestsOutput testsOutput = TestsOutputParser.getTestsOutput(output, listener);
     String stderr = output.getStderr();
     if (!stderr.isEmpty() && output.getStdout().isEmpty()) {
       LOG.info("#educational " + stderr);
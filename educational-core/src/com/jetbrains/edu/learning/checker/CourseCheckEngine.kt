@@ -0,0 +1,123 @@
+package com.jetbrains.edu.learning.checker
+
+import com.intellij.concurrency.SensitiveProgressWrapper
+import com.intellij.openapi.diagnostic.Logger
+import com.intellij.openapi.progress.ProcessCanceledException
+import com.intellij.openapi.progress.ProgressIndicator
+import com.intellij.openapi.progress.ProgressManager
+import com.intellij.openapi.project.Project
+import com.intellij.util.concurrency.AppExecutorUtil
+import com.jetbrains.edu.learning.EduConfiguratorManager
+import com.jetbrains.edu.learning.courseFormat.CheckStatus
+import com.jetbrains.edu.learning.courseFormat.Course
+import com.jetbrains.edu.learning.courseFormat.tasks.Task
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.Future
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.TimeoutException
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * Checks all tasks of a course at once, running up to [parallelism] task checkers simultaneously.
+ *
+ * Each task is checked by its own checker instance in its own task directory, so checks don't share any state.
+ * Results aren't saved to tasks and no popups are shown, the caller gets a report for all tasks instead.
+ */
+class CourseCheckEngine(private val project: Project, private val parallelism: Int) {
+
+  class TaskCheckReport(val task: Task, val result: CheckResult, val durationMs: Long)
+
+  class CourseCheckReport(val tasks: List<TaskCheckReport>, val durationMs: Long) {
+    fun count(status: CheckStatus): Int = tasks.count { it.result.status == status }
+
+    override fun toString(): String {
+      val report = StringBuilder()
+      report.append("Checked ${tasks.size} tasks in $durationMs ms: ")
+      report.append("${count(CheckStatus.Solved)} solved, ${count(CheckStatus.Failed)} failed, ")
+      report.append("${count(CheckStatus.Unchecked)} unchecked\n\n")
+      for (taskReport in tasks.sortedByDescending { it.durationMs }) {
+        val message = taskReport.result.message?.lineSequence()?.firstOrNull().orEmpty()
+        report.append("${taskReport.result.status}\t${taskReport.durationMs} ms\t${taskReport.task.path()}\t$message\n")
+      }
+      return report.toString()
+    }
+
+    private fun Task.path(): String {
+      val lesson = lesson
+      val section = lesson.section
+      return listOfNotNull(section?.name, lesson.name, name).joinToString("/")
+    }
+  }
+
+  fun checkCourse(course: Course, indicator: ProgressIndicator): CourseCheckReport {
+    val tasks = mutableListOf<Task>()
+    course.visitLessons { lesson ->
+      tasks += lesson.taskList
+      true
+    }
+    return checkTasks(tasks, indicator)
+  }
+
+  fun checkTasks(tasks: List<Task>, indicator: ProgressIndicator): CourseCheckReport {
+    val startTime = System.currentTimeMillis()
+    val executor = AppExecutorUtil.createBoundedApplicationPoolExecutor("Course Check", parallelism)
+    val checkedCount = AtomicInteger()
+    val futures = tasks.map { task ->
+      executor.submit<TaskCheckReport> {
+        // checkers look for current indicator to report progress and to be cancelled,
+        // wrapper passes cancellation without letting checkers overwrite text of the main indicator
+        val report = ProgressManager.getInstance().runProcess<TaskCheckReport>({ checkTask(task) }, SensitiveProgressWrapper(indicator))
+        indicator.fraction = checkedCount.incrementAndGet().toDouble() / tasks.size
+        indicator.text = "Checked ${checkedCount.get()} of ${tasks.size} tasks"
+        report
+      }
+    }
+
+    try {
+      val reports = futures.map { waitFor(it, indicator) }
+      return CourseCheckReport(reports, System.currentTimeMillis() - startTime)
+    }
+    finally {
+      futures.forEach { it.cancel(true) }
+    }
+  }
+
+  private fun checkTask(task: Task): TaskCheckReport {
+    val startTime = System.currentTimeMillis()
+    val configurator = EduConfiguratorManager.forLanguage(task.lesson.course.languageById)
+    val checker = configurator?.taskCheckerProvider?.getTaskChecker(task, project)
+    val result = try {
+      checker?.check() ?: CheckResult(CheckStatus.Unchecked, "Check for ${task.taskType} task isn't available")
+    }
+    catch (e: ProcessCanceledException) {
+      throw e
+    }
+    catch (e: Exception) {
+      LOG.warn("Failed to check task ${task.name}", e)
+      CheckResult.FAILED_TO_CHECK
+    }
+    finally {
+      checker?.clearState()
+    }
+    return TaskCheckReport(task, result, System.currentTimeMillis() - startTime)
+  }
+
+  private fun <T> waitFor(future: Future<T>, indicator: ProgressIndicator): T {
+    while (true) {
+      try {
+        return future.get(WAIT_TIMEOUT_MS, TimeUnit.MILLISECONDS)
+      }
+      catch (e: TimeoutException) {
+        indicator.checkCanceled()
+      }
+      catch (e: ExecutionException) {
+        throw e.cause ?: e
+      }
+    }
+  }
+
+  companion object {
+    private val LOG = Logger.getInstance(CourseCheckEngine::class.java)
+    private const val WAIT_TIMEOUT_MS = 100L
+  }
+}
@@ -0,0 +1,238 @@
+package com.jetbrains.edu.learning.checker
+
+import com.intellij.execution.process.*
+import com.intellij.openapi.diagnostic.Logger
+import com.intellij.openapi.progress.ProgressManager
+import com.intellij.openapi.util.Key
+import com.intellij.openapi.util.io.FileUtil
+import com.intellij.openapi.util.text.StringUtil
+import com.jetbrains.edu.learning.checker.CheckUtils.STUDY_PREFIX
+import java.io.File
+import java.io.IOException
+import java.io.Writer
+import java.util.*
+
+/**
+ * Collects output of a check process without keeping all of it in memory, unlike [CapturingProcessHandler].
+ *
+ * Lines with [STUDY_PREFIX] are extracted while the process is running, other lines are kept only as a bounded
+ * head and tail of the output, so [ProcessOutput] built by [run] contains everything checkers parse.
+ * The whole transcript is written to a temp file which is kept if some output didn't fit into memory.
+ * The process is killed if it prints more than [outputLimit] chars or runs longer than [timeLimitMs].
+ */
+class StreamingOutputCollector @JvmOverloads constructor(
+  private val outputLimit: Long = OUTPUT_LIMIT,
+  private val timeLimitMs: Long = TIME_LIMIT_MS
+) : ProcessAdapter() {
+  private val stdout = BoundedOutput(true)
+  private val stderr = BoundedOutput(false)
+  private var transcript: Writer? = null
+  private var transcriptFile: File? = null
+  private var outputLength = 0L
+
+  @Volatile
+  var isOutputLimitExceeded = false
+    private set
+  @Volatile
+  var isTimeLimitExceeded = false
+    private set
+
+  /**
+   * Starts the process and waits for it to terminate.
+   * The process is destroyed if current progress indicator is cancelled or the limits are exceeded.
+   */
+  fun run(handler: ProcessHandler): ProcessOutput {
+    createTranscript()
+    handler.addProcessListener(this)
+    handler.startNotify()
+    val indicator = ProgressManager.getInstance().progressIndicator
+    val deadline = System.currentTimeMillis() + timeLimitMs
+    var isCancelled = false
+    while (!handler.waitFor(WAIT_TIMEOUT_MS)) {
+      if (handler.isProcessTerminating) continue
+      if (indicator != null && indicator.isCanceled) {
+        isCancelled = true
+        handler.destroyProcess()
+      }
+      else if (System.currentTimeMillis() > deadline) {
+        isTimeLimitExceeded = true
+        handler.destroyProcess()
+      }
+    }
+
+    return synchronized(this) {
+      ProcessOutput(handler.exitCode ?: -1).apply {
+        appendStdout(stdout.getText())
+        appendStderr(stderr.getText())
+        if (isCancelled) setCancelled()
+        if (isTimeLimitExceeded) setTimeout()
+      }
+    }
+  }
+
+  /**
+   * @return message describing why the process was killed or null if it finished within limits
+   */
+  fun getLimitMessage(): String? {
+    val reason = when {
+      isOutputLimitExceeded -> "Output limit exceeded: more than ${StringUtil.formatFileSize(outputLimit)} printed"
+      isTimeLimitExceeded -> "Time limit exceeded: process didn't finish in ${StringUtil.formatDuration(timeLimitMs)}"
+      else -> return null
+    }
+    val file = transcriptFile ?: return reason
+    return "$reason\nFull output: ${file.path}"
+  }
+
+  @Synchronized
+  private fun createTranscript() {
+    try {
+      val file = FileUtil.createTempFile("edu-check-output", ".log", true)
+      transcriptFile = file
+      transcript = file.bufferedWriter()
+    }
+    catch (e: IOException) {
+      LOG.warn("Failed to create file for check output", e)
+    }
+  }
+
+  @Synchronized
+  override fun onTextAvailable(event: ProcessEvent, outputType: Key<*>) {
+    if (isOutputLimitExceeded) return
+    val text = event.text
+    outputLength += text.length
+    if (outputLength > outputLimit) {
+      isOutputLimitExceeded = true
+      event.processHandler.destroyProcess()
+      return
+    }
+    writeToTranscript(text)
+    when (outputType) {
+      ProcessOutputTypes.STDOUT -> stdout.append(text)
+      ProcessOutputTypes.STDERR -> stderr.append(text)
+    }
+  }
+
+  @Synchronized
+  override fun processTerminated(event: ProcessEvent) {
+    stdout.flush()
+    stderr.flush()
+    try {
+      transcript?.close()
+    }
+    catch (e: IOException) {
+      LOG.warn(e)
+    }
+    transcript = null
+    val isTranscriptNeeded = isOutputLimitExceeded || isTimeLimitExceeded || stdout.isTruncated || stderr.isTruncated
+    if (!isTranscriptNeeded) {
+      transcriptFile?.let { FileUtil.delete(it) }
+      transcriptFile = null
+    }
+  }
+
+  private fun writeToTranscript(text: String) {
+    val writer = transcript ?: return
+    try {
+      writer.write(text)
+    }
+    catch (e: IOException) {
+      LOG.warn("Failed to write check output", e)
+      transcript = null
+    }
+  }
+
+  private class BoundedOutput(private val extractStudyLines: Boolean) {
+    private val lineBuffer = StringBuilder()
+    private val studyLines = StringBuilder()
+    private val head = StringBuilder()
+    private val tail = ArrayDeque<String>()
+    private var tailLength = 0
+    private var isLastLineSeparator = false
+    var isTruncated = false
+      private set
+
+    fun append(text: String) {
+      var start = 0
+      while (start < text.length) {
+        val lineEnd = text.indexOf('\n', start)
+        appendToLine(text, start, if (lineEnd < 0) text.length else lineEnd)
+        if (lineEnd < 0) return
+        addLine(lineBuffer.toString().removeSuffix("\r"))
+        lineBuffer.setLength(0)
+        start = lineEnd + 1
+      }
+    }
+
+    fun flush() {
+      if (lineBuffer.isNotEmpty()) {
+        addLine(lineBuffer.toString())
+        lineBuffer.setLength(0)
+      }
+    }
+
+    fun getText(): String {
+      val text = StringBuilder(studyLines).append(head)
+      if (isTruncated) {
+        text.append(TRUNCATED_MARKER).append('\n')
+      }
+      tail.forEach { text.append(it).append('\n') }
+      return text.toString()
+    }
+
+    private fun appendToLine(text: String, start: Int, end: Int) {
+      val free = MAX_LINE_LENGTH - lineBuffer.length
+      if (end - start > free) {
+        isTruncated = true
+        lineBuffer.append(text, start, start + Math.max(free, 0))
+      }
+      else {
+        lineBuffer.append(text, start, end)
+      }
+    }
+
+    private fun addLine(line: String) {
+      if (extractStudyLines) {
+        if (line.startsWith(STUDY_PREFIX)) {
+          if (studyLines.length + line.length < STUDY_OUTPUT_LIMIT) {
+            studyLines.append(line).append('\n')
+            isLastLineSeparator = false
+          }
+          else {
+            isTruncated = true
+          }
+          return
+        }
+        // checkers split messages by lines without prefix, so one empty line is kept instead of them
+        if (!isLastLineSeparator) {
+          studyLines.append('\n')
+          isLastLineSeparator = true
+        }
+      }
+
+      if (head.length + line.length < HEAD_LIMIT) {
+        head.append(line).append('\n')
+        return
+      }
+      tail.addLast(line)
+      tailLength += line.length + 1
+      while (tailLength > TAIL_LIMIT) {
+        tailLength -= tail.removeFirst().length + 1
+        isTruncated = true
+      }
+    }
+  }
+
+  companion object {
+    private val LOG = Logger.getInstance(StreamingOutputCollector::class.java)
+
+    const val OUTPUT_LIMIT = 16L * 1024 * 1024
+    const val TIME_LIMIT_MS = 10L * 60 * 1000
+
+    private const val STUDY_OUTPUT_LIMIT = 1024 * 1024
+    private const val HEAD_LIMIT = 64 * 1024
+    private const val TAIL_LIMIT = 64 * 1024
+    private const val MAX_LINE_LENGTH = 64 * 1024
+    private const val WAIT_TIMEOUT_MS = 100L
+    private const val TRUNCATED_MARKER = "..."
+  }
+}
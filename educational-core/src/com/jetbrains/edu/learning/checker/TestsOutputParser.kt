@@ -1,7 +1,11 @@
 package com.jetbrains.edu.learning.checker
 
+import com.intellij.execution.process.ProcessAdapter
+import com.intellij.execution.process.ProcessEvent
 import com.intellij.execution.process.ProcessOutput
+import com.intellij.execution.process.ProcessOutputTypes
 import com.intellij.openapi.diagnostic.Logger
+import com.intellij.openapi.util.Key
 import com.jetbrains.edu.learning.checker.CheckUtils.COMPILATION_FAILED_MESSAGE
 import com.jetbrains.edu.learning.checker.CheckUtils.STUDY_PREFIX
 
@@ -14,21 +18,94 @@ object TestsOutputParser {
 
     private val LOG = Logger.getInstance(TestsOutputParser.javaClass)
 
-    class TestsOutput(val isSuccess: Boolean, val message: String)
+    /**
+     * @param isFinished true if output is parsed from tests which ran to completion
+     */
+    class TestsOutput @JvmOverloads constructor(val isSuccess: Boolean, val message: String, val isFinished: Boolean = false)
+
+    sealed class TestEvent(val durationMs: Long) {
+        class Passed(durationMs: Long) : TestEvent(durationMs)
+        class Failed(val message: String, durationMs: Long) : TestEvent(durationMs)
+    }
 
     @JvmStatic
     fun getTestsOutput(processOutput: ProcessOutput, isAdaptive: Boolean): TestsOutput {
+        val listener = TestsOutputListener(isAdaptive)
+        processOutput.stdoutLines.forEach { listener.processLine(it) }
+        return getTestsOutput(processOutput, listener)
+    }
+
+    /**
+     * @param listener listener which parsed stdout of the process while it was running
+     */
+    @JvmStatic
+    fun getTestsOutput(processOutput: ProcessOutput, listener: TestsOutputListener): TestsOutput {
         //gradle prints compilation failures to error stream
         if (CheckUtils.hasCompilationErrors(processOutput)) {
             LOG.info(processOutput.stderr)
             return TestsOutput(false, COMPILATION_FAILED_MESSAGE)
         }
+        return listener.getTestsOutput()
+    }
+
+    /**
+     * Parses tests output while tests are running and reports each finished test as soon as its result is printed.
+     * Tests report only their results, so duration of a test is the time passed since the previous result.
+     *
+     * Result of a non-adaptive task is known after the first failed test, so tests process is stopped at that point.
+     */
+    class TestsOutputListener @JvmOverloads constructor(
+      private val isAdaptive: Boolean,
+      private val onTestFinished: (TestEvent) -> Unit = {}
+    ) : ProcessAdapter() {
+        private val lineBuffer = StringBuilder()
+        private var lastResultTime = System.currentTimeMillis()
+        private var congratulations = CONGRATULATIONS
+        private var failureMessage: StringBuilder? = null
+        private var isFinished = false
+
+        @Synchronized
+        override fun onTextAvailable(event: ProcessEvent, outputType: Key<*>) {
+            if (outputType != ProcessOutputTypes.STDOUT) return
+            lineBuffer.append(event.text)
+            var lineEnd = lineBuffer.indexOf("\n")
+            while (lineEnd >= 0) {
+                processLine(lineBuffer.substring(0, lineEnd).removeSuffix("\r"))
+                lineBuffer.delete(0, lineEnd + 1)
+                lineEnd = lineBuffer.indexOf("\n")
+            }
+            if (isFinished && !isAdaptive && !event.processHandler.isProcessTerminating) {
+                event.processHandler.destroyProcess()
+            }
+        }
+
+        @Synchronized
+        override fun processTerminated(event: ProcessEvent) {
+            if (lineBuffer.isNotEmpty()) {
+                processLine(lineBuffer.toString())
+                lineBuffer.setLength(0)
+            }
+        }
+
+        @Synchronized
+        fun processLine(line: String) {
+            if (isFinished || !line.startsWith(STUDY_PREFIX)) return
+
+            val failure = failureMessage
+            if (failure != null) {
+                // adaptive tasks print the whole failure message before congratulations
+                if (line.contains(CONGRATS_MESSAGE)) {
+                    isFinished = true
+                }
+                else {
+                    failure.append(line).append("\n")
+                }
+                return
+            }
 
-        val lines = processOutput.stdoutLines.filter { it.startsWith(STUDY_PREFIX) }
-        var congratulations = CONGRATULATIONS
-        for ((i, line) in lines.withIndex()) {
             if (line.contains(TEST_OK)) {
-                continue
+                onTestFinished(TestEvent.Passed(timeSinceLastResult()))
+                return
             }
 
             if (line.contains(CONGRATS_MESSAGE)) {
@@ -36,26 +113,24 @@ object TestsOutputParser {
             }
 
             if (line.contains(TEST_FAILED)) {
-                if (!isAdaptive) {
-                    return TestsOutput(false, line.substringAfter(TEST_FAILED))
-                }
-                else {
-                    val builder = StringBuilder(line.substringAfter(TEST_FAILED) + "\n")
-                    for (j in i + 1 until lines.size) {
-                        val failedTextLine = lines[j]
-                        if (!failedTextLine.contains(STUDY_PREFIX) || !failedTextLine.contains(CONGRATS_MESSAGE)) {
-                            builder.append(failedTextLine)
-                            builder.append("\n")
-                        }
-                        else {
-                            break
-                        }
-                    }
-                    return TestsOutput(false, builder.toString())
-                }
+                val message = line.substringAfter(TEST_FAILED)
+                failureMessage = StringBuilder(message).apply { if (isAdaptive) append("\n") }
+                isFinished = !isAdaptive
+                onTestFinished(TestEvent.Failed(message, timeSinceLastResult()))
             }
         }
 
-        return TestsOutput(true, congratulations)
+        @Synchronized
+        fun getTestsOutput(): TestsOutput {
+            val failure = failureMessage ?: return TestsOutput(true, congratulations, true)
+            return TestsOutput(false, failure.toString(), true)
+        }
+
+        private fun timeSinceLastResult(): Long {
+            val now = System.currentTimeMillis()
+            val duration = now - lastResultTime
+            lastResultTime = now
+            return duration
+        }
     }
 }
@@ -0,0 +1,105 @@
+package com.jetbrains.edu.learning.checker.gradle
+
+import com.intellij.execution.process.ProcessHandler
+import com.intellij.execution.process.ProcessOutputTypes
+import com.intellij.openapi.util.Key
+import java.io.OutputStream
+import java.nio.ByteBuffer
+import java.nio.CharBuffer
+import java.nio.charset.Charset
+import java.nio.charset.CodingErrorAction
+
+/**
+ * Presents a build run with Gradle Tooling API as a process, so its output can be collected
+ * with [com.jetbrains.edu.learning.checker.StreamingOutputCollector] like output of `gradlew` process.
+ *
+ * The build is started by [start] when the handler is started, destroying the handler calls [cancel],
+ * build result handler must call [buildFinished].
+ */
+internal class GradleBuildProcessHandler(
+  private val cancel: () -> Unit,
+  private val start: (GradleBuildProcessHandler) -> Unit
+) : ProcessHandler() {
+  private val stdout = TextOutputStream(ProcessOutputTypes.STDOUT)
+  private val stderr = TextOutputStream(ProcessOutputTypes.STDERR)
+
+  val standardOutput: OutputStream get() = stdout
+  val standardError: OutputStream get() = stderr
+
+  override fun startNotify() {
+    super.startNotify()
+    start(this)
+  }
+
+  fun buildFinished(exitCode: Int) {
+    stdout.finish()
+    stderr.finish()
+    notifyProcessTerminated(exitCode)
+  }
+
+  override fun destroyProcessImpl() = cancel()
+
+  override fun detachProcessImpl() = cancel()
+
+  override fun detachIsDefault(): Boolean = false
+
+  override fun getProcessInput(): OutputStream? = null
+
+  /**
+   * Passes written text to process listeners line by line. Long lines are passed in parts,
+   * bytes of a char which isn't written completely are kept until the rest of the char is written.
+   */
+  private inner class TextOutputStream(private val outputType: Key<*>) : OutputStream() {
+    private val decoder = CHARSET.newDecoder()
+      .onMalformedInput(CodingErrorAction.REPLACE)
+      .onUnmappableCharacter(CodingErrorAction.REPLACE)
+    private val bytes = ByteBuffer.allocate(MAX_LINE_BYTES)
+    private val chars = CharBuffer.allocate(MAX_LINE_BYTES)
+
+    @Synchronized
+    override fun write(b: Int) {
+      bytes.put(b.toByte())
+      if (b == '\n'.toInt() || !bytes.hasRemaining()) {
+        decode(false)
+      }
+    }
+
+    @Synchronized
+    override fun write(b: ByteArray, off: Int, len: Int) {
+      for (i in off until off + len) {
+        write(b[i].toInt())
+      }
+    }
+
+    @Synchronized
+    override fun flush() = decode(false)
+
+    /**
+     * Passes the rest of the output, incomplete char is replaced
+     */
+    @Synchronized
+    fun finish() = decode(true)
+
+    private fun decode(endOfInput: Boolean) {
+      bytes.flip()
+      do {
+        val result = decoder.decode(bytes, chars, endOfInput)
+        if (endOfInput && result.isUnderflow) {
+          decoder.flush(chars)
+          decoder.reset()
+        }
+        chars.flip()
+        if (chars.hasRemaining()) {
+          notifyTextAvailable(chars.toString(), outputType)
+        }
+        chars.clear()
+      } while (result.isOverflow)
+      bytes.compact()
+    }
+  }
+
+  companion object {
+    private val CHARSET = Charset.defaultCharset()
+    private const val MAX_LINE_BYTES = 8 * 1024
+  }
+}
@@ -0,0 +1,126 @@
+package com.jetbrains.edu.learning.checker.gradle
+
+import com.intellij.openapi.Disposable
+import com.intellij.openapi.components.ServiceManager
+import com.intellij.openapi.diagnostic.Logger
+import com.intellij.openapi.progress.ProcessCanceledException
+import com.intellij.openapi.progress.ProgressManager
+import com.intellij.openapi.project.Project
+import com.intellij.openapi.roots.ProjectRootManager
+import com.jetbrains.edu.learning.checker.StreamingOutputCollector
+import org.gradle.tooling.*
+import org.gradle.tooling.events.OperationType
+import org.gradle.tooling.events.ProgressListener
+import org.gradle.tooling.events.test.JvmTestKind
+import org.gradle.tooling.events.test.JvmTestOperationDescriptor
+import org.gradle.tooling.events.test.TestFailureResult
+import org.gradle.tooling.events.test.TestFinishEvent
+import java.io.File
+import java.util.*
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicReference
+
+/**
+ * Runs gradle tasks of course project with Gradle Tooling API instead of launching `gradlew` for each check.
+ * Connection to the project is kept open between checks, so the same warm Gradle daemon with already loaded
+ * build scripts is used and repeated checks don't pay for JVM startup and daemon spin-up.
+ */
+class GradleCheckRunner(private val project: Project) : Disposable {
+  private var connection: ProjectConnection? = null
+  @Volatile
+  private var isWarm = false
+
+  /**
+   * Output is collected and limited the same way as output of `gradlew` process.
+   *
+   * @return output of gradle build or null if project isn't configured to run gradle
+   */
+  fun runTask(taskName: String, params: List<String>): GradleOutput? {
+    val javaHome = ProjectRootManager.getInstance(project).projectSdk?.homePath ?: return null
+    val connection = getConnection() ?: return null
+
+    val cancellationTokenSource = GradleConnector.newCancellationTokenSource()
+    val failure = AtomicReference<GradleConnectionException>()
+    val testListener = createTestListener()
+    val startTime = System.currentTimeMillis()
+    val handler = GradleBuildProcessHandler({ cancellationTokenSource.cancel() }) { handler ->
+      connection.newBuild()
+        .withArguments(buildArguments(taskName, params))
+        .setJavaHome(File(javaHome))
+        .setStandardOutput(handler.standardOutput)
+        .setStandardError(handler.standardError)
+        .withCancellationToken(cancellationTokenSource.token())
+        .addProgressListener(testListener, EnumSet.of(OperationType.TEST))
+        .run(object : ResultHandler<Void> {
+          override fun onComplete(ignored: Void?) {
+            isWarm = true
+            handler.buildFinished(0)
+          }
+
+          override fun onFailure(e: GradleConnectionException) {
+            // failed tests fail the build, their output is parsed as usual
+            if (e !is BuildException) {
+              failure.set(e)
+            }
+            handler.buildFinished(1)
+          }
+        })
+    }
+
+    val wasWarm = isWarm
+    val collector = StreamingOutputCollector()
+    val output = collector.run(handler)
+    LOG.info("Gradle task $taskName took ${System.currentTimeMillis() - startTime} ms on ${if (wasWarm) "warm" else "cold"} daemon")
+
+    if (output.isCancelled) {
+      throw ProcessCanceledException()
+    }
+    val limitMessage = collector.getLimitMessage()
+    if (limitMessage != null) {
+      return GradleOutput(false, listOf(limitMessage))
+    }
+    failure.get()?.let { throw it }
+    return parseGradleOutput(output, taskName)
+  }
+
+  private fun createTestListener(): ProgressListener {
+    val indicator = ProgressManager.getInstance().progressIndicator
+    val passedTests = AtomicInteger()
+    return ProgressListener { event ->
+      val descriptor = event.descriptor
+      if (indicator != null && event is TestFinishEvent && event.result !is TestFailureResult
+          && descriptor is JvmTestOperationDescriptor && descriptor.jvmTestKind == JvmTestKind.ATOMIC) {
+        indicator.text2 = "Tests passed: ${passedTests.incrementAndGet()}"
+      }
+    }
+  }
+
+  @Synchronized
+  private fun getConnection(): ProjectConnection? {
+    val basePath = project.basePath ?: return null
+    return connection ?: GradleConnector.newConnector()
+      .forProjectDirectory(File(basePath))
+      .connect()
+      .also { connection = it }
+  }
+
+  @Synchronized
+  override fun dispose() {
+    connection?.close()
+    connection = null
+  }
+
+  companion object {
+    private val LOG = Logger.getInstance(GradleCheckRunner::class.java)
+
+    /**
+     * Task options like `--tests` are parsed by Gradle only when they follow the task on the command line,
+     * so the task is passed as an argument instead of [BuildLauncher.forTasks]
+     */
+    @JvmStatic
+    fun buildArguments(taskName: String, params: List<String>): List<String> = listOf(taskName) + params
+
+    @JvmStatic
+    fun getInstance(project: Project): GradleCheckRunner = ServiceManager.getService(project, GradleCheckRunner::class.java)
+  }
+}
@@ -1,17 +1,31 @@
 package com.jetbrains.edu.learning.checker.gradle
 
 import com.intellij.execution.ExecutionException
+import com.intellij.openapi.application.Experiments
 import com.intellij.openapi.diagnostic.Logger
 import com.intellij.openapi.project.Project
+import com.jetbrains.edu.learning.EduExperimentalFeatures
 import com.jetbrains.edu.learning.checker.CheckResult
 import com.jetbrains.edu.learning.checker.CheckResult.FAILED_TO_CHECK
 import com.jetbrains.edu.learning.checker.CheckUtils
 import com.jetbrains.edu.learning.checker.TaskChecker
 import com.jetbrains.edu.learning.courseFormat.tasks.EduTask
+import org.gradle.tooling.GradleConnectionException
 
 open class GradleEduTaskChecker(task: EduTask, project: Project) : TaskChecker<EduTask>(task, project) {
   override fun check(): CheckResult {
     val (taskName, params) = getGradleTask()
+    if (Experiments.isFeatureEnabled(EduExperimentalFeatures.GRADLE_TOOLING_API_CHECKER)) {
+      return try {
+        val output = GradleCheckRunner.getInstance(project).runTask(taskName, params) ?: return FAILED_TO_CHECK
+        parseTestsOutput(output)
+      }
+      catch (e: GradleConnectionException) {
+        Logger.getInstance(GradleEduTaskChecker::class.java).info(CheckUtils.FAILED_TO_CHECK_MESSAGE, e)
+        FAILED_TO_CHECK
+      }
+    }
+
     val cmd = generateGradleCommandLine(
       project,
       taskName,
@@ -1,11 +1,11 @@
 package com.jetbrains.edu.learning.checker.gradle
 
 import com.intellij.execution.configurations.GeneralCommandLine
-import com.intellij.execution.process.CapturingProcessHandler
+import com.intellij.execution.process.OSProcessHandler
+import com.intellij.execution.process.ProcessOutput
 import com.intellij.openapi.application.runReadAction
 import com.intellij.openapi.fileEditor.FileDocumentManager
 import com.intellij.openapi.module.ModuleUtil
-import com.intellij.openapi.progress.ProgressManager
 import com.intellij.openapi.project.Project
 import com.intellij.openapi.roots.ProjectRootManager
 import com.intellij.openapi.util.SystemInfo
@@ -58,15 +58,19 @@ class GradleOutput(val isSuccess: Boolean, _messages: List<String>) {
 }
 
 fun getProcessOutput(process: Process, commandLine: String, taskName: String): GradleOutput {
-  val handler = CapturingProcessHandler(process, null, commandLine)
-  val output =
-    if (ProgressManager.getInstance().hasProgressIndicator()) {
-      handler.runProcessWithProgressIndicator(ProgressManager.getInstance().progressIndicator)
-    }
-    else {
-      handler.runProcess()
-    }
+  val collector = StreamingOutputCollector()
+  val output = collector.run(OSProcessHandler(process, commandLine, null))
+  val limitMessage = collector.getLimitMessage()
+  if (limitMessage != null) {
+    return GradleOutput(false, listOf(limitMessage))
+  }
+  if (output.isCancelled) {
+    return GradleOutput(false, listOf(CHECK_CANCELLED_MESSAGE))
+  }
+  return parseGradleOutput(output, taskName)
+}
 
+fun parseGradleOutput(output: ProcessOutput, taskName: String): GradleOutput {
   val stderr = output.stderr
   if (!stderr.isEmpty() && output.stdout.isEmpty()) {
     return GradleOutput(false, listOf(stderr))
@@ -112,8 +116,12 @@ fun getProcessOutput(process: Process, commandLine: String, taskName: String): G
 
 fun String.postProcessOutput() = replace(System.getProperty("line.separator"), "\n").removeSuffix("\n")
 
-fun parseTestsOutput(process: Process, commandLine: String, taskName: String): CheckResult {
-  val output = getProcessOutput(process, commandLine, taskName)
+fun parseTestsOutput(process: Process, commandLine: String, taskName: String): CheckResult =
+  parseTestsOutput(getProcessOutput(process, commandLine, taskName))
+
+fun parseTestsOutput(output: ProcessOutput, taskName: String): CheckResult = parseTestsOutput(parseGradleOutput(output, taskName))
+
+fun parseTestsOutput(output: GradleOutput): CheckResult {
   if (!output.isSuccess) return CheckResult(CheckStatus.Failed, output.firstMessage)
 
   var congratulations = TestsOutputParser.CONGRATULATIONS
@@ -125,15 +133,15 @@ fun parseTestsOutput(process: Process, commandLine: String, taskName: String): C
         congratulations = message.substringAfter(TestsOutputParser.CONGRATS_MESSAGE)
       }
       TestsOutputParser.TEST_FAILED in message -> {
-        return CheckResult(CheckStatus.Failed, message.substringAfter(TestsOutputParser.TEST_FAILED).prettify())
+        return CheckResult(CheckStatus.Failed, message.substringAfter(TestsOutputParser.TEST_FAILED).prettify(), true)
       }
     }
   }
 
-  return CheckResult(CheckStatus.Solved, congratulations)
+  return CheckResult(CheckStatus.Solved, congratulations, true)
 }
 
-private fun String.prettify(): String {
+fun String.prettify(): String {
   val matcher = TEST_FAILED_PATTERN.matcher(this)
   return if (matcher.find()) {
     val errorMessage = matcher.group(2)
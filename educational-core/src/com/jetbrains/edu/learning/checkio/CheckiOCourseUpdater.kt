@@ -76,23 +76,41 @@ class CheckiOCourseUpdater(
       return LOG.error("Corresponding local station is not found for station from server [${newStation.id}; ${newStation.name}]")
     }
 
-    newStation.missions.forEach {
+    val changedMissions = newStation.missions.count {
       updateMission(it, oldStation.getMission(it.stepId))
     }
+    LOG.info("Station [${newStation.id}; ${newStation.name}]: $changedMissions of ${newStation.missions.size} missions changed on server")
   }
 
-  private fun updateMission(newMission: CheckiOMission, oldMission: CheckiOMission?) {
+  /**
+   * Local mission keeps the code it was last synchronized with, so missions whose code didn't change on server
+   * since then just keep local task file text without looking up their files and documents.
+   *
+   * @return true if code of the mission changed on server
+   */
+  private fun updateMission(newMission: CheckiOMission, oldMission: CheckiOMission?): Boolean {
     if (oldMission == null) {
-      return LOG.error("Corresponding local mission is not found for mission from server [${newMission.id}; ${newMission.name}]")
+      LOG.error("Corresponding local mission is not found for mission from server [${newMission.id}; ${newMission.name}]")
+      return false
     }
 
     val oldTaskFile = oldMission.taskFile
+    if (newMission.code == oldMission.code) {
+      newMission.taskFile.setText(oldTaskFile.getText())
+      return false
+    }
 
     val oldMissionDir = oldMission.getDir(project)
-                        ?: return LOG.error("Directory is not found for mission [${oldMission.id}; ${oldMission.name}]")
+    if (oldMissionDir == null) {
+      LOG.error("Directory is not found for mission [${oldMission.id}; ${oldMission.name}]")
+      return true
+    }
 
     val oldVirtualFile = EduUtils.findTaskFileInDir(oldTaskFile, oldMissionDir)
-                         ?: return LOG.error("VirtualFile is not found for mission [id=${oldMission.id}; name=${oldMission.name}]")
+    if (oldVirtualFile == null) {
+      LOG.error("VirtualFile is not found for mission [id=${oldMission.id}; name=${oldMission.name}]")
+      return true
+    }
 
     val secondsFromChangeOnServer = newMission.secondsFromLastChangeOnServer
     val secondsFromLocalChange = (System.currentTimeMillis() - oldVirtualFile.timeStamp) / 1000
@@ -103,7 +121,8 @@ class CheckiOCourseUpdater(
       }
 
       if (oldDocument == null) {
-        return LOG.error("Document isn't provided for VirtualFile ${oldVirtualFile.name}")
+        LOG.error("Document isn't provided for VirtualFile ${oldVirtualFile.name}")
+        return true
       }
 
       runWriteAction {
@@ -112,6 +131,7 @@ class CheckiOCourseUpdater(
     } else {
       newMission.taskFile.setText(oldTaskFile.getText())
     }
+    return true
   }
 
   companion object {
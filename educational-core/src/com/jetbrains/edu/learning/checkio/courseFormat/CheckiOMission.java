@@ -69,6 +69,15 @@ public class CheckiOMission extends EduTask {
     }
   }
 
+  @NotNull
+  @Override
+  public CheckiOMission copyItem() {
+    final CheckiOMission copy = (CheckiOMission)super.copyItem();
+    // station of the copy is set when the whole station is copied
+    copy.myStation = new CheckiOStation();
+    return copy;
+  }
+
   @Override
   public boolean isToSubmitToStepik() {
     return false;
@@ -26,6 +26,16 @@ public class CheckiOStation extends Lesson {
     return getTaskList().stream().filter(CheckiOMission.class::isInstance).map(CheckiOMission.class::cast).collect(Collectors.toList());
   }
 
+  @NotNull
+  @Override
+  protected CheckiOStation copyItem() {
+    final CheckiOStation copy = (CheckiOStation)super.copyItem();
+    for (CheckiOMission mission : copy.getMissions()) {
+      mission.setStation(copy);
+    }
+    return copy;
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) return true;
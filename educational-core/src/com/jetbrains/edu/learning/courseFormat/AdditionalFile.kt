@@ -6,4 +6,6 @@ class AdditionalFile() : StudyFile() {
     this.setText(text)
     this.isVisible = isVisible
   }
+
+  fun copy(): AdditionalFile = AdditionalFile(getText(), isVisible)
 }
@@ -20,7 +20,7 @@ import java.util.List;
  * Update {@link StepikChangeRetriever#isEqualTo(AnswerPlaceholder, AnswerPlaceholder)} if you added new property that has to be compared
  */
 
-public class AnswerPlaceholder {
+public class AnswerPlaceholder implements Cloneable {
 
   @SerializedName("offset")
   @Expose private int myOffset = -1;
@@ -119,6 +119,29 @@ public class AnswerPlaceholder {
     myPlaceholderText = placeholderText;
   }
 
+  /**
+   * @return copy of this placeholder which isn't attached to any task file, texts are shared with the copy
+   */
+  @NotNull
+  public AnswerPlaceholder copy() {
+    final AnswerPlaceholder copy;
+    try {
+      copy = (AnswerPlaceholder)clone();
+    }
+    catch (CloneNotSupportedException e) {
+      throw new IllegalStateException(e);
+    }
+    copy.myTaskFile = null;
+    copy.myHints = new ArrayList<>(myHints);
+    if (myInitialState != null) {
+      copy.myInitialState = new MyInitialState(myInitialState.getOffset(), myInitialState.getLength());
+    }
+    if (myPlaceholderDependency != null) {
+      copy.myPlaceholderDependency = myPlaceholderDependency.copy(copy);
+    }
+    return copy;
+  }
+
   @Transient
   public TaskFile getTaskFile() {
     return myTaskFile;
@@ -88,6 +88,12 @@ public class AnswerPlaceholderDependency {
     return taskFile.getAnswerPlaceholders().get(myPlaceholderIndex);
   }
 
+  @NotNull
+  public AnswerPlaceholderDependency copy(@NotNull AnswerPlaceholder answerPlaceholder) {
+    return new AnswerPlaceholderDependency(answerPlaceholder, mySectionName, myLessonName, myTaskName, myFileName,
+                                           myPlaceholderIndex, myIsVisible);
+  }
+
   @Transient
   public AnswerPlaceholder getAnswerPlaceholder() {
     return myAnswerPlaceholder;
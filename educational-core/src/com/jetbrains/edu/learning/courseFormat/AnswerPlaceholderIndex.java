@@ -0,0 +1,60 @@
+package com.jetbrains.edu.learning.courseFormat;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Answer placeholders of a task file sorted by offset for lookups by offset in O(log n).
+ *
+ * Placeholders of a task file don't overlap and document changes shift them without changing their order,
+ * so both start and end offsets stay sorted until placeholders are added or removed.
+ */
+class AnswerPlaceholderIndex {
+  private final AnswerPlaceholder[] myPlaceholders;
+
+  AnswerPlaceholderIndex(@NotNull List<AnswerPlaceholder> placeholders) {
+    myPlaceholders = placeholders.toArray(new AnswerPlaceholder[0]);
+    Arrays.sort(myPlaceholders, new AnswerPlaceholderComparator());
+  }
+
+  int size() {
+    return myPlaceholders.length;
+  }
+
+  @Nullable
+  AnswerPlaceholder findByOffset(int offset) {
+    int index = firstEndingAtOrAfter(offset);
+    if (index < myPlaceholders.length && myPlaceholders[index].getOffset() <= offset) {
+      return myPlaceholders[index];
+    }
+    return null;
+  }
+
+  /**
+   * @return placeholders which end at or after given offset, in order of their offsets
+   */
+  @NotNull
+  List<AnswerPlaceholder> endingAtOrAfter(int offset) {
+    int index = firstEndingAtOrAfter(offset);
+    return Collections.unmodifiableList(Arrays.asList(myPlaceholders).subList(index, myPlaceholders.length));
+  }
+
+  private int firstEndingAtOrAfter(int offset) {
+    int low = 0;
+    int high = myPlaceholders.length;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (myPlaceholders[middle].getEndOffset() < offset) {
+        low = middle + 1;
+      }
+      else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+}
@@ -6,13 +6,11 @@ import com.intellij.lang.Language;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.openapi.vfs.VirtualFile;
-import com.intellij.util.xmlb.XmlSerializer;
 import com.intellij.util.xmlb.annotations.Transient;
 import com.jetbrains.edu.learning.EduNames;
 import com.jetbrains.edu.learning.EduUtils;
 import com.jetbrains.edu.learning.stepik.StepicUser;
 import one.util.streamex.StreamEx;
-import org.jdom.Element;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -238,12 +236,19 @@ public class Course extends ItemContainer {
   }
 
   public Course copy() {
-    Element element = XmlSerializer.serialize(this);
-    Course copy = XmlSerializer.deserialize(element, getClass());
+    Course copy = copyItem();
     copy.init(null, null, true);
     return copy;
   }
 
+  @NotNull
+  @Override
+  protected Course copyItem() {
+    final Course copy = (Course)super.copyItem();
+    copy.authors = new ArrayList<>(authors);
+    return copy;
+  }
+
   public boolean isAdaptive() {
     return false;
   }
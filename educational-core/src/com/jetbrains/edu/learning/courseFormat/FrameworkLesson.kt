@@ -63,6 +63,13 @@ class FrameworkLesson() : Lesson() {
     currentTaskIndex--
   }
 
+  override fun copyItem(): FrameworkLesson {
+    val copy = super.copyItem() as FrameworkLesson
+    // diffs refer to task files of this lesson, they are calculated for the copy by `init`
+    copy.diffs = emptyList()
+    return copy
+  }
+
   private fun calculateDiffs(prevTask: Task, nextTask: Task): List<TaskDiff> {
     val diffs = mutableListOf<TaskDiff>()
     diffs += calculateDiffs(
@@ -95,4 +95,15 @@ public abstract class ItemContainer extends StudyItem {
   public void setItems(List<StudyItem> items) {
     this.items = items;
   }
+
+  @NotNull
+  @Override
+  protected ItemContainer copyItem() {
+    final ItemContainer copy = (ItemContainer)super.copyItem();
+    copy.items = new ArrayList<>(items.size());
+    for (StudyItem item : items) {
+      copy.items.add(item.copyItem());
+    }
+    return copy;
+  }
 }
@@ -10,6 +10,7 @@ import com.jetbrains.edu.learning.EduNames;
 import com.jetbrains.edu.learning.EduUtils;
 import com.jetbrains.edu.learning.checkio.courseFormat.CheckiOMission;
 import com.jetbrains.edu.learning.courseFormat.tasks.*;
+import com.jetbrains.edu.learning.serialization.LazyTaskList;
 import com.jetbrains.edu.learning.stepik.StepikNames;
 import kotlin.collections.CollectionsKt;
 import one.util.streamex.StreamEx;
@@ -61,6 +62,10 @@ public class Lesson extends StudyItem {
     mySection = section instanceof Section ? (Section)section : null;
     setCourse(course);
     List<Task> tasks = getTaskList();
+    if (tasks instanceof LazyTaskList && !((LazyTaskList)tasks).isLoaded()) {
+      // tasks are initialized when they are loaded
+      return;
+    }
     for (int i = 0; i < tasks.size(); i++) {
       Task task = tasks.get(i);
       task.setIndex(i + 1);
@@ -205,4 +210,17 @@ public class Lesson extends StudyItem {
   public VirtualFile getDir(@NotNull Project project) {
     return getLessonDir(project);
   }
+
+  @NotNull
+  @Override
+  protected Lesson copyItem() {
+    final Lesson copy = (Lesson)super.copyItem();
+    copy.steps = steps == null ? null : new ArrayList<>(steps);
+    copy.tags = tags == null ? null : new ArrayList<>(tags);
+    copy.taskList = new ArrayList<>(taskList.size());
+    for (Task task : taskList) {
+      copy.taskList.add(task.copyItem());
+    }
+    return copy;
+  }
 }
@@ -201,4 +201,13 @@ public class RemoteCourse extends Course {
       return CourseCompatibility.UNSUPPORTED;
     }
   }
+
+  @NotNull
+  @Override
+  protected RemoteCourse copyItem() {
+    final RemoteCourse copy = (RemoteCourse)super.copyItem();
+    copy.sectionIds = sectionIds == null ? null : new ArrayList<>(sectionIds);
+    copy.instructors = instructors == null ? null : new ArrayList<>(instructors);
+    return copy;
+  }
 }
@@ -9,6 +9,7 @@ import com.jetbrains.edu.learning.EduUtils;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 
@@ -110,4 +111,12 @@ public class Section extends ItemContainer {
   public StudyItem getParent() {
     return myCourse;
   }
+
+  @NotNull
+  @Override
+  protected Section copyItem() {
+    final Section copy = (Section)super.copyItem();
+    copy.units = units == null ? null : new ArrayList<>(units);
+    return copy;
+  }
 }
@@ -17,7 +17,7 @@ import org.jetbrains.annotations.Nullable;
  * @see com.jetbrains.edu.learning.courseFormat.tasks.Task
  * @see com.jetbrains.edu.coursecreator.actions.StudyItemType
  */
-public abstract class StudyItem {
+public abstract class StudyItem implements Cloneable {
   // from 1 to number of items
   private int myIndex = -1;
 
@@ -85,4 +85,19 @@ public abstract class StudyItem {
 
   @NotNull
   public abstract StudyItem getParent();
+
+  /**
+   * Creates a copy of this item and all its children without xml serialization.
+   * Texts and other immutable values are shared with the copy, so subclasses have to copy only their mutable state.
+   * Links to parents aren't updated here, the copy should be initialized with {@link #init} afterwards.
+   */
+  @NotNull
+  protected StudyItem copyItem() {
+    try {
+      return (StudyItem)clone();
+    }
+    catch (CloneNotSupportedException e) {
+      throw new IllegalStateException(e);
+    }
+  }
 }
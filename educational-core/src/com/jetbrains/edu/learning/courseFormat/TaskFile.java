@@ -4,7 +4,6 @@ import com.google.gson.annotations.Expose;
 import com.google.gson.annotations.SerializedName;
 import com.intellij.util.xmlb.annotations.Transient;
 import com.jetbrains.edu.coursecreator.stepik.StepikChangeRetriever;
-import com.jetbrains.edu.learning.EduUtils;
 import com.jetbrains.edu.learning.courseFormat.tasks.Task;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -19,7 +18,7 @@ import java.util.List;
  * Update {@link StepikChangeRetriever#isEqualTo(TaskFile, TaskFile)} if you added new property that has to be compared
  */
 
-public class TaskFile extends StudyFile {
+public class TaskFile extends StudyFile implements Cloneable {
   @Expose @SerializedName("name") private String myName;
   private boolean myUserCreated = false;
   private boolean myTrackChanges = true;
@@ -28,6 +27,7 @@ public class TaskFile extends StudyFile {
   @Expose @SerializedName("placeholders") private List<AnswerPlaceholder> myAnswerPlaceholders = new ArrayList<>();
 
   @Transient private Task myTask;
+  @Transient private AnswerPlaceholderIndex myPlaceholderIndex;
 
   public TaskFile() {
   }
@@ -42,6 +42,7 @@ public class TaskFile extends StudyFile {
     for (int i = 0; i < answerPlaceholders.size(); i++) {
       answerPlaceholders.get(i).setIndex(i);
     }
+    myPlaceholderIndex = null;
   }
 
   public List<AnswerPlaceholder> getAnswerPlaceholders() {
@@ -50,10 +51,17 @@ public class TaskFile extends StudyFile {
 
   public void setAnswerPlaceholders(List<AnswerPlaceholder> answerPlaceholders) {
     this.myAnswerPlaceholders = answerPlaceholders;
+    myPlaceholderIndex = null;
   }
 
   public void addAnswerPlaceholder(AnswerPlaceholder answerPlaceholder) {
     myAnswerPlaceholders.add(answerPlaceholder);
+    myPlaceholderIndex = null;
+  }
+
+  public void removeAnswerPlaceholder(AnswerPlaceholder answerPlaceholder) {
+    myAnswerPlaceholders.remove(answerPlaceholder);
+    myPlaceholderIndex = null;
   }
 
   @Transient
@@ -72,7 +80,26 @@ public class TaskFile extends StudyFile {
    */
   @Nullable
   public AnswerPlaceholder getAnswerPlaceholder(int offset) {
-    return EduUtils.getAnswerPlaceholder(offset, getAnswerPlaceholders());
+    return getPlaceholderIndex().findByOffset(offset);
+  }
+
+  /**
+   * @return placeholders which end at or after given offset, i.e. all placeholders which can be affected by a change at this offset
+   */
+  @NotNull
+  public List<AnswerPlaceholder> getAnswerPlaceholdersEndingAtOrAfter(int offset) {
+    return getPlaceholderIndex().endingAtOrAfter(offset);
+  }
+
+  @NotNull
+  private AnswerPlaceholderIndex getPlaceholderIndex() {
+    AnswerPlaceholderIndex index = myPlaceholderIndex;
+    // placeholders list is also modified directly, so index is rebuilt if number of placeholders changed
+    if (index == null || index.size() != myAnswerPlaceholders.size()) {
+      index = new AnswerPlaceholderIndex(myAnswerPlaceholders);
+      myPlaceholderIndex = index;
+    }
+    return index;
   }
 
   public boolean isTrackLengths() {
@@ -83,6 +110,29 @@ public class TaskFile extends StudyFile {
     myTrackLengths = trackLengths;
   }
 
+  /**
+   * @return copy of this task file with copies of its placeholders, texts are shared with the copy
+   */
+  @NotNull
+  public TaskFile copy() {
+    final TaskFile copy;
+    try {
+      copy = (TaskFile)clone();
+    }
+    catch (CloneNotSupportedException e) {
+      throw new IllegalStateException(e);
+    }
+    copy.myTask = null;
+    copy.myPlaceholderIndex = null;
+    copy.myAnswerPlaceholders = new ArrayList<>(myAnswerPlaceholders.size());
+    for (AnswerPlaceholder placeholder : myAnswerPlaceholders) {
+      final AnswerPlaceholder placeholderCopy = placeholder.copy();
+      placeholderCopy.setTaskFile(copy);
+      copy.myAnswerPlaceholders.add(placeholderCopy);
+    }
+    return copy;
+  }
+
   public static void copy(@NotNull final TaskFile source, @NotNull final TaskFile target) {
     List<AnswerPlaceholder> sourceAnswerPlaceholders = source.getAnswerPlaceholders();
     List<AnswerPlaceholder> answerPlaceholdersCopy = new ArrayList<>(sourceAnswerPlaceholders.size());
@@ -138,6 +188,7 @@ public class TaskFile extends StudyFile {
 
   public void sortAnswerPlaceholders() {
     myAnswerPlaceholders.sort(new AnswerPlaceholderComparator());
+    myPlaceholderIndex = null;
     for (int i = 0; i < myAnswerPlaceholders.size(); i++) {
       myAnswerPlaceholders.get(i).setIndex(i);
     }
@@ -48,4 +48,13 @@ public class ChoiceTask extends Task {
   public String getTaskType() {
     return "choice";
   }
+
+  @NotNull
+  @Override
+  public ChoiceTask copyItem() {
+    final ChoiceTask copy = (ChoiceTask)super.copyItem();
+    copy.myChoiceVariants = new ArrayList<>(myChoiceVariants);
+    copy.mySelectedVariants = new ArrayList<>(mySelectedVariants);
+    return copy;
+  }
 }
@@ -5,7 +5,6 @@ import com.google.gson.annotations.SerializedName;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.vfs.VfsUtilCore;
 import com.intellij.openapi.vfs.VirtualFile;
-import com.intellij.util.xmlb.XmlSerializer;
 import com.intellij.util.xmlb.annotations.Transient;
 import com.jetbrains.edu.coursecreator.stepik.StepikChangeRetriever;
 import com.jetbrains.edu.learning.EduUtils;
@@ -16,7 +15,6 @@ import com.jetbrains.edu.learning.serialization.SerializationUtils;
 import com.jetbrains.edu.learning.stepik.StepikTaskBuilder;
 import com.jetbrains.edu.learning.stepik.StepikUtils;
 import icons.EducationalCoreIcons;
-import org.jdom.Element;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -268,12 +266,31 @@ public abstract class Task extends StudyItem {
   }
 
   public Task copy() {
-    Element element = XmlSerializer.serialize(this);
-    Task copy = XmlSerializer.deserialize(element, getClass());
+    Task copy = copyItem();
     copy.init(null, null, true);
     return copy;
   }
 
+  @NotNull
+  @Override
+  public Task copyItem() {
+    final Task copy = (Task)super.copyItem();
+    copy.myLesson = null;
+    copy.myTaskFiles = new LinkedHashMap<>();
+    for (Map.Entry<String, TaskFile> entry : myTaskFiles.entrySet()) {
+      copy.myTaskFiles.put(entry.getKey(), entry.getValue().copy());
+    }
+    copy.testsText = new HashMap<>(testsText);
+    copy.additionalFiles = new HashMap<>();
+    for (Map.Entry<String, AdditionalFile> entry : additionalFiles.entrySet()) {
+      copy.additionalFiles.put(entry.getKey(), entry.getValue().copy());
+    }
+    copy.myFeedbackLink = new FeedbackLink();
+    copy.myFeedbackLink.setType(myFeedbackLink.getType());
+    copy.myFeedbackLink.setLink(myFeedbackLink.getLink());
+    return copy;
+  }
+
   public void setUpdateDate(Date date) {
     myUpdateDate = date;
   }
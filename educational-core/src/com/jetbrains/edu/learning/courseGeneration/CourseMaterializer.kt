@@ -0,0 +1,127 @@
+package com.jetbrains.edu.learning.courseGeneration
+
+import com.intellij.openapi.progress.ProgressIndicator
+import com.intellij.openapi.vfs.VfsUtil
+import com.intellij.openapi.vfs.VirtualFile
+import com.intellij.openapi.vfs.encoding.EncodingRegistry
+import com.jetbrains.edu.coursecreator.CCUtils
+import com.jetbrains.edu.learning.EduUtils
+import com.jetbrains.edu.learning.courseFormat.Course
+import com.jetbrains.edu.learning.courseFormat.Lesson
+import com.jetbrains.edu.learning.courseFormat.Section
+import com.jetbrains.edu.learning.courseFormat.StudyItem
+import com.jetbrains.edu.learning.courseFormat.tasks.Task
+import org.apache.commons.codec.binary.Base64
+import java.io.IOException
+import java.nio.file.Files
+import java.nio.file.InvalidPathException
+import java.nio.file.Path
+import java.nio.file.Paths
+
+/**
+ * Writes all files of a course directly to disk and refreshes VFS once when everything is written.
+ *
+ * [GeneratorUtils.createChildFile] runs a write action on EDT for every file, so generating a large course
+ * file by file means thousands of EDT round trips and VFS events. Course directory must be in local file system,
+ * resulting structure is the same as the one created by [GeneratorUtils.createLesson] and [GeneratorUtils.createSection].
+ */
+internal class CourseMaterializer(
+  private val course: Course,
+  private val baseDir: VirtualFile,
+  private val indicator: ProgressIndicator
+) {
+  // the same charset VfsUtil.saveText uses for newly created files
+  private val charset = EncodingRegistry.getInstance().defaultCharset
+
+  @Throws(IOException::class)
+  fun materialize() {
+    val basePath = toPath(baseDir.path)
+    val items = course.items
+    try {
+      for ((i, item) in items.withIndex()) {
+        indicator.fraction = (i + 1).toDouble() / items.size
+
+        if (item is Lesson) {
+          indicator.text = if (!item.isAdditional) "Generating lesson ${i + 1} from ${items.size}" else "Generating additional files"
+          createLesson(item, basePath)
+        }
+        else if (item is Section) {
+          indicator.text = "Generating section ${i + 1} from ${items.size}"
+          createSection(item, basePath)
+        }
+      }
+    }
+    finally {
+      // files written before a failure should be visible in VFS as well
+      VfsUtil.markDirtyAndRefresh(false, true, true, baseDir)
+    }
+  }
+
+  private fun createSection(section: Section, parentDir: Path) {
+    val sectionDir = createUniqueDir(parentDir, section)
+    for (lesson in section.lessons) {
+      createLesson(lesson, sectionDir)
+    }
+  }
+
+  private fun createLesson(lesson: Lesson, parentDir: Path) {
+    if (lesson.isAdditional) {
+      createFiles(parentDir, GeneratorUtils.additionalFilesToCreate(lesson))
+      return
+    }
+    val lessonDir = createUniqueDir(parentDir, lesson)
+    for (task in GeneratorUtils.tasksToCreate(lesson)) {
+      createTask(task, lessonDir)
+    }
+  }
+
+  private fun createTask(task: Task, lessonDir: Path) {
+    val taskDir = createUniqueDir(lessonDir, task)
+    for (taskFile in task.getTaskFiles().values) {
+      writeFile(taskDir, taskFile.name, taskFile.getText())
+    }
+    createFiles(taskDir, task.testsText)
+    createFiles(taskDir, task.additionalFiles.mapValues { (_, file) -> file.getText() })
+    if (CCUtils.COURSE_MODE == task.course.courseMode) {
+      writeFile(taskDir, GeneratorUtils.descriptionFileName(task), task.descriptionText)
+    }
+  }
+
+  private fun createFiles(dir: Path, texts: Map<String, String>) {
+    for ((name, text) in texts) {
+      if (!Files.exists(resolve(dir, name))) {
+        writeFile(dir, name, text)
+      }
+    }
+  }
+
+  private fun createUniqueDir(parentDir: Path, item: StudyItem): Path {
+    val dirName = GeneratorUtils.uniqueDirName(item) { Files.exists(resolve(parentDir, it)) }
+    return Files.createDirectories(resolve(parentDir, dirName))
+  }
+
+  private fun writeFile(dir: Path, path: String, text: String) {
+    val file = resolve(dir, path)
+    Files.createDirectories(file.parent)
+    val content = if (EduUtils.isImage(path)) Base64.decodeBase64(text) else text.toByteArray(charset)
+    Files.write(file, content)
+  }
+
+  private fun resolve(dir: Path, path: String): Path {
+    try {
+      return dir.resolve(path)
+    }
+    catch (e: InvalidPathException) {
+      throw IOException(e)
+    }
+  }
+
+  private fun toPath(path: String): Path {
+    try {
+      return Paths.get(path)
+    }
+    catch (e: InvalidPathException) {
+      throw IOException(e)
+    }
+  }
+}
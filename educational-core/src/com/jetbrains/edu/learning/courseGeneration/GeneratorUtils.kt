@@ -47,6 +47,12 @@ object GeneratorUtils {
     indicator.isIndeterminate = false
     indicator.fraction = 0.0
 
+    if (baseDir.isInLocalFileSystem) {
+      CourseMaterializer(course, baseDir, indicator).materialize()
+      course.removeAdditionalLesson()
+      return
+    }
+
     val items = course.items
     for ((i, item) in items.withIndex()) {
       indicator.fraction = (i + 1).toDouble() / items.size
@@ -83,20 +89,22 @@ object GeneratorUtils {
       createAdditionalFiles(lesson, courseDir)
     } else {
       val lessonDir = createUniqueDir(courseDir, lesson)
-      val taskList = lesson.getTaskList()
-      val isStudy = lesson.course.isStudy
-      for ((i, task) in taskList.withIndex()) {
-        // We don't want to create task only when:
-        // 1. Course is in student mode. In CC mode we always want to create full course structure
-        // 2. Lesson is framework lesson. For general lessons we create all tasks because their contents are independent (almost)
-        // 3. It's not first task of framework lesson. We create only first task of framework lesson as an entry point of lesson content
-        if (!isStudy || lesson !is FrameworkLesson || i == 0) {
-          createTask(task, lessonDir)
-        }
+      for (task in tasksToCreate(lesson)) {
+        createTask(task, lessonDir)
       }
     }
   }
 
+  internal fun tasksToCreate(lesson: Lesson): List<Task> {
+    val taskList = lesson.getTaskList()
+    val isStudy = lesson.course.isStudy
+    // We don't want to create task only when:
+    // 1. Course is in student mode. In CC mode we always want to create full course structure
+    // 2. Lesson is framework lesson. For general lessons we create all tasks because their contents are independent (almost)
+    // 3. It's not first task of framework lesson. We create only first task of framework lesson as an entry point of lesson content
+    return taskList.filterIndexed { i, _ -> !isStudy || lesson !is FrameworkLesson || i == 0 }
+  }
+
   @Throws(IOException::class)
   @JvmStatic
   fun createTask(task: Task, lessonDir: VirtualFile) {
@@ -126,7 +134,11 @@ object GeneratorUtils {
   @Throws(IOException::class)
   @JvmStatic
   fun createDescriptionFile(taskDir: VirtualFile, task: Task): VirtualFile? {
-    val descriptionFileName = when (task.descriptionFormat) {
+    return createChildFile(taskDir, descriptionFileName(task), task.descriptionText)
+  }
+
+  internal fun descriptionFileName(task: Task): String {
+    return when (task.descriptionFormat) {
       HTML -> EduNames.TASK_HTML
       MD -> EduNames.TASK_MD
       else -> {
@@ -134,7 +146,6 @@ object GeneratorUtils {
         EduNames.TASK_HTML
       }
     }
-    return createChildFile(taskDir, descriptionFileName, task.descriptionText)
   }
 
   @Throws(IOException::class)
@@ -282,10 +293,14 @@ object GeneratorUtils {
    */
   @JvmStatic
   fun getUniqueValidName(parentDir: VirtualFile, name: String): String {
+    return getUniqueValidName(name) { parentDir.findChild(it) != null }
+  }
+
+  private fun getUniqueValidName(name: String, exists: (String) -> Boolean): String {
     val validName = name.convertToValidName()
     var index = 0
     var candidateName = validName
-    while (parentDir.findChild(candidateName) != null) {
+    while (exists(candidateName)) {
       index++
       candidateName = "$validName ($index)"
     }
@@ -298,20 +313,28 @@ object GeneratorUtils {
   }
 
   private fun createUniqueDir(parentDir: VirtualFile, item: StudyItem): VirtualFile {
+    val uniqueDirName = uniqueDirName(item) { parentDir.findChild(it) != null }
+    return runInWriteActionAndWait(ThrowableComputable {
+      VfsUtil.createDirectoryIfMissing(parentDir, uniqueDirName)
+    })
+  }
+
+  /**
+   * Chooses name of directory for the item which doesn't [exist][exists] yet and renames the item accordingly
+   */
+  internal fun uniqueDirName(item: StudyItem, exists: (String) -> Boolean): String {
     val (baseDirName, needUpdateItem) = if (item is Task && item.isFrameworkTask && item.course.isStudy)  {
       item.dirName to false
     } else {
       item.name to true
     }
 
-    val uniqueDirName = getUniqueValidName(parentDir, baseDirName)
+    val uniqueDirName = getUniqueValidName(baseDirName, exists)
     if (uniqueDirName != baseDirName && needUpdateItem) {
       item.customPresentableName = item.name
       item.name = uniqueDirName
     }
-    return runInWriteActionAndWait(ThrowableComputable {
-      VfsUtil.createDirectoryIfMissing(parentDir, uniqueDirName)
-    })
+    return uniqueDirName
   }
 
   @JvmStatic
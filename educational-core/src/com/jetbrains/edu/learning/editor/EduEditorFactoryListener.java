@@ -34,7 +34,6 @@ import org.jetbrains.annotations.NotNull;
 
 import java.awt.*;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 public class EduEditorFactoryListener implements EditorFactoryListener {
@@ -116,12 +115,7 @@ public class EduEditorFactoryListener implements EditorFactoryListener {
     final Editor editor = event.getEditor();
     final Document document = editor.getDocument();
     removeDocumentListener(document);
-    if (myTaskFile != null) {
-      final List<AnswerPlaceholder> placeholders = myTaskFile.getAnswerPlaceholders();
-      for (AnswerPlaceholder placeholder : placeholders) {
-        NewPlaceholderPainter.getPlaceholderPainters().remove(placeholder);
-      }
-    }
+    NewPlaceholderPainter.removePainters(editor);
     editor.getSelectionModel().removeSelection();
   }
 
@@ -0,0 +1,105 @@
+package com.jetbrains.edu.learning.serialization;
+
+import com.jetbrains.edu.learning.courseFormat.Lesson;
+import com.jetbrains.edu.learning.courseFormat.tasks.Task;
+import org.jdom.Element;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.function.BiFunction;
+
+/**
+ * Task list of a lesson which tasks are deserialized from their stored state on the first access to the list.
+ * Loaded tasks are initialized with the lesson as after project opening.
+ */
+public class LazyTaskList extends AbstractList<Task> {
+  private final Lesson myLesson;
+  private final BiFunction<String, Element, Task> myLoader;
+  private Map<String, Element> myStoredTasks;
+  private List<Task> myLoadingTasks;
+  private volatile List<Task> myTasks;
+
+  /**
+   * @param storedTasks serialized tasks by their chunk ids in order of the lesson
+   * @param loader      deserializes a task, returns null if the task can't be deserialized
+   */
+  public LazyTaskList(@NotNull Lesson lesson,
+                      @NotNull Map<String, Element> storedTasks,
+                      @NotNull BiFunction<String, Element, Task> loader) {
+    myLesson = lesson;
+    myStoredTasks = Collections.unmodifiableMap(new LinkedHashMap<>(storedTasks));
+    myLoader = loader;
+  }
+
+  public boolean isLoaded() {
+    return myTasks != null;
+  }
+
+  /**
+   * @return serialized tasks by their chunk ids or null if the tasks are already loaded
+   */
+  @Nullable
+  public synchronized Map<String, Element> getStoredTasks() {
+    return myTasks == null && myLoadingTasks == null ? myStoredTasks : null;
+  }
+
+  @NotNull
+  private List<Task> getTasks() {
+    final List<Task> tasks = myTasks;
+    if (tasks != null) {
+      return tasks;
+    }
+    synchronized (this) {
+      if (myTasks != null) {
+        return myTasks;
+      }
+      if (myLoadingTasks != null) {
+        // initialization of a task may access the list again
+        return myLoadingTasks;
+      }
+      myLoadingTasks = new ArrayList<>();
+      for (Map.Entry<String, Element> storedTask : myStoredTasks.entrySet()) {
+        final Task task = myLoader.apply(storedTask.getKey(), storedTask.getValue());
+        if (task != null) {
+          myLoadingTasks.add(task);
+        }
+      }
+      for (int i = 0; i < myLoadingTasks.size(); i++) {
+        final Task task = myLoadingTasks.get(i);
+        task.setIndex(i + 1);
+        task.init(myLesson.getCourse(), myLesson, true);
+      }
+      myTasks = myLoadingTasks;
+      myStoredTasks = null;
+      return myTasks;
+    }
+  }
+
+  @Override
+  public Task get(int index) {
+    return getTasks().get(index);
+  }
+
+  @Override
+  public int size() {
+    return getTasks().size();
+  }
+
+  @Override
+  public Task set(int index, Task task) {
+    return getTasks().set(index, task);
+  }
+
+  @Override
+  public void add(int index, Task task) {
+    getTasks().add(index, task);
+    modCount++;
+  }
+
+  @Override
+  public Task remove(int index) {
+    modCount++;
+    return getTasks().remove(index);
+  }
+}
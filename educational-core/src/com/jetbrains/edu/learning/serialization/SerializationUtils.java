@@ -18,6 +18,7 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.lang.reflect.Type;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -66,6 +67,12 @@ public class SerializationUtils {
     public static final String LENGTH = "length";
     public static final String ANSWER_PLACEHOLDERS = "answerPlaceholders";
     public static final String TASK_LIST = "taskList";
+    public static final String TASK_CHUNKS = "taskChunks";
+    public static final String LESSON_TASKS = "lessonTasks";
+    public static final String TASKS = "tasks";
+    public static final String COURSE_STATE = "courseState";
+    public static final String TASK_CHUNK = "task";
+    public static final String CHUNK_ID = "chunkId";
     public static final String TASK_FILES = "taskFiles";
     public static final String INITIAL_STATE = "initialState";
     public static final String MY_INITIAL_STATE = "MyInitialState";
@@ -378,12 +385,32 @@ public class SerializationUtils {
       Element courseElement = courseHolder.getChild(COURSE_TITLED);
       if (courseElement == null) {
         courseElement = courseHolder.getChild(REMOTE_COURSE);
-        if (courseElement == null) {
-          throw new StudyUnrecognizedFormatException();
-        }
+      }
+      if (courseElement == null) {
+        courseElement = courseHolder.getChild(CHECKIO_COURSE);
+      }
+      if (courseElement == null) {
+        throw new StudyUnrecognizedFormatException();
       }
       return courseElement;
     }
+
+    /**
+     * @return lesson elements of the course in order of {@link ItemContainer#visitLessons}
+     */
+    @NotNull
+    public static List<Element> getLessonElements(@NotNull Element taskManagerElement) throws StudyUnrecognizedFormatException {
+      final List<Element> lessons = new ArrayList<>();
+      for (Element item : getChildList(getCourseElement(taskManagerElement), ITEMS, true)) {
+        if (SECTION.equals(item.getName())) {
+          lessons.addAll(getChildList(item, ITEMS, true));
+        }
+        else {
+          lessons.add(item);
+        }
+      }
+      return lessons;
+    }
   }
 
   public static class Json {
@@ -422,6 +449,9 @@ public class SerializationUtils {
     }
 
     public static class LessonSectionAdapter implements JsonDeserializer<StudyItem>, JsonSerializer<StudyItem> {
+      // Gson is thread-safe, so it isn't created for each deserialized item
+      private static final Gson DESERIALIZATION_GSON = new GsonBuilder().setPrettyPrinting().excludeFieldsWithoutExposeAnnotation()
+        .registerTypeAdapter(Task.class, new TaskAdapter()).registerTypeAdapter(StudyItem.class, new LessonSectionAdapter()).create();
 
       @Override
       public JsonElement serialize(StudyItem item, Type type, JsonSerializationContext context) {
@@ -442,9 +472,7 @@ public class SerializationUtils {
 
       @Override
       public StudyItem deserialize(JsonElement json, Type type, JsonDeserializationContext jsonDeserializationContext) throws JsonParseException {
-        Gson gson = new GsonBuilder().setPrettyPrinting().excludeFieldsWithoutExposeAnnotation()
-            .registerTypeAdapter(Task.class, new TaskAdapter()).registerTypeAdapter(StudyItem.class, new LessonSectionAdapter()).create();
-        final StudyItem item = deserializeItem(json, gson);
+        final StudyItem item = deserializeItem(json, DESERIALIZATION_GSON);
         final String name = item.getName();
         if (StepikNames.PYCHARM_ADDITIONAL.equals(name)) {
           item.setName(EduNames.ADDITIONAL_MATERIALS);
@@ -469,6 +497,7 @@ public class SerializationUtils {
     }
 
     public static class TaskAdapter implements JsonSerializer<Task>, JsonDeserializer<Task> {
+      private static final Gson DESERIALIZATION_GSON = new GsonBuilder().setPrettyPrinting().excludeFieldsWithoutExposeAnnotation().create();
 
       @Override
       public JsonElement serialize(Task src, Type typeOfSrc, JsonSerializationContext context) {
@@ -478,8 +507,7 @@ public class SerializationUtils {
 
       @Override
       public Task deserialize(JsonElement json, Type typeOfT, JsonDeserializationContext context) throws JsonParseException {
-        Gson gson = new GsonBuilder().setPrettyPrinting().excludeFieldsWithoutExposeAnnotation().create();
-        return doDeserialize(json, gson);
+        return doDeserialize(json, DESERIALIZATION_GSON);
       }
     }
 
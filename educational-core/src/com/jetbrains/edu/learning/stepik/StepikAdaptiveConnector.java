@@ -9,11 +9,14 @@ import com.intellij.lang.LanguageCommenters;
 import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.editor.Editor;
+import com.intellij.openapi.progress.ProcessCanceledException;
 import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.util.concurrency.AppExecutorUtil;
 import com.jetbrains.edu.learning.*;
 import com.jetbrains.edu.learning.checker.CheckResult;
 import com.jetbrains.edu.learning.courseFormat.CheckStatus;
@@ -44,7 +47,7 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.*;
 
 public class StepikAdaptiveConnector {
   public static final String EDU_TOOLS_COMMENT = " Posted from EduTools plugin\n";
@@ -53,7 +56,9 @@ public class StepikAdaptiveConnector {
   public static final int TOO_BORING_RECOMMENDATION_REACTION = -1;
   public static final String LOADING_NEXT_RECOMMENDATION = "Loading Next Recommendation";
   private static final Logger LOG = Logger.getInstance(StepikAdaptiveConnector.class);
+  private static final Gson GSON = new Gson();
   private static final int CONNECTION_TIMEOUT = 60 * 1000;
+  private static final long PROGRESS_CHECK_INTERVAL_MS = 100;
   // Stepik uses some code complexity measure, but we agreed that it's not obvious measure and should be improved
   private static final String CODE_COMPLEXITY_NOTE = "code complexity score";
 
@@ -78,12 +83,13 @@ public class StepikAdaptiveConnector {
       final HttpGet request = new HttpGet(uri);
       setTimeout(request);
 
-      final CloseableHttpResponse response = client.execute(request);
-      final HttpEntity responseEntity = response.getEntity();
-      final String responseString = responseEntity != null ? EntityUtils.toString(responseEntity) : "";
-
-      final int statusCode = response.getStatusLine().getStatusCode();
-      EntityUtils.consume(responseEntity);
+      final String responseString;
+      final int statusCode;
+      try (CloseableHttpResponse response = client.execute(request)) {
+        final HttpEntity responseEntity = response.getEntity();
+        responseString = responseEntity != null ? EntityUtils.toString(responseEntity) : "";
+        statusCode = response.getStatusLine().getStatusCode();
+      }
       if (statusCode == HttpStatus.SC_OK) {
         final Gson gson = new GsonBuilder().setFieldNamingPolicy(FieldNamingPolicy.LOWER_CASE_WITH_UNDERSCORES).create();
         final StepikWrappers.RecommendationWrapper recomWrapper = gson.fromJson(responseString, StepikWrappers.RecommendationWrapper.class);
@@ -160,7 +166,7 @@ public class StepikAdaptiveConnector {
 
   private static StepikWrappers.AdaptiveAttemptWrapper.Attempt createNewAttempt(int id) throws IOException {
     final String response = StepikConnector.postAttempt(id);
-    final StepikWrappers.AdaptiveAttemptContainer attempt = new Gson().fromJson(response, StepikWrappers.AdaptiveAttemptContainer.class);
+    final StepikWrappers.AdaptiveAttemptContainer attempt = GSON.fromJson(response, StepikWrappers.AdaptiveAttemptContainer.class);
     return attempt.attempts.get(0);
   }
 
@@ -196,18 +202,19 @@ public class StepikAdaptiveConnector {
 
   public static boolean postRecommendationReaction(@NotNull String lessonId, @NotNull String user, int reaction) {
     final HttpPost post = new HttpPost(StepikNames.STEPIK_API_URL + StepikNames.RECOMMENDATION_REACTIONS_URL);
-    final String json = new Gson()
+    final String json = GSON
       .toJson(new StepikWrappers.RecommendationReactionWrapper(new StepikWrappers.RecommendationReaction(reaction, user, lessonId)));
     post.setEntity(new StringEntity(json, ContentType.APPLICATION_JSON));
     final CloseableHttpClient client = StepikAuthorizedClient.getHttpClient();
     if (client == null) return false;
     setTimeout(post);
     try {
-      final CloseableHttpResponse execute = client.execute(post);
-      final int statusCode = execute.getStatusLine().getStatusCode();
-      final HttpEntity entity = execute.getEntity();
-      final String entityString = EntityUtils.toString(entity);
-      EntityUtils.consume(entity);
+      final int statusCode;
+      final String entityString;
+      try (CloseableHttpResponse response = client.execute(post)) {
+        statusCode = response.getStatusLine().getStatusCode();
+        entityString = EntityUtils.toString(response.getEntity());
+      }
       if (statusCode == HttpStatus.SC_CREATED) {
         return true;
       }
@@ -437,6 +444,9 @@ public class StepikAdaptiveConnector {
       StepikWrappers.ResultSubmissionWrapper wrapper = postResultsForCheck(client, submission);
       if (wrapper != null) {
         wrapper = getCheckResults(client, wrapper, attemptId, userId);
+        if (wrapper == null || isEvaluating(wrapper)) {
+          return new CheckResult(CheckStatus.Unchecked, "Can't get check results for Stepik");
+        }
         if (wrapper.submissions.length > 0) {
           final String status = wrapper.submissions[0].status;
           final String hint = wrapper.submissions[0].hint;
@@ -462,21 +472,20 @@ public class StepikAdaptiveConnector {
   @Nullable
   private static StepikWrappers.ResultSubmissionWrapper postResultsForCheck(@NotNull final CloseableHttpClient client,
                                                                             @NotNull StepikWrappers.SubmissionToPostWrapper submissionToPostWrapper) {
-    final CloseableHttpResponse response;
     try {
       final HttpPost httpPost = new HttpPost(StepikNames.STEPIK_API_URL + StepikNames.SUBMISSIONS);
       setTimeout(httpPost);
       try {
-        httpPost.setEntity(new StringEntity(new Gson().toJson(submissionToPostWrapper)));
+        httpPost.setEntity(new StringEntity(GSON.toJson(submissionToPostWrapper)));
       }
       catch (UnsupportedEncodingException e) {
         LOG.warn(e.getMessage());
       }
-      response = client.execute(httpPost);
-      final HttpEntity entity = response.getEntity();
-      final String entityString = EntityUtils.toString(entity);
-      EntityUtils.consume(entity);
-      return new Gson().fromJson(entityString, StepikWrappers.ResultSubmissionWrapper.class);
+      final String entityString;
+      try (CloseableHttpResponse response = client.execute(httpPost)) {
+        entityString = EntityUtils.toString(response.getEntity());
+      }
+      return GSON.fromJson(entityString, StepikWrappers.ResultSubmissionWrapper.class);
     }
     catch (IOException e) {
       LOG.warn(e.getMessage());
@@ -484,51 +493,143 @@ public class StepikAdaptiveConnector {
     return null;
   }
 
-  @NotNull
+  @Nullable
   private static StepikWrappers.ResultSubmissionWrapper getCheckResults(@NotNull CloseableHttpClient client,
                                                                         @NotNull StepikWrappers.ResultSubmissionWrapper wrapper,
                                                                         int attemptId,
                                                                         int userId) {
+    if (!isEvaluating(wrapper)) {
+      return wrapper;
+    }
+    final URI submissionURI;
     try {
-      while (wrapper.submissions.length == 1 && wrapper.submissions[0].status.equals("evaluation")) {
-        TimeUnit.MILLISECONDS.sleep(500);
-        final URI submissionURI = new URIBuilder(StepikNames.STEPIK_API_URL + StepikNames.SUBMISSIONS)
-          .addParameter("attempt", String.valueOf(attemptId))
-          .addParameter("order", "desc")
-          .addParameter("user", String.valueOf(userId))
-          .build();
-        final HttpGet httpGet = new HttpGet(submissionURI);
-        setTimeout(httpGet);
-        final CloseableHttpResponse httpResponse = client.execute(httpGet);
+      submissionURI = new URIBuilder(StepikNames.STEPIK_API_URL + StepikNames.SUBMISSIONS)
+        .addParameter("attempt", String.valueOf(attemptId))
+        .addParameter("order", "desc")
+        .addParameter("user", String.valueOf(userId))
+        .build();
+    }
+    catch (URISyntaxException e) {
+      LOG.warn(e.getMessage());
+      return null;
+    }
+
+    final CompletableFuture<StepikWrappers.ResultSubmissionWrapper> results = new CheckResultsPoller(client, submissionURI).start();
+    final ProgressIndicator indicator = ProgressManager.getInstance().getProgressIndicator();
+    try {
+      while (true) {
+        try {
+          return results.get(PROGRESS_CHECK_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        }
+        catch (TimeoutException e) {
+          if (indicator != null && indicator.isCanceled()) {
+            results.cancel(false);
+            throw new ProcessCanceledException();
+          }
+        }
+      }
+    }
+    catch (InterruptedException e) {
+      results.cancel(false);
+      Thread.currentThread().interrupt();
+    }
+    catch (ExecutionException e) {
+      LOG.warn(e.getCause());
+    }
+    return null;
+  }
+
+  private static boolean isEvaluating(@NotNull StepikWrappers.ResultSubmissionWrapper wrapper) {
+    return wrapper.submissions.length == 1 && wrapper.submissions[0].status.equals("evaluation");
+  }
+
+  /**
+   * Polls submission status until it's evaluated, with exponentially growing delays between requests.
+   * Polls are scheduled on the application scheduled executor, so no thread is blocked between them.
+   * Result future is completed with the last received submissions, which are still being evaluated if deadline is reached.
+   */
+  private static class CheckResultsPoller {
+    private static final long INITIAL_DELAY_MS = 300;
+    private static final long MAX_DELAY_MS = 5000;
+    private static final double BACKOFF_FACTOR = 1.5;
+    private static final double JITTER = 0.2;
+    private static final long DEADLINE_MS = TimeUnit.MINUTES.toMillis(2);
+
+    private final CloseableHttpClient myClient;
+    private final URI mySubmissionURI;
+    private final CompletableFuture<StepikWrappers.ResultSubmissionWrapper> myResult = new CompletableFuture<>();
+    private final long myDeadline = System.currentTimeMillis() + DEADLINE_MS;
+    private StepikWrappers.ResultSubmissionWrapper myLastWrapper;
+    private long myDelay = INITIAL_DELAY_MS;
+
+    CheckResultsPoller(@NotNull CloseableHttpClient client, @NotNull URI submissionURI) {
+      myClient = client;
+      mySubmissionURI = submissionURI;
+    }
+
+    CompletableFuture<StepikWrappers.ResultSubmissionWrapper> start() {
+      scheduleNextPoll();
+      return myResult;
+    }
+
+    private void scheduleNextPoll() {
+      final double jitter = 1 + JITTER * (2 * ThreadLocalRandom.current().nextDouble() - 1);
+      AppExecutorUtil.getAppScheduledExecutorService().schedule(this::poll, (long)(myDelay * jitter), TimeUnit.MILLISECONDS);
+      myDelay = Math.min(MAX_DELAY_MS, (long)(myDelay * BACKOFF_FACTOR));
+    }
+
+    private void poll() {
+      if (myResult.isDone()) {
+        return;
+      }
+      final HttpGet httpGet = new HttpGet(mySubmissionURI);
+      setTimeout(httpGet);
+      try (CloseableHttpResponse httpResponse = myClient.execute(httpGet)) {
         final HttpEntity entity = httpResponse.getEntity();
         final String entityString = EntityUtils.toString(entity);
         EntityUtils.consume(entity);
-        wrapper = new Gson().fromJson(entityString, StepikWrappers.ResultSubmissionWrapper.class);
+        myLastWrapper = GSON.fromJson(entityString, StepikWrappers.ResultSubmissionWrapper.class);
+        if (!isEvaluating(myLastWrapper)) {
+          myResult.complete(myLastWrapper);
+          return;
+        }
+      }
+      catch (IOException e) {
+        // connection problems may be temporary, so request is repeated until deadline
+        LOG.warn(e.getMessage());
+      }
+      catch (RuntimeException e) {
+        myResult.completeExceptionally(e);
+        return;
+      }
+
+      if (System.currentTimeMillis() > myDeadline) {
+        myResult.complete(myLastWrapper);
+      }
+      else {
+        scheduleNextPoll();
       }
     }
-    catch (InterruptedException | URISyntaxException | IOException e) {
-      LOG.warn(e.getMessage());
-    }
-    return wrapper;
   }
 
   private static int getAttemptId(@NotNull Task task) throws IOException {
     final StepikWrappers.AdaptiveAttemptWrapper attemptWrapper = new StepikWrappers.AdaptiveAttemptWrapper(task.getStepId());
 
     final HttpPost post = new HttpPost(StepikNames.STEPIK_API_URL + StepikNames.ATTEMPTS);
-    post.setEntity(new StringEntity(new Gson().toJson(attemptWrapper)));
+    post.setEntity(new StringEntity(GSON.toJson(attemptWrapper)));
 
     final CloseableHttpClient client = StepikAuthorizedClient.getHttpClient();
     if (client == null) return -1;
     setTimeout(post);
-    final CloseableHttpResponse httpResponse = client.execute(post);
-    final int statusCode = httpResponse.getStatusLine().getStatusCode();
-    final HttpEntity entity = httpResponse.getEntity();
-    final String entityString = EntityUtils.toString(entity);
-    EntityUtils.consume(entity);
+    final int statusCode;
+    final String entityString;
+    try (CloseableHttpResponse httpResponse = client.execute(post)) {
+      statusCode = httpResponse.getStatusLine().getStatusCode();
+      entityString = EntityUtils.toString(httpResponse.getEntity());
+    }
     if (statusCode == HttpStatus.SC_CREATED) {
       final StepikWrappers.AttemptContainer container =
-        new Gson().fromJson(entityString, StepikWrappers.AttemptContainer.class);
+        GSON.fromJson(entityString, StepikWrappers.AttemptContainer.class);
       return (container.attempts != null && !container.attempts.isEmpty()) ? container.attempts.get(0).id : -1;
     }
     return -1;
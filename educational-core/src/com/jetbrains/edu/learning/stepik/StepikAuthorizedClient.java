@@ -64,7 +64,8 @@ public class StepikAuthorizedClient {
                                     @NotNull final Class<T> container,
                                     @Nullable Map<Key, Object> params) throws IOException {
     final CloseableHttpClient client = getHttpClient();
-    return client == null ? null : StepikClient.getFromStepik(link, container, client, params);
+    final StepicUser user = EduSettings.getInstance().getUser();
+    return client == null || user == null ? null : StepikClient.getFromStepik(link, container, client, params, getCacheScope(user));
   }
 
   /*
@@ -100,13 +101,18 @@ public class StepikAuthorizedClient {
    * This method should be used only in project generation while project is not available.
    */
   public static <T> T getFromStepik(String link, final Class<T> container, @NotNull final StepicUser stepicUser) throws IOException {
-    return StepikClient.getFromStepik(link, container, getHttpClient(stepicUser));
+    return getFromStepik(link, container, stepicUser, null);
   }
 
   public static <T> T getFromStepik(String link, final Class<T> container,
                                     @NotNull final StepicUser stepicUser,
                                     @Nullable Map<Key, Object> params) throws IOException {
-    return StepikClient.getFromStepik(link, container, getHttpClient(stepicUser), params);
+    return StepikClient.getFromStepik(link, container, getHttpClient(stepicUser), params, getCacheScope(stepicUser));
+  }
+
+  @NotNull
+  private static String getCacheScope(@NotNull StepicUser user) {
+    return "user" + user.getId();
   }
 
   @NotNull
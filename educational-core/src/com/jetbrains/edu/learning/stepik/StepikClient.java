@@ -3,12 +3,15 @@ package com.jetbrains.edu.learning.stepik;
 import com.google.gson.FieldNamingPolicy;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
 import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.util.Key;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.util.ObjectUtils;
 import com.intellij.util.PlatformUtils;
+import com.intellij.util.containers.ContainerUtil;
 import com.intellij.util.net.HttpConfigurable;
-import com.intellij.util.net.ssl.CertificateManager;
-import com.intellij.util.net.ssl.ConfirmingTrustManager;
 import com.jetbrains.edu.learning.EduNames;
 import com.jetbrains.edu.learning.EduVersions;
 import com.jetbrains.edu.learning.courseFormat.Lesson;
@@ -22,7 +25,7 @@ import org.apache.http.StatusLine;
 import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
-import org.apache.http.impl.DefaultConnectionReuseStrategy;
+import org.apache.http.entity.ContentType;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.http.impl.client.HttpClients;
@@ -31,23 +34,27 @@ import org.apache.http.util.EntityUtils;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import javax.net.ssl.SSLContext;
-import javax.net.ssl.TrustManager;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.Reader;
 import java.net.InetSocketAddress;
 import java.net.Proxy;
 import java.net.URI;
-import java.security.KeyManagementException;
-import java.security.NoSuchAlgorithmException;
-import java.security.SecureRandom;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class StepikClient {
   private static final Logger LOG = Logger.getInstance(StepikClient.class.getName());
   private static CloseableHttpClient ourClient;
   private static final int TIMEOUT_SECONDS = 10;
+  private static final Map<String, Gson> ourGsons = new ConcurrentHashMap<>();
+  private static final ThreadLocal<RequestGroup> ourRequestGroup = new ThreadLocal<>();
 
   private StepikClient() {
   }
@@ -65,7 +72,7 @@ public class StepikClient {
   }
 
   public static <T> T getFromStepik(String link, final Class<T> container, @Nullable Map<Key, Object> params) throws IOException {
-    return getFromStepik(link, container, getHttpClient(), params);
+    return getFromStepik(link, container, getHttpClient(), params, StepikResponseCache.ANONYMOUS_SCOPE);
   }
 
   static <T> T getFromStepik(String link, final Class<T> container, @NotNull final CloseableHttpClient client) throws IOException {
@@ -76,19 +83,143 @@ public class StepikClient {
                              final Class<T> container,
                              @NotNull final CloseableHttpClient client,
                              @Nullable Map<Key, Object> params) throws IOException {
+    return getFromStepik(link, container, client, params, null);
+  }
+
+  /**
+   * @param cacheScope scope of {@link StepikResponseCache} entries for the request, {@code null} means that response shouldn't be cached
+   */
+  static <T> T getFromStepik(String link,
+                             final Class<T> container,
+                             @NotNull final CloseableHttpClient client,
+                             @Nullable Map<Key, Object> params,
+                             @Nullable String cacheScope) throws IOException {
     if (!link.startsWith("/")) link = "/" + link;
     final HttpGet request = new HttpGet(StepikNames.STEPIK_API_URL + link);
     addTimeout(request);
 
-    final CloseableHttpResponse response = client.execute(request);
-    final StatusLine statusLine = response.getStatusLine();
-    final HttpEntity responseEntity = response.getEntity();
-    final String responseString = responseEntity != null ? EntityUtils.toString(responseEntity) : "";
-    EntityUtils.consume(responseEntity);
-    if (statusLine.getStatusCode() != HttpStatus.SC_OK) {
-      throw new IOException("Stepik returned non 200 status code " + responseString);
+    final StepikResponseCache cache =
+      cacheScope != null && StepikResponseCache.isCacheable(link) ? StepikResponseCache.getInstance() : null;
+    final StepikResponseCache.Entry cachedEntry = cache != null ? cache.get(cacheScope, link) : null;
+    if (cachedEntry != null) {
+      cachedEntry.addConditionalHeaders(request);
+    }
+
+    // entries are open until their bodies are read, so the bodies aren't deleted by concurrent requests
+    StepikResponseCache.Entry storedEntry = null;
+    try {
+      final StepikResponseCache.Entry entry;
+      final RequestGroup group = ourRequestGroup.get();
+      if (group != null) {
+        group.add(request);
+      }
+      try {
+        if (Thread.currentThread().isInterrupted() || request.isAborted()) {
+          throw new InterruptedIOException("Request to " + link + " is cancelled");
+        }
+        final CloseableHttpResponse response = client.execute(request);
+        final StatusLine statusLine = response.getStatusLine();
+        final HttpEntity responseEntity = response.getEntity();
+        try {
+          if (statusLine.getStatusCode() == HttpStatus.SC_NOT_MODIFIED && cachedEntry != null) {
+            entry = cachedEntry;
+          }
+          else if (statusLine.getStatusCode() >= HttpStatus.SC_INTERNAL_SERVER_ERROR && cachedEntry != null) {
+            LOG.warn("Stepik returned " + statusLine.getStatusCode() + " status code for " + link + ", cached response is used");
+            entry = cachedEntry;
+          }
+          else if (statusLine.getStatusCode() != HttpStatus.SC_OK) {
+            final String responseString = responseEntity != null ? EntityUtils.toString(responseEntity) : "";
+            // e.g. removed or inaccessible item, a cached response mustn't be used instead
+            throw new UnexpectedStatusException("Stepik returned non 200 status code " + responseString);
+          }
+          else if (responseEntity == null) {
+            return deserializeStepikResponse(container, "", params);
+          }
+          else {
+            final Charset charset = ObjectUtils.notNull(ContentType.getOrDefault(responseEntity).getCharset(), StandardCharsets.UTF_8);
+            if (cache != null) {
+              entry = storedEntry = cache.put(cacheScope, link, responseEntity.getContent(), response, charset);
+            }
+            else {
+              return deserializeStepikResponse(container, new InputStreamReader(responseEntity.getContent(), charset), params);
+            }
+          }
+        }
+        finally {
+          EntityUtils.consume(responseEntity);
+        }
+      }
+      catch (IOException e) {
+        if (cachedEntry == null || e instanceof InterruptedIOException || e instanceof UnexpectedStatusException) {
+          throw e;
+        }
+        LOG.warn("Failed to get " + link + " from Stepik, cached response is used: " + e.getMessage());
+        return deserializeStepikResponse(container, cachedEntry, params);
+      }
+      finally {
+        if (group != null) {
+          group.remove(request);
+        }
+      }
+      return deserializeStepikResponse(container, entry, params);
+    }
+    finally {
+      if (cachedEntry != null) {
+        cachedEntry.close();
+      }
+      if (storedEntry != null) {
+        storedEntry.close();
+      }
+    }
+  }
+
+  /**
+   * Requests made by the current thread are added to the given group until it's reset with {@code null}
+   */
+  static void setRequestGroup(@Nullable RequestGroup group) {
+    if (group == null) {
+      ourRequestGroup.remove();
+    }
+    else {
+      ourRequestGroup.set(group);
+    }
+  }
+
+  /**
+   * Requests made by one job, e.g. loading of a task solution, which can be aborted from another thread.
+   * Interrupting a thread doesn't stop blocking http request, so the requests are aborted explicitly.
+   */
+  static class RequestGroup {
+    private final Set<HttpGet> myRequests = ContainerUtil.newConcurrentSet();
+    private volatile boolean myIsAborted;
+
+    /**
+     * Aborts running requests of the group, requests which are added later are aborted immediately
+     */
+    void abort() {
+      myIsAborted = true;
+      for (HttpGet request : myRequests) {
+        request.abort();
+      }
+    }
+
+    private void add(@NotNull HttpGet request) {
+      myRequests.add(request);
+      if (myIsAborted) {
+        request.abort();
+      }
+    }
+
+    private void remove(@NotNull HttpGet request) {
+      myRequests.remove(request);
+    }
+  }
+
+  private static class UnexpectedStatusException extends IOException {
+    UnexpectedStatusException(@NotNull String message) {
+      super(message);
     }
-    return deserializeStepikResponse(container, responseString, params);
   }
 
   private static void addTimeout(@NotNull HttpGet request) {
@@ -101,19 +232,42 @@ public class StepikClient {
     request.setConfig(requestConfig);
   }
 
+  private static <T> T deserializeStepikResponse(Class<T> container,
+                                                 @NotNull StepikResponseCache.Entry entry,
+                                                 @Nullable Map<Key, Object> params) throws IOException {
+    try (Reader reader = entry.openReader()) {
+      return deserializeStepikResponse(container, reader, params);
+    }
+  }
+
   static <T> T deserializeStepikResponse(Class<T> container, String responseString, @Nullable Map<Key, Object> params) {
-    Gson gson = createGson(params);
-    return gson.fromJson(responseString, container);
+    return createGson(params).fromJson(responseString, container);
+  }
+
+  /**
+   * Reads response directly from the stream, so the whole response text is never kept in memory
+   */
+  static <T> T deserializeStepikResponse(Class<T> container, @NotNull Reader responseReader, @Nullable Map<Key, Object> params)
+    throws IOException {
+    try {
+      return createGson(params).fromJson(new JsonReader(responseReader), container);
+    }
+    catch (JsonParseException e) {
+      throw new IOException("Failed to parse Stepik response: " + e.getMessage(), e);
+    }
   }
 
+  /**
+   * Gson instances are thread-safe and heavy to create, so they're created once for each course language
+   */
   public static Gson createGson(@Nullable Map<Key, Object> params) {
     String language = StepikConnector.COURSE_LANGUAGE.get(params);
-    return new GsonBuilder()
+    return ourGsons.computeIfAbsent(StringUtil.notNullize(language), key -> new GsonBuilder()
         .registerTypeAdapter(StepikWrappers.StepOptions.class, new StepikStepOptionsAdapter(language))
         .registerTypeAdapter(Lesson.class, new StepikLessonAdapter(language))
         .registerTypeAdapter(StepikWrappers.Reply.class, new StepikReplyAdapter(language))
         .setDateFormat("yyyy-MM-dd'T'HH:mm:ssZ")
-        .setFieldNamingPolicy(FieldNamingPolicy.LOWER_CASE_WITH_UNDERSCORES).create();
+        .setFieldNamingPolicy(FieldNamingPolicy.LOWER_CASE_WITH_UNDERSCORES).create());
   }
 
   private static void initializeClient() {
@@ -123,10 +277,12 @@ public class StepikClient {
     }
   }
 
+  /**
+   * All clients created by the builder share {@link StepikConnectionPool}, so it's cheap to create a client with specific default headers
+   */
   @NotNull
   static HttpClientBuilder getBuilder() {
-    final HttpClientBuilder builder = HttpClients.custom().setSSLContext(CertificateManager.getInstance().getSslContext()).
-      setMaxConnPerRoute(100000).setConnectionReuseStrategy(DefaultConnectionReuseStrategy.INSTANCE).setUserAgent(getUserAgent());
+    final HttpClientBuilder builder = StepikConnectionPool.configure(HttpClients.custom()).setUserAgent(getUserAgent());
 
     final HttpConfigurable proxyConfigurable = HttpConfigurable.getInstance();
     final List<Proxy> proxies = proxyConfigurable.getOnlyBySettingsSelector().select(URI.create(StepikNames.STEPIK_URL));
@@ -134,15 +290,6 @@ public class StepikClient {
     if (address != null) {
       builder.setProxy(new HttpHost(address.getHostName(), address.getPort()));
     }
-    final ConfirmingTrustManager trustManager = CertificateManager.getInstance().getTrustManager();
-    try {
-      SSLContext sslContext = SSLContext.getInstance("TLS");
-      sslContext.init(null, new TrustManager[]{trustManager}, new SecureRandom());
-      builder.setSSLContext(sslContext);
-    }
-    catch (NoSuchAlgorithmException | KeyManagementException e) {
-      LOG.error(e.getMessage());
-    }
     return builder;
   }
 
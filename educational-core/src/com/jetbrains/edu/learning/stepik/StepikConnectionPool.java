@@ -0,0 +1,220 @@
+package com.jetbrains.edu.learning.stepik;
+
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.util.net.ssl.CertificateManager;
+import com.intellij.util.net.ssl.ConfirmingTrustManager;
+import org.apache.http.*;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.entity.HttpEntityWrapper;
+import org.apache.http.impl.DefaultConnectionReuseStrategy;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.client.IdleConnectionEvictor;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.HttpContext;
+import org.jetbrains.annotations.NotNull;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManager;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.KeyManagementException;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Connection pool shared by anonymous and authorized Stepik clients, so all requests to Stepik reuse
+ * keep-alive connections and TLS sessions no matter which client executes them.
+ * Also collects network statistics of Stepik requests, they are logged at debug level when a project is closed.
+ */
+public class StepikConnectionPool {
+  private static final Logger LOG = Logger.getInstance(StepikConnectionPool.class);
+
+  private static final int MAX_CONNECTIONS = 20;
+  // requests are executed in parallel by at most StepikConnector.MAX_PARALLEL_REQUESTS threads
+  static final int MAX_CONNECTIONS_PER_ROUTE = 10;
+  private static final int IDLE_TIMEOUT_SECONDS = 30;
+  private static final int CONNECTION_TTL_MINUTES = 5;
+  private static final int VALIDATE_AFTER_INACTIVITY_MS = 2000;
+  private static final String REQUEST_START_TIME = "edu.stepik.request.start.time";
+  // upper bounds of request latency histogram buckets, the last bucket is for all longer requests
+  static final long[] LATENCY_BUCKETS_MS = {50, 100, 250, 500, 1000, 2500, 5000, 10000};
+
+  private static final AtomicLongArray ourLatencies = new AtomicLongArray(LATENCY_BUCKETS_MS.length + 1);
+  private static final AtomicLong ourBytesSent = new AtomicLong();
+  private static final AtomicLong ourBytesReceived = new AtomicLong();
+  private static final HttpRequestInterceptor REQUEST_METRICS = StepikConnectionPool::beforeRequest;
+  private static final HttpResponseInterceptor RESPONSE_METRICS = StepikConnectionPool::afterResponse;
+
+  private StepikConnectionPool() {
+  }
+
+  /**
+   * Makes clients created by the builder use the shared pool. Closing such client doesn't close the pool.
+   */
+  @NotNull
+  static HttpClientBuilder configure(@NotNull HttpClientBuilder builder) {
+    return builder
+      .setConnectionManager(Holder.CONNECTION_MANAGER)
+      .setConnectionManagerShared(true)
+      .setConnectionReuseStrategy(DefaultConnectionReuseStrategy.INSTANCE)
+      .setKeepAliveStrategy(DefaultConnectionKeepAliveStrategy.INSTANCE)
+      .addInterceptorFirst(REQUEST_METRICS)
+      .addInterceptorLast(RESPONSE_METRICS);
+  }
+
+  /**
+   * Enable debug logging for this class to get the statistics
+   */
+  public static void logStatistics() {
+    if (LOG.isDebugEnabled()) {
+      LOG.debug("Stepik network statistics:\n" + getStatistics());
+    }
+  }
+
+  @NotNull
+  static PoolStats getPoolStats() {
+    return Holder.CONNECTION_MANAGER.getTotalStats();
+  }
+
+  static long getBytesSent() {
+    return ourBytesSent.get();
+  }
+
+  static long getBytesReceived() {
+    return ourBytesReceived.get();
+  }
+
+  /**
+   * @return number of requests in each bucket of {@link #LATENCY_BUCKETS_MS}, the last element is for longer requests
+   */
+  @NotNull
+  static long[] getLatencyHistogram() {
+    long[] histogram = new long[ourLatencies.length()];
+    for (int i = 0; i < histogram.length; i++) {
+      histogram[i] = ourLatencies.get(i);
+    }
+    return histogram;
+  }
+
+  @NotNull
+  static String getStatistics() {
+    PoolStats stats = getPoolStats();
+    StringBuilder result = new StringBuilder()
+      .append("Connections: leased ").append(stats.getLeased())
+      .append(", available ").append(stats.getAvailable())
+      .append(", pending ").append(stats.getPending())
+      .append(", max ").append(stats.getMax())
+      .append("\nBytes: sent ").append(getBytesSent())
+      .append(", received ").append(getBytesReceived())
+      .append("\nLatency:");
+    long[] histogram = getLatencyHistogram();
+    for (int i = 0; i < histogram.length; i++) {
+      String bucket = i < LATENCY_BUCKETS_MS.length ? "<=" + LATENCY_BUCKETS_MS[i] : ">" + LATENCY_BUCKETS_MS[i - 1];
+      result.append(" ").append(bucket).append("ms: ").append(histogram[i]);
+    }
+    return result.toString();
+  }
+
+  static void recordLatency(long latencyMs) {
+    int bucket = 0;
+    while (bucket < LATENCY_BUCKETS_MS.length && latencyMs > LATENCY_BUCKETS_MS[bucket]) {
+      bucket++;
+    }
+    ourLatencies.incrementAndGet(bucket);
+  }
+
+  private static void beforeRequest(@NotNull HttpRequest request, @NotNull HttpContext context) {
+    context.setAttribute(REQUEST_START_TIME, System.nanoTime());
+    if (request instanceof HttpEntityEnclosingRequest) {
+      HttpEntity entity = ((HttpEntityEnclosingRequest)request).getEntity();
+      if (entity != null && entity.getContentLength() > 0) {
+        ourBytesSent.addAndGet(entity.getContentLength());
+      }
+    }
+  }
+
+  private static void afterResponse(@NotNull HttpResponse response, @NotNull HttpContext context) {
+    Object startTime = context.getAttribute(REQUEST_START_TIME);
+    if (startTime instanceof Long) {
+      recordLatency(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - (Long)startTime));
+    }
+    HttpEntity entity = response.getEntity();
+    if (entity != null) {
+      // response body is streamed, so received bytes are counted while it's being read
+      response.setEntity(new CountingEntity(entity));
+    }
+  }
+
+  @NotNull
+  private static PoolingHttpClientConnectionManager createConnectionManager() {
+    Registry<ConnectionSocketFactory> registry = RegistryBuilder.<ConnectionSocketFactory>create()
+      .register("http", PlainConnectionSocketFactory.getSocketFactory())
+      .register("https", new SSLConnectionSocketFactory(createSslContext()))
+      .build();
+    PoolingHttpClientConnectionManager manager =
+      new PoolingHttpClientConnectionManager(registry, null, null, null, CONNECTION_TTL_MINUTES, TimeUnit.MINUTES);
+    manager.setMaxTotal(MAX_CONNECTIONS);
+    manager.setDefaultMaxPerRoute(MAX_CONNECTIONS_PER_ROUTE);
+    // connection could be closed by server while it was idle in the pool
+    manager.setValidateAfterInactivity(VALIDATE_AFTER_INACTIVITY_MS);
+    new IdleConnectionEvictor(manager, IDLE_TIMEOUT_SECONDS, TimeUnit.SECONDS).start();
+    return manager;
+  }
+
+  @NotNull
+  private static SSLContext createSslContext() {
+    final ConfirmingTrustManager trustManager = CertificateManager.getInstance().getTrustManager();
+    try {
+      SSLContext sslContext = SSLContext.getInstance("TLS");
+      sslContext.init(null, new TrustManager[]{trustManager}, new SecureRandom());
+      return sslContext;
+    }
+    catch (NoSuchAlgorithmException | KeyManagementException e) {
+      LOG.error(e.getMessage());
+      return CertificateManager.getInstance().getSslContext();
+    }
+  }
+
+  private static class CountingEntity extends HttpEntityWrapper {
+    CountingEntity(@NotNull HttpEntity wrappedEntity) {
+      super(wrappedEntity);
+    }
+
+    @Override
+    public InputStream getContent() throws IOException {
+      return new FilterInputStream(super.getContent()) {
+        @Override
+        public int read() throws IOException {
+          int result = super.read();
+          if (result != -1) {
+            ourBytesReceived.incrementAndGet();
+          }
+          return result;
+        }
+
+        @Override
+        public int read(@NotNull byte[] b, int off, int len) throws IOException {
+          int result = super.read(b, off, len);
+          if (result > 0) {
+            ourBytesReceived.addAndGet(result);
+          }
+          return result;
+        }
+      };
+    }
+  }
+
+  private static class Holder {
+    private static final PoolingHttpClientConnectionManager CONNECTION_MANAGER = createConnectionManager();
+  }
+}
@@ -36,6 +36,7 @@ import org.apache.http.StatusLine;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpUriRequest;
 import org.apache.http.client.utils.URIBuilder;
 import org.apache.http.entity.ContentType;
 import org.apache.http.entity.StringEntity;
@@ -54,10 +55,7 @@ import java.io.InputStreamReader;
 import java.net.*;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
-import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
+import java.util.concurrent.*;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -79,6 +77,9 @@ public class StepikConnector {
   public static final int MAX_REQUEST_PARAMS = 100; // restriction of Stepik API for multiple requests
   private static final int THREAD_NUMBER = Runtime.getRuntime().availableProcessors();
   private static final ExecutorService EXECUTOR_SERVICE = Executors.newFixedThreadPool(THREAD_NUMBER);
+  // all requests go to the same host, so we limit the number of simultaneous connections to Stepik
+  private static final int MAX_PARALLEL_REQUESTS = 8;
+  private static final ExecutorService REQUESTS_EXECUTOR = Executors.newFixedThreadPool(MAX_PARALLEL_REQUESTS);
 
   public static final Key<String> COURSE_LANGUAGE = Key.create("COURSE_LANGUAGE");
 
@@ -92,9 +93,7 @@ public class StepikConnector {
       final EnrollmentWrapper enrollment = new EnrollmentWrapper(String.valueOf(courseId));
       post.setEntity(new StringEntity(new GsonBuilder().create().toJson(enrollment)));
       final CloseableHttpClient client = StepikAuthorizedClient.getHttpClient(user);
-      CloseableHttpResponse response = client.execute(post);
-      StatusLine line = response.getStatusLine();
-      return line.getStatusCode() == HttpStatus.SC_CREATED;
+      return executeForStatus(client, post) == HttpStatus.SC_CREATED;
     }
     catch (IOException e) {
       LOG.warn(e.getMessage());
@@ -107,9 +106,7 @@ public class StepikConnector {
     HttpGet request = new HttpGet(StepikNames.STEPIK_API_URL + StepikNames.ENROLLMENTS + "/" + courseId);
     try {
       final CloseableHttpClient client = StepikAuthorizedClient.getHttpClient(user);
-      CloseableHttpResponse response = client.execute(request);
-      StatusLine line = response.getStatusLine();
-      return line.getStatusCode() == HttpStatus.SC_OK;
+      return executeForStatus(client, request) == HttpStatus.SC_OK;
     }
     catch (IOException e) {
       LOG.warn(e.getMessage());
@@ -117,6 +114,17 @@ public class StepikConnector {
     return false;
   }
 
+  /**
+   * Executes request which response body isn't needed. Response is always consumed and closed,
+   * otherwise its connection isn't returned to {@link StepikConnectionPool} shared by all Stepik clients.
+   */
+  static int executeForStatus(@NotNull CloseableHttpClient client, @NotNull HttpUriRequest request) throws IOException {
+    try (CloseableHttpResponse response = client.execute(request)) {
+      EntityUtils.consume(response.getEntity());
+      return response.getStatusLine().getStatusCode();
+    }
+  }
+
   @NotNull
   public static List<Course> getCourseInfos(@Nullable StepicUser user) {
     LOG.info("Loading courses started...");
@@ -376,11 +384,19 @@ public class StepikConnector {
   }
 
   public static boolean loadCourseStructure(@Nullable final Project project, @NotNull final RemoteCourse remoteCourse) {
+    return loadCourseStructure(project, remoteCourse, null);
+  }
+
+  /**
+   * @param localCourse previously loaded version of the course, its tasks are reused for lessons not changed on Stepik
+   */
+  public static boolean loadCourseStructure(@Nullable final Project project, @NotNull final RemoteCourse remoteCourse,
+                                            @Nullable final Course localCourse) {
     final List<StudyItem> items = remoteCourse.getItems();
     if (!items.isEmpty()) return true;
     if (!remoteCourse.isAdaptive()) {
       try {
-        fillItems(remoteCourse);
+        fillItems(remoteCourse, localCourse);
         return true;
       }
       catch (IOException e) {
@@ -402,6 +418,16 @@ public class StepikConnector {
   }
 
   public static void fillItems(@NotNull RemoteCourse remoteCourse) throws IOException {
+    fillItems(remoteCourse, null);
+  }
+
+  /**
+   * Loads sections and lessons of the course. Only headers of sections, units and lessons are requested for
+   * lessons which weren't changed since {@code localCourse} was loaded, their tasks are taken from {@code localCourse}.
+   * So step sources are downloaded only for new or changed lessons.
+   */
+  public static void fillItems(@NotNull RemoteCourse remoteCourse, @Nullable Course localCourse) throws IOException {
+    final Map<Integer, Lesson> localLessons = getLessonsById(localCourse);
     try {
       String[] sectionIds = remoteCourse.getSectionIds().stream().map(section -> String.valueOf(section)).toArray(String[]::new);
       List<Section> allSections = getSections(sectionIds);
@@ -417,7 +443,7 @@ public class StepikConnector {
             if (unitIds.length <= 0) {
               return null;
             }
-            final List<Lesson> lessonsFromUnits = getLessonsFromUnits(remoteCourse, unitIds, false);
+            final List<Lesson> lessonsFromUnits = getLessonsFromUnits(remoteCourse, unitIds, false, localLessons);
             final String sectionName = section.getName();
             if (sectionName.equals(StepikNames.PYCHARM_ADDITIONAL)) {
               final Lesson lesson = lessonsFromUnits.get(0);
@@ -458,7 +484,7 @@ public class StepikConnector {
         final String[] unitIds = allSections.stream().map(section -> section.units).flatMap(unitList -> unitList.stream())
           .map(unit -> String.valueOf(unit)).toArray(String[]::new);
         if (unitIds.length > 0) {
-          final List<Lesson> lessons = getLessons(remoteCourse);
+          final List<Lesson> lessons = getLessons(remoteCourse, localLessons);
           remoteCourse.addLessons(lessons);
           remoteCourse.setSectionIds(allSections.stream().map(s -> s.getId()).collect(Collectors.toList()));
           lessons.stream().filter(lesson -> lesson.isAdditional()).forEach(lesson -> remoteCourse.setAdditionalMaterialsUpdateDate(lesson.getUpdateDate()));
@@ -482,11 +508,11 @@ public class StepikConnector {
     return unitContainers.stream().flatMap(container -> container.units.stream()).collect(Collectors.toList());
   }
 
-  private static List<Lesson> getLessons(RemoteCourse remoteCourse) throws IOException {
+  private static List<Lesson> getLessons(RemoteCourse remoteCourse, Map<Integer, Lesson> localLessons) throws IOException {
     try {
       String[] unitIds = getUnitsIds(remoteCourse);
       if (unitIds.length > 0) {
-        return getLessonsFromUnits(remoteCourse, unitIds, true);
+        return getLessonsFromUnits(remoteCourse, unitIds, true, localLessons);
       }
     }
     catch (URISyntaxException e) {
@@ -579,11 +605,34 @@ public class StepikConnector {
 
   @VisibleForTesting
   public static List<Lesson> getLessonsFromUnits(RemoteCourse remoteCourse, String[] unitIds, boolean updateIndicator) throws IOException {
+    return getLessonsFromUnits(remoteCourse, unitIds, updateIndicator, Collections.emptyMap());
+  }
+
+  private static List<Lesson> getLessonsFromUnits(RemoteCourse remoteCourse, String[] unitIds, boolean updateIndicator,
+                                                  Map<Integer, Lesson> localLessons) throws IOException {
     final ProgressIndicator progressIndicator = ProgressManager.getInstance().getProgressIndicator();
     final List<Lesson> lessons = new ArrayList<>();
     try {
       List<Lesson> lessonsFromUnits = getLessons(unitIds);
 
+      // steps of all changed lessons are requested at once instead of a request per lesson
+      final Set<Integer> changedLessonIds = new HashSet<>();
+      final List<String> allStepIds = new ArrayList<>();
+      for (Lesson lesson : lessonsFromUnits) {
+        final Lesson localLesson = localLessons.get(lesson.getId());
+        if (localLesson == null || !isNotChanged(localLesson, lesson)) {
+          changedLessonIds.add(lesson.getId());
+          lesson.steps.forEach(stepId -> allStepIds.add(String.valueOf(stepId)));
+        }
+      }
+      if (progressIndicator != null && updateIndicator) {
+        progressIndicator.setText("Loading steps of " + changedLessonIds.size() + " lessons");
+      }
+      final Map<Integer, List<StepSource>> stepSourcesByLesson = getStepSources(allStepIds.toArray(new String[0]),
+                                                                                remoteCourse.getLanguageID())
+        .stream()
+        .collect(Collectors.groupingBy(stepSource -> stepSource.lesson));
+
       final int lessonCount = lessonsFromUnits.size();
       for (int lessonIndex = 0; lessonIndex < lessonCount; lessonIndex++) {
         Lesson lesson = lessonsFromUnits.get(lessonIndex);
@@ -594,8 +643,19 @@ public class StepikConnector {
           progressIndicator.setText("Loading lesson " + readableIndex + " from " + lessonCount);
           progressIndicator.setFraction((double)readableIndex / lessonCount);
         }
+        if (!changedLessonIds.contains(lesson.getId())) {
+          final Lesson localLesson = localLessons.get(lesson.getId());
+          if (localLesson instanceof FrameworkLesson) {
+            lesson = new FrameworkLesson(lesson);
+          }
+          lesson.taskList.addAll(localLesson.getTaskList());
+          lessons.add(lesson);
+          continue;
+        }
         String[] stepIds = lesson.steps.stream().map(stepId -> String.valueOf(stepId)).toArray(String[]::new);
-        List<StepSource> allStepSources = getStepSources(stepIds, remoteCourse.getLanguageID());
+        // Stepik sorts steps of a multiple request by id, position restores the order of steps in the lesson
+        List<StepSource> allStepSources = new ArrayList<>(stepSourcesByLesson.getOrDefault(lesson.getId(), Collections.emptyList()));
+        allStepSources.sort(Comparator.comparingInt(stepSource -> stepSource.position));
 
         if (!allStepSources.isEmpty()) {
           final StepOptions options = allStepSources.get(0).block.options;
@@ -616,6 +676,34 @@ public class StepikConnector {
     return lessons;
   }
 
+  @NotNull
+  private static Map<Integer, Lesson> getLessonsById(@Nullable Course course) {
+    if (course == null) {
+      return Collections.emptyMap();
+    }
+    final Map<Integer, Lesson> lessons = new HashMap<>();
+    course.visitLessons(lesson -> {
+      if (lesson.getId() != 0) {
+        lessons.put(lesson.getId(), lesson);
+      }
+      return true;
+    });
+    return lessons;
+  }
+
+  /**
+   * Stepik updates lesson update date on lesson changes, so lesson with the same steps which wasn't updated
+   * after the local one was loaded has the same content.
+   */
+  private static boolean isNotChanged(@NotNull Lesson localLesson, @NotNull Lesson lessonFromStepik) {
+    if (localLesson.getUpdateDate() == null || lessonFromStepik.getUpdateDate() == null || lessonFromStepik.steps == null) {
+      return false;
+    }
+    final List<Integer> localSteps = localLesson.getTaskList().stream().map(task -> task.getStepId()).collect(Collectors.toList());
+    return localSteps.equals(lessonFromStepik.steps)
+           && !StepikUpdateDateExt.isSignificantlyAfter(lessonFromStepik.getUpdateDate(), localLesson.getUpdateDate());
+  }
+
   public static List<StepSource> getStepSources(String[] stepIds, String language) throws URISyntaxException, IOException {
     Map<Key, Object> params = Collections.singletonMap(COURSE_LANGUAGE, language);
     List<StepContainer> stepContainers = multipleRequestToStepik(StepikNames.STEPS, stepIds, StepContainer.class, params);
@@ -747,52 +835,60 @@ public class StepikConnector {
     return result;
   }
 
-  @Nullable
-  static Reply getLastSubmission(@NotNull String stepId, boolean isSolved, String language) throws IOException {
+  /**
+   * @param language course language used to migrate submission replies, it should be null for non-edu tasks
+   * @return the latest page of user submissions for the step with given status
+   */
+  @NotNull
+  static Submission[] getSubmissions(@NotNull String stepId, boolean isSolved, @Nullable String language) throws IOException {
     try {
       URI url = new URIBuilder(StepikNames.SUBMISSIONS)
         .addParameter("order", "desc")
         .addParameter("page", "1")
         .addParameter("status", isSolved ? "correct" : "wrong")
         .addParameter("step", stepId).build();
-      Map<Key, Object> params = Collections.singletonMap(COURSE_LANGUAGE, language);
-      Submission[] submissions = getFromStepik(url.toString(), SubmissionsWrapper.class, params).submissions;
-      if (submissions.length > 0) {
-        return submissions[0].reply;
+      Map<Key, Object> params = language == null ? null : Collections.singletonMap(COURSE_LANGUAGE, language);
+      SubmissionsWrapper wrapper = getFromStepik(url.toString(), SubmissionsWrapper.class, params);
+      if (wrapper != null && wrapper.submissions != null) {
+        return wrapper.submissions;
       }
     }
     catch (URISyntaxException e) {
       LOG.warn(e.getMessage());
     }
-    return null;
+    return new Submission[0];
+  }
+
+  @Nullable
+  static Reply getLastSubmission(@NotNull String stepId, boolean isSolved, String language) throws IOException {
+    return getLastSubmission(getSubmissions(stepId, isSolved, language));
+  }
+
+  @Nullable
+  static Reply getLastSubmission(@NotNull Submission[] submissions) {
+    return submissions.length > 0 ? submissions[0].reply : null;
   }
 
   @NotNull
   static HashMap<String, String> getSolutionForStepikAssignment(@NotNull Task task, boolean isSolved) throws IOException {
+    return getSolutionForStepikAssignment(task, getSubmissions(String.valueOf(task.getStepId()), isSolved, null));
+  }
+
+  @NotNull
+  static HashMap<String, String> getSolutionForStepikAssignment(@NotNull Task task, @NotNull Submission[] submissions) {
     HashMap<String, String> taskFileToText = new HashMap<>();
-    try {
-      URI url = new URIBuilder(StepikNames.SUBMISSIONS)
-              .addParameter("order", "desc")
-              .addParameter("page", "1")
-              .addParameter("status", isSolved ? "correct" : "wrong")
-              .addParameter("step", String.valueOf(task.getStepId())).build();
-      Submission[] submissions = getFromStepik(url.toString(), SubmissionsWrapper.class).submissions;
-      Language language = task.getLesson().getCourse().getLanguageById();
-      String stepikLanguage = StepikLanguages.langOfId(language.getID()).getLangName();
-      for (Submission submission : submissions) {
-        Reply reply = submission.reply;
-        if (stepikLanguage != null && stepikLanguage.equals(reply.language)) {
-          Collection<TaskFile> taskFiles = task.getTaskFiles().values();
-          assert taskFiles.size() == 1;
-          for (TaskFile taskFile : taskFiles) {
-            taskFileToText.put(taskFile.getName(), reply.code);
-          }
+    Language language = task.getLesson().getCourse().getLanguageById();
+    String stepikLanguage = StepikLanguages.langOfId(language.getID()).getLangName();
+    for (Submission submission : submissions) {
+      Reply reply = submission.reply;
+      if (stepikLanguage != null && stepikLanguage.equals(reply.language)) {
+        Collection<TaskFile> taskFiles = task.getTaskFiles().values();
+        assert taskFiles.size() == 1;
+        for (TaskFile taskFile : taskFiles) {
+          taskFileToText.put(taskFile.getName(), reply.code);
         }
       }
     }
-    catch (URISyntaxException e) {
-      LOG.warn(e.getMessage());
-    }
 
     return taskFileToText;
   }
@@ -827,7 +923,7 @@ public class StepikConnector {
   private static <T> List<T> multipleRequestToStepik(String apiUrl, String[] ids,
                                                      final Class<T> container,
                                                      @Nullable Map<Key, Object> params) throws URISyntaxException, IOException {
-    List<T> result = new ArrayList<>();
+    List<Callable<T>> requests = new ArrayList<>();
 
     int length = ids.length;
     for (int i = 0; i < length ; i += MAX_REQUEST_PARAMS) {
@@ -837,9 +933,59 @@ public class StepikConnector {
         builder.addParameter("ids[]", id);
       }
       String link = builder.build().toString();
-      result.add(getFromStepik(link, container, params));
+      requests.add(() -> getFromStepik(link, container, params));
     }
 
+    return invokeInOrder(requests);
+  }
+
+  /**
+   * Executes requests concurrently (at most {@link #MAX_PARALLEL_REQUESTS} at a time).
+   * Every response is deserialized by the thread which received it.
+   *
+   * @return results in the same order as requests. Callers (e.g. {@link #sortLessonsByUnits}) rely on this order
+   */
+  @VisibleForTesting
+  static <T> List<T> invokeInOrder(@NotNull List<Callable<T>> requests) throws IOException {
+    if (requests.size() == 1) {
+      try {
+        return Collections.singletonList(requests.get(0).call());
+      }
+      catch (IOException | RuntimeException e) {
+        throw e;
+      }
+      catch (Exception e) {
+        throw new IOException(e);
+      }
+    }
+
+    List<Future<T>> futures = requests.stream().map(REQUESTS_EXECUTOR::submit).collect(Collectors.toList());
+    List<T> result = new ArrayList<>(futures.size());
+    try {
+      for (Future<T> future : futures) {
+        result.add(future.get());
+      }
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException(e);
+    }
+    catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException)cause;
+      }
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException)cause;
+      }
+      throw new IOException(cause);
+    }
+    finally {
+      // there is no need to wait for the rest of the chunks if one of them failed
+      for (Future<T> future : futures) {
+        future.cancel(true);
+      }
+    }
     return result;
   }
 
@@ -1071,9 +1217,9 @@ public class StepikConnector {
 
         CloseableHttpClient httpClient = StepikAuthorizedClient.getHttpClient();
         if (httpClient != null) {
-          final CloseableHttpResponse viewPostResult = httpClient.execute(post);
-          if (viewPostResult.getStatusLine().getStatusCode() != HttpStatus.SC_CREATED) {
-            LOG.warn("Error while Views post, code: " + viewPostResult.getStatusLine().getStatusCode());
+          final int statusCode = executeForStatus(httpClient, post);
+          if (statusCode != HttpStatus.SC_CREATED) {
+            LOG.warn("Error while Views post, code: " + statusCode);
           }
         }
       }
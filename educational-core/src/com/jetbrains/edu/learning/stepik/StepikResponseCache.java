@@ -0,0 +1,329 @@
+package com.jetbrains.edu.learning.stepik;
+
+import com.intellij.openapi.application.PathManager;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.util.io.FileUtil;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.http.Header;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+/**
+ * Disk cache for Stepik GET responses. It's stored in the IDE system directory, so it survives IDE restarts.
+ *
+ * Entries are keyed by request link and user scope (anonymous or user id) because Stepik returns
+ * different data for different users. Cached entries are revalidated with conditional requests
+ * and used as is when Stepik is unavailable.
+ * Least recently used entries are evicted when the cache grows over {@link #MAX_SIZE_BYTES}.
+ *
+ * Every version of a response body is written to a new file, and the meta file of the entry refers to the current one,
+ * so a replaced or evicted body is deleted only when all {@link Entry}s reading it are closed.
+ */
+public class StepikResponseCache {
+  private static final Logger LOG = Logger.getInstance(StepikResponseCache.class);
+
+  public static final String ANONYMOUS_SCOPE = "anonymous";
+  private static final long MAX_SIZE_BYTES = 100 * 1024 * 1024;
+  private static final String CACHE_DIR = "edu" + File.separator + "stepik-cache";
+  private static final String BODY_EXTENSION = ".body";
+  private static final String META_EXTENSION = ".meta";
+  private static final String BODY = "body";
+  private static final String CHARSET = "charset";
+  private static final String ETAG = "etag";
+  private static final String LAST_MODIFIED = "last-modified";
+
+  // only course content is cached, user specific data such as submissions or progresses is always requested from Stepik
+  private static final String[] CACHEABLE_LINKS = {StepikNames.STEPS, StepikNames.LESSONS, StepikNames.UNITS,
+    StepikNames.SECTIONS, StepikNames.COURSES, StepikNames.USERS};
+
+  private final File myCacheDir;
+  private final long myMaxSize;
+  // key hash -> meta of cached response, in access order
+  private final LinkedHashMap<String, Meta> myEntries = new LinkedHashMap<>(16, 0.75f, true);
+  // body file -> number of open entries reading it
+  private final Map<File, Integer> myOpenBodies = new HashMap<>();
+  // bodies which are deleted when their entries are closed
+  private final Set<File> myObsoleteBodies = new HashSet<>();
+  private long myTotalSize;
+  private boolean myIsLoaded;
+
+  StepikResponseCache(@NotNull File cacheDir, long maxSize) {
+    myCacheDir = cacheDir;
+    myMaxSize = maxSize;
+  }
+
+  @NotNull
+  public static StepikResponseCache getInstance() {
+    return Holder.INSTANCE;
+  }
+
+  public static boolean isCacheable(@NotNull String link) {
+    return Arrays.stream(CACHEABLE_LINKS).anyMatch(link::startsWith);
+  }
+
+  /**
+   * @return entry which should be closed after its body is read
+   */
+  @Nullable
+  public synchronized Entry get(@NotNull String scope, @NotNull String link) {
+    ensureLoaded();
+    String key = key(scope, link);
+    Meta meta = myEntries.get(key);
+    if (meta == null) {
+      return null;
+    }
+    // last modification time of a meta file is the time of the last access to the entry
+    //noinspection ResultOfMethodCallIgnored
+    metaFile(key).setLastModified(System.currentTimeMillis());
+    return open(meta);
+  }
+
+  /**
+   * Copies response content to the cache without loading it into memory.
+   *
+   * @return stored entry which should be used to read the response and closed after that
+   */
+  @NotNull
+  public Entry put(@NotNull String scope,
+                   @NotNull String link,
+                   @NotNull InputStream content,
+                   @NotNull HttpResponse response,
+                   @NotNull Charset charset) throws IOException {
+    String key = key(scope, link);
+    synchronized (this) {
+      // unknown files are deleted on load, so the cache is loaded before the new files are created
+      ensureLoaded();
+    }
+    FileUtil.createDirectory(myCacheDir);
+    // body is written to a new file, so the previous body can be read until it's released
+    File body = FileUtil.createTempFile(myCacheDir, key + ".", BODY_EXTENSION, true, false);
+    File tempMeta = FileUtil.createTempFile(myCacheDir, key, ".tmp", true, false);
+    try {
+      try (OutputStream out = new FileOutputStream(body)) {
+        FileUtil.copy(content, out);
+      }
+      Properties properties = new Properties();
+      properties.setProperty("link", link);
+      properties.setProperty("scope", scope);
+      properties.setProperty(BODY, body.getName());
+      properties.setProperty(CHARSET, charset.name());
+      putHeader(properties, ETAG, response.getFirstHeader(HttpHeaders.ETAG));
+      putHeader(properties, LAST_MODIFIED, response.getFirstHeader(HttpHeaders.LAST_MODIFIED));
+      try (Writer writer = new OutputStreamWriter(new FileOutputStream(tempMeta), StandardCharsets.UTF_8)) {
+        properties.store(writer, null);
+      }
+
+      Meta meta = new Meta(body, body.length(), charset, properties.getProperty(ETAG), properties.getProperty(LAST_MODIFIED));
+      synchronized (this) {
+        Files.move(tempMeta.toPath(), metaFile(key).toPath(), StandardCopyOption.REPLACE_EXISTING);
+        Meta oldMeta = myEntries.put(key, meta);
+        myTotalSize += meta.size;
+        if (oldMeta != null) {
+          myTotalSize -= oldMeta.size;
+          deleteBody(oldMeta.body);
+        }
+        Entry entry = open(meta);
+        evictIfNeeded();
+        return entry;
+      }
+    }
+    catch (IOException | RuntimeException e) {
+      FileUtil.delete(body);
+      throw e;
+    }
+    finally {
+      FileUtil.delete(tempMeta);
+    }
+  }
+
+  public synchronized void clear() {
+    for (Meta meta : myEntries.values()) {
+      deleteBody(meta.body);
+    }
+    File[] files = myCacheDir.listFiles();
+    if (files != null) {
+      for (File file : files) {
+        if (!myOpenBodies.containsKey(file)) {
+          FileUtil.delete(file);
+        }
+      }
+    }
+    myEntries.clear();
+    myTotalSize = 0;
+  }
+
+  @NotNull
+  private Entry open(@NotNull Meta meta) {
+    myOpenBodies.merge(meta.body, 1, Integer::sum);
+    return new Entry(this, meta);
+  }
+
+  private synchronized void release(@NotNull File body) {
+    Integer count = myOpenBodies.get(body);
+    if (count == null) return;
+    if (count > 1) {
+      myOpenBodies.put(body, count - 1);
+      return;
+    }
+    myOpenBodies.remove(body);
+    if (myObsoleteBodies.remove(body)) {
+      FileUtil.delete(body);
+    }
+  }
+
+  private void deleteBody(@NotNull File body) {
+    if (myOpenBodies.containsKey(body)) {
+      myObsoleteBodies.add(body);
+    }
+    else {
+      FileUtil.delete(body);
+    }
+  }
+
+  private void evictIfNeeded() {
+    Iterator<Map.Entry<String, Meta>> iterator = myEntries.entrySet().iterator();
+    while (myTotalSize > myMaxSize && iterator.hasNext()) {
+      Map.Entry<String, Meta> eldest = iterator.next();
+      iterator.remove();
+      myTotalSize -= eldest.getValue().size;
+      FileUtil.delete(metaFile(eldest.getKey()));
+      deleteBody(eldest.getValue().body);
+    }
+  }
+
+  private void ensureLoaded() {
+    if (myIsLoaded) return;
+    myIsLoaded = true;
+    File[] metaFiles = myCacheDir.listFiles((dir, name) -> name.endsWith(META_EXTENSION));
+    if (metaFiles == null) return;
+    Arrays.sort(metaFiles, Comparator.comparingLong(File::lastModified));
+    Set<File> bodies = new HashSet<>();
+    for (File metaFile : metaFiles) {
+      Meta meta = readMeta(metaFile);
+      if (meta == null) {
+        FileUtil.delete(metaFile);
+        continue;
+      }
+      myEntries.put(FileUtil.getNameWithoutExtension(metaFile), meta);
+      myTotalSize += meta.size;
+      bodies.add(meta.body);
+    }
+    // bodies of replaced entries and files left by interrupted writes
+    File[] files = myCacheDir.listFiles((dir, name) -> !name.endsWith(META_EXTENSION));
+    if (files != null) {
+      for (File file : files) {
+        if (!bodies.contains(file)) {
+          FileUtil.delete(file);
+        }
+      }
+    }
+    evictIfNeeded();
+  }
+
+  @Nullable
+  private Meta readMeta(@NotNull File metaFile) {
+    Properties properties = new Properties();
+    try (Reader reader = new InputStreamReader(new FileInputStream(metaFile), StandardCharsets.UTF_8)) {
+      properties.load(reader);
+    }
+    catch (IOException e) {
+      LOG.warn("Failed to read cached response meta " + metaFile.getName(), e);
+      return null;
+    }
+    String bodyName = properties.getProperty(BODY);
+    String charsetName = properties.getProperty(CHARSET);
+    // entries written before the body file name and charset were stored are dropped
+    if (bodyName == null || charsetName == null || !Charset.isSupported(charsetName)) {
+      return null;
+    }
+    File body = new File(myCacheDir, bodyName);
+    if (!body.isFile()) {
+      return null;
+    }
+    return new Meta(body, body.length(), Charset.forName(charsetName), properties.getProperty(ETAG), properties.getProperty(LAST_MODIFIED));
+  }
+
+  private static void putHeader(@NotNull Properties meta, @NotNull String name, @Nullable Header header) {
+    if (header != null && header.getValue() != null) {
+      meta.setProperty(name, header.getValue());
+    }
+  }
+
+  @NotNull
+  private static String key(@NotNull String scope, @NotNull String link) {
+    return DigestUtils.md5Hex(scope + "\n" + link);
+  }
+
+  @NotNull
+  private File metaFile(@NotNull String key) {
+    return new File(myCacheDir, key + META_EXTENSION);
+  }
+
+  private static class Meta {
+    final File body;
+    final long size;
+    final Charset charset;
+    final String eTag;
+    final String lastModified;
+
+    Meta(@NotNull File body, long size, @NotNull Charset charset, @Nullable String eTag, @Nullable String lastModified) {
+      this.body = body;
+      this.size = size;
+      this.charset = charset;
+      this.eTag = eTag;
+      this.lastModified = lastModified;
+    }
+  }
+
+  /**
+   * Body of an open entry isn't deleted when the entry is replaced or evicted until the entry is closed
+   */
+  public static class Entry implements Closeable {
+    private final StepikResponseCache myCache;
+    private final Meta myMeta;
+    private boolean myIsClosed;
+
+    private Entry(@NotNull StepikResponseCache cache, @NotNull Meta meta) {
+      myCache = cache;
+      myMeta = meta;
+    }
+
+    @NotNull
+    public Reader openReader() throws IOException {
+      return new BufferedReader(new InputStreamReader(new FileInputStream(myMeta.body), myMeta.charset));
+    }
+
+    public void addConditionalHeaders(@NotNull HttpGet request) {
+      if (myMeta.eTag != null) {
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, myMeta.eTag);
+      }
+      if (myMeta.lastModified != null) {
+        request.addHeader(HttpHeaders.IF_MODIFIED_SINCE, myMeta.lastModified);
+      }
+    }
+
+    @Override
+    public void close() {
+      synchronized (myCache) {
+        if (myIsClosed) return;
+        myIsClosed = true;
+        myCache.release(myMeta.body);
+      }
+    }
+  }
+
+  private static class Holder {
+    private static final StepikResponseCache INSTANCE =
+      new StepikResponseCache(new File(PathManager.getSystemPath(), CACHE_DIR), MAX_SIZE_BYTES);
+  }
+}
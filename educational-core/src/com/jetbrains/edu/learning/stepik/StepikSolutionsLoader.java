@@ -21,7 +21,9 @@ import com.intellij.openapi.project.Project;
 import com.intellij.openapi.vfs.VfsUtil;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.ui.components.JBLoadingPanel;
+import com.intellij.util.concurrency.AppExecutorUtil;
 import com.intellij.util.messages.MessageBusConnection;
+import com.jetbrains.edu.learning.EduSettings;
 import com.jetbrains.edu.learning.EduUtils;
 import com.jetbrains.edu.learning.EduVersions;
 import com.jetbrains.edu.learning.StudyTaskManager;
@@ -40,9 +42,9 @@ import org.jetbrains.annotations.TestOnly;
 
 import java.io.IOException;
 import java.util.*;
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Future;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -57,7 +59,12 @@ public class StepikSolutionsLoader implements Disposable {
                                                      "<a href=\"\">Update plugin</a> to avoid compatibility problems.\n";
 
   private static final Logger LOG = Logger.getInstance(StepikSolutionsLoader.class);
-  private final HashMap<Integer, Future<Boolean>> myFutures = new HashMap<>();
+  private static final long PROGRESS_UPDATE_INTERVAL_MS = 100;
+  private final Map<Integer, Future<Boolean>> myFutures = new ConcurrentHashMap<>();
+  // step id -> job which loads solution of the task
+  private final Map<Integer, SolutionJob> myJobs = new ConcurrentHashMap<>();
+  // the latest submissions loaded during current synchronization, they're shared by task status check and solution loading
+  private final Map<String, StepikWrappers.Submission[]> mySubmissions = new ConcurrentHashMap<>();
   private final Project myProject;
   private MessageBusConnection myBusConnection;
   private Task mySelectedTask;
@@ -131,62 +138,97 @@ public class StepikSolutionsLoader implements Disposable {
   private void updateTasks(@NotNull List<Task> tasks, @Nullable ProgressIndicator progressIndicator) {
     cancelUnfinishedTasks();
     myFutures.clear();
+    myJobs.clear();
 
+    // solution for the task opened in the editor is loaded first, so user doesn't wait for the rest of the course
+    Task selectedTask = mySelectedTask;
     List<Task> tasksToUpdate = tasks.stream()
       .filter(task -> !(task instanceof TheoryTask))
+      .sorted(Comparator.comparing(task -> task != selectedTask))
       .collect(Collectors.toList());
 
-    CountDownLatch countDownLatch = new CountDownLatch(tasksToUpdate.size());
-    for (int i = 0; i < tasksToUpdate.size(); i++) {
-      final Task task = tasksToUpdate.get(i);
-      final int progressIndex = i + 1;
-      if (progressIndicator == null || !progressIndicator.isCanceled()) {
-        Future<Boolean> future = ApplicationManager.getApplication().executeOnPooledThread(() -> {
-          try {
-            boolean isSolved = task.getStatus() == CheckStatus.Solved;
-            if (progressIndicator != null) {
-              progressIndicator.setFraction((double)progressIndex / tasksToUpdate.size());
-              progressIndicator.setText(String.format("Loading solution %d from %d", progressIndex, tasksToUpdate.size()));
-            }
-            return loadSolution(myProject, task, isSolved);
-          }
-          finally {
-            countDownLatch.countDown();
-          }
-        });
-        myFutures.put(task.getStepId(), future);
-      }
-      else {
-        countDownLatch.countDown();
-      }
+    ExecutorService executor = AppExecutorUtil.createBoundedApplicationPoolExecutor("Stepik Solutions Loader",
+                                                                                   EduSettings.getInstance().getSolutionsLoadingParallelism());
+    AtomicInteger loadedCount = new AtomicInteger();
+    CountDownLatch unfinished = new CountDownLatch(tasksToUpdate.size());
+    for (Task task : tasksToUpdate) {
+      SolutionJob job = new SolutionJob(unfinished);
+      myJobs.put(task.getStepId(), job);
+      Future<Boolean> future = executor.submit(() -> {
+        if (!job.start()) {
+          return false;
+        }
+        StepikClient.setRequestGroup(job.myRequests);
+        try {
+          boolean isSolved = task.getStatus() == CheckStatus.Solved;
+          return loadSolution(myProject, task, isSolved);
+        }
+        finally {
+          StepikClient.setRequestGroup(null);
+          loadedCount.incrementAndGet();
+          unfinished.countDown();
+        }
+      });
+      myFutures.put(task.getStepId(), future);
     }
 
     ApplicationManager.getApplication().invokeLater(() -> {
       if (mySelectedTask != null && tasksToUpdate.contains(mySelectedTask)) {
         EduEditor selectedEduEditor = EduUtils.getSelectedEduEditor(myProject);
-        if (selectedEduEditor != null) {
+        Future<Boolean> future = myFutures.get(mySelectedTask.getStepId());
+        if (selectedEduEditor != null && future != null) {
           selectedEduEditor.showLoadingPanel();
-          enableEditorWhenFutureDone(myFutures.get(mySelectedTask.getStepId()));
+          enableEditorWhenFutureDone(future);
         }
       }
     });
 
-    try {
-      countDownLatch.await();
-      final boolean needToShowNotification = needToShowUpdateNotification();
-      ApplicationManager.getApplication().invokeLater(() -> ApplicationManager.getApplication().runWriteAction(() -> {
-        if (needToShowNotification) {
-          new UpdateNotification(NOTIFICATION_TITLE, NOTIFICATION_CONTENT).notify(myProject);
-        }
-        EduUtils.synchronize();
-        if (mySelectedTask != null) {
-          updateUI(myProject, mySelectedTask);
-        }
-      }));
-      myBusConnection.disconnect();
+    waitForSolutions(progressIndicator, unfinished, loadedCount, tasksToUpdate.size());
+    mySubmissions.clear();
+    final StudyTaskManager taskManager = StudyTaskManager.getInstance(myProject);
+    for (Task task : tasksToUpdate) {
+      taskManager.taskChanged(task);
     }
-    catch (InterruptedException e) {
-      LOG.warn(e);
+    final boolean needToShowNotification = needToShowUpdateNotification();
+    ApplicationManager.getApplication().invokeLater(() -> ApplicationManager.getApplication().runWriteAction(() -> {
+      if (needToShowNotification) {
+        new UpdateNotification(NOTIFICATION_TITLE, NOTIFICATION_CONTENT).notify(myProject);
+      }
+      EduUtils.synchronize();
+      if (mySelectedTask != null) {
+        updateUI(myProject, mySelectedTask);
+      }
+    }));
+    myBusConnection.disconnect();
+  }
+
+  /**
+   * Waits until all jobs are finished or cancelled before start, i.e. no solution is being written anymore.
+   * Progress is reported here instead of worker threads, and cancellation of the progress indicator cancels all unfinished tasks.
+   */
+  private void waitForSolutions(@Nullable ProgressIndicator progressIndicator,
+                                @NotNull CountDownLatch unfinished,
+                                @NotNull AtomicInteger loadedCount,
+                                int total) {
+    while (unfinished.getCount() > 0) {
+      if (progressIndicator != null) {
+        if (progressIndicator.isCanceled()) {
+          cancelUnfinishedTasks();
+        }
+        int loaded = loadedCount.get();
+        progressIndicator.setFraction((double)loaded / total);
+        progressIndicator.setText(String.format("Loading solution %d from %d", Math.min(loaded + 1, total), total));
+      }
+      try {
+        //noinspection ResultOfMethodCallIgnored
+        unfinished.await(PROGRESS_UPDATE_INTERVAL_MS, TimeUnit.MILLISECONDS);
+      }
+      catch (InterruptedException e) {
+        LOG.warn(e);
+        cancelUnfinishedTasks();
+        Thread.currentThread().interrupt();
+        return;
+      }
     }
   }
 
@@ -195,7 +237,7 @@ public class StepikSolutionsLoader implements Disposable {
       try {
         Boolean result = future.get();
         return result == Boolean.TRUE;
-      } catch (InterruptedException | ExecutionException e) {
+      } catch (InterruptedException | ExecutionException | CancellationException e) {
         LOG.warn(e);
         return false;
       }
@@ -208,9 +250,43 @@ public class StepikSolutionsLoader implements Disposable {
         future.cancel(true);
       }
     }
+    for (SolutionJob job : myJobs.values()) {
+      job.cancel();
+    }
+  }
+
+  /**
+   * Loading of a task solution. Cancelled job which hasn't started yet is marked as finished right away,
+   * running one is finished by the worker, so {@code unfinished} latch is counted down exactly once.
+   */
+  private static class SolutionJob {
+    private final AtomicBoolean myIsStarted = new AtomicBoolean();
+    private final CountDownLatch myUnfinished;
+    private final StepikClient.RequestGroup myRequests = new StepikClient.RequestGroup();
+
+    SolutionJob(@NotNull CountDownLatch unfinished) {
+      myUnfinished = unfinished;
+    }
+
+    /**
+     * @return false if the job was cancelled and shouldn't be run
+     */
+    boolean start() {
+      return myIsStarted.compareAndSet(false, true);
+    }
+
+    void cancel() {
+      if (myIsStarted.compareAndSet(false, true)) {
+        myUnfinished.countDown();
+      }
+      else {
+        myRequests.abort();
+      }
+    }
   }
 
   public List<Task> tasksToUpdate(@NotNull Course course) {
+    mySubmissions.clear();
     List<Task> tasksToUpdate = new ArrayList<>();
     Stream<Lesson> lessonsFromSection = course.getSections().stream().flatMap(section -> section.getLessons().stream());
     Stream<Lesson> allLessons = Stream.concat(lessonsFromSection, course.getLessons().stream());
@@ -219,12 +295,13 @@ public class StepikSolutionsLoader implements Disposable {
     String[] progresses = Arrays.stream(allTasks).map(task -> PROGRESS_ID_PREFIX + String.valueOf(task.getStepId())).toArray(String[]::new);
     Boolean[] taskStatuses = taskStatuses(progresses);
     if (taskStatuses == null) return tasksToUpdate;
+    prefetchSubmissions(allTasks, taskStatuses);
     for (int j = 0; j < allTasks.length; j++) {
       Boolean isSolved = taskStatuses[j];
       Task task = allTasks[j];
       boolean toUpdate = false;
       if (isSolved != null && !(task instanceof TheoryTask)) {
-        toUpdate = isToUpdate(task, isSolved, task.getStatus(), task.getStepId());
+        toUpdate = isToUpdate(task, isSolved, task.getStatus());
       }
       if (toUpdate) {
         task.setStatus(checkStatus(isSolved));
@@ -234,6 +311,49 @@ public class StepikSolutionsLoader implements Disposable {
     return tasksToUpdate;
   }
 
+  /**
+   * Loads the latest submissions of all tasks which may need them concurrently instead of one request after another.
+   * Loaded submissions are reused both by {@link #isToUpdate} and by {@link #loadSolution}.
+   */
+  private void prefetchSubmissions(@NotNull Task[] tasks, @NotNull Boolean[] taskStatuses) {
+    List<Callable<Void>> requests = new ArrayList<>();
+    for (int i = 0; i < tasks.length; i++) {
+      Boolean isSolved = taskStatuses[i];
+      Task task = tasks[i];
+      if (isSolved == null || task instanceof TheoryTask || isSolved && task.getStatus() == CheckStatus.Solved) {
+        continue;
+      }
+      requests.add(() -> {
+        try {
+          getSubmissions(task, isSolved);
+        }
+        catch (IOException e) {
+          LOG.warn("Failed to load submissions for step " + task.getStepId() + ": " + e.getMessage());
+        }
+        return null;
+      });
+    }
+    try {
+      invokeInOrder(requests);
+    }
+    catch (IOException e) {
+      LOG.warn(e.getMessage());
+    }
+  }
+
+  @NotNull
+  private StepikWrappers.Submission[] getSubmissions(@NotNull Task task, boolean isSolved) throws IOException {
+    // non-edu task replies are deserialized without language, see StepikConnector#getSolutionForStepikAssignment
+    String language = task instanceof EduTask ? task.getCourse().getLanguageID() : null;
+    String key = task.getStepId() + ":" + isSolved + ":" + language;
+    StepikWrappers.Submission[] submissions = mySubmissions.get(key);
+    if (submissions == null) {
+      submissions = StepikConnector.getSubmissions(String.valueOf(task.getStepId()), isSolved, language);
+      mySubmissions.put(key, submissions);
+    }
+    return submissions;
+  }
+
   private static CheckStatus checkStatus(boolean solved) {
     return solved ? CheckStatus.Solved : CheckStatus.Failed;
   }
@@ -264,37 +384,40 @@ public class StepikSolutionsLoader implements Disposable {
     ApplicationManager.getApplication().executeOnPooledThread(() -> {
       try {
         future.get();
-        ApplicationManager.getApplication().invokeLater(() -> {
-          EduEditor selectedEditor = EduUtils.getSelectedEduEditor(myProject);
-          if (selectedEditor != null && mySelectedTask.getTaskFiles().containsKey(selectedEditor.getTaskFile().getName())) {
-            JBLoadingPanel component = selectedEditor.getComponent();
-            component.stopLoading();
-            ((EditorImpl)selectedEditor.getEditor()).setViewer(false);
-            selectedEditor.validateTaskFile();
-          }
-        });
       }
       catch (InterruptedException | ExecutionException e) {
         LOG.warn(e.getCause());
       }
+      catch (CancellationException e) {
+        // editor should be enabled even if solution loading is cancelled
+      }
+      ApplicationManager.getApplication().invokeLater(() -> {
+        EduEditor selectedEditor = EduUtils.getSelectedEduEditor(myProject);
+        if (selectedEditor != null && mySelectedTask.getTaskFiles().containsKey(selectedEditor.getTaskFile().getName())) {
+          JBLoadingPanel component = selectedEditor.getComponent();
+          component.stopLoading();
+          ((EditorImpl)selectedEditor.getEditor()).setViewer(false);
+          selectedEditor.validateTaskFile();
+        }
+      });
     });
   }
 
-  private static boolean isToUpdate(Task task, @NotNull Boolean isSolved, @NotNull CheckStatus currentStatus, int stepId) {
+  private boolean isToUpdate(Task task, @NotNull Boolean isSolved, @NotNull CheckStatus currentStatus) {
     if (isSolved && currentStatus != CheckStatus.Solved) {
       return true;
     }
     else if (!isSolved) {
       try {
+        StepikWrappers.Submission[] submissions = getSubmissions(task, isSolved);
         if (task instanceof EduTask) {
-          String language = task.getCourse().getLanguageID();
-          StepikWrappers.Reply reply = getLastSubmission(String.valueOf(stepId), isSolved, language);
-          if (reply != null && !reply.solution.isEmpty()) {
+          StepikWrappers.Reply reply = getLastSubmission(submissions);
+          if (reply != null && reply.solution != null && !reply.solution.isEmpty()) {
             return true;
           }
         }
         else {
-          HashMap<String, String> solution = getSolutionForStepikAssignment(task, isSolved);
+          HashMap<String, String> solution = getSolutionForStepikAssignment(task, submissions);
           if (!solution.isEmpty()) {
             return true;
           }
@@ -314,6 +437,9 @@ public class StepikSolutionsLoader implements Disposable {
   private boolean loadSolution(@NotNull Project project, @NotNull Task task, boolean isSolved) {
     try {
       TaskSolutions taskSolutions = loadSolutionTexts(task, isSolved);
+      if (Thread.currentThread().isInterrupted()) {
+        return false;
+      }
       if (!taskSolutions.hasIncompatibleSolutions && !taskSolutions.solutions.isEmpty()) {
         updateFiles(project, task, taskSolutions.solutions);
       }
@@ -325,17 +451,20 @@ public class StepikSolutionsLoader implements Disposable {
     }
   }
 
-  private static TaskSolutions loadSolutionTexts(@NotNull Task task, boolean isSolved) throws IOException {
+  private TaskSolutions loadSolutionTexts(@NotNull Task task, boolean isSolved) throws IOException {
+    StepikWrappers.Submission[] submissions = getSubmissions(task, isSolved);
     if (task instanceof EduTask) {
-      return getEduTaskSolution(task, isSolved);
+      return getEduTaskSolution(task, isSolved, getLastSubmission(submissions));
     }
     else {
-      return new TaskSolutions(getStepikTaskSolution(task, isSolved));
+      return new TaskSolutions(getStepikTaskSolution(task, isSolved, submissions));
     }
   }
 
-  private static HashMap<String, String> getStepikTaskSolution(@NotNull Task task, boolean isSolved) throws IOException {
-    HashMap<String, String> solutions = getSolutionForStepikAssignment(task, isSolved);
+  private static HashMap<String, String> getStepikTaskSolution(@NotNull Task task,
+                                                               boolean isSolved,
+                                                               @NotNull StepikWrappers.Submission[] submissions) {
+    HashMap<String, String> solutions = getSolutionForStepikAssignment(task, submissions);
     if (!solutions.isEmpty()) {
       for (Map.Entry<String, String> entry : solutions.entrySet()) {
         String solutionWithoutEduPrefix = removeEduPrefix(task, entry.getValue());
@@ -346,9 +475,8 @@ public class StepikSolutionsLoader implements Disposable {
     return solutions;
   }
 
-  private static TaskSolutions getEduTaskSolution(@NotNull Task task, boolean isSolved) throws IOException {
+  private static TaskSolutions getEduTaskSolution(@NotNull Task task, boolean isSolved, @Nullable StepikWrappers.Reply reply) {
     String language = task.getCourse().getLanguageID();
-    StepikWrappers.Reply reply = getLastSubmission(String.valueOf(task.getStepId()), isSolved, language);
     if (reply == null || reply.solution == null || reply.solution.isEmpty()) {
       // https://youtrack.jetbrains.com/issue/EDU-1449
       if (reply != null && reply.solution == null) {
@@ -35,7 +35,7 @@ fun RemoteCourse.isUpToDate(courseFromStepik: RemoteCourse): Boolean {
   }
 
   if (!isUnitTestMode) {
-    fillItems(courseFromStepik)
+    fillItems(courseFromStepik, this)
   }
 
   if (hasNewOrRemovedSections(courseFromStepik) || hasNewOrRemovedTopLevelLessons(courseFromStepik)) {
@@ -94,7 +94,7 @@ fun Task.isUpToDate(tasksFromServer: Task?): Boolean {
 
 fun RemoteCourse.setUpdated() {
   val courseInfo = getCourseInfo(EduSettings.getInstance().user, id, isCompatible) ?: return
-  fillItems(courseInfo)
+  fillItems(courseInfo, this)
 
   updateDate = courseInfo.updateDate
 
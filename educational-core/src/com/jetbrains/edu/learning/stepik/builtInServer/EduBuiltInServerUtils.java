@@ -44,6 +44,7 @@ import java.io.File;
 import java.io.IOException;
 import java.util.List;
 
+import static com.jetbrains.edu.learning.EduNames.STUDY_COURSE_STATE_PATH;
 import static com.jetbrains.edu.learning.EduNames.STUDY_PROJECT_XML_PATH;
 import static com.jetbrains.edu.learning.EduUtils.execCancelable;
 import static com.jetbrains.edu.learning.EduUtils.navigateToStep;
@@ -124,12 +125,21 @@ public class EduBuiltInServerUtils {
 
   @Nullable
   private static Element readComponent(@NotNull SAXBuilder parser, @NotNull String projectPath) {
+    // course state without tasks is enough to get course id
+    File courseStateXML = new File(projectPath + STUDY_COURSE_STATE_PATH);
+    if (courseStateXML.exists()) {
+      return readComponent(parser, courseStateXML);
+    }
+    return readComponent(parser, new File(projectPath + STUDY_PROJECT_XML_PATH));
+  }
+
+  @Nullable
+  private static Element readComponent(@NotNull SAXBuilder parser, @NotNull File file) {
     Element component = null;
     try {
-      String studyProjectXML = projectPath + STUDY_PROJECT_XML_PATH;
-      Document xmlDoc = parser.build(new File(studyProjectXML));
+      Document xmlDoc = parser.build(file);
       Element root = xmlDoc.getRootElement();
-      component = root.getChild("component");
+      component = root.getName().equals("component") ? root : root.getChild("component");
     }
     catch (JDOMException | IOException ignored) {
     }
@@ -23,8 +23,7 @@ class StepikReplyAdapter(private val language: String?) : JsonDeserializer<Stepi
     val version = jsonObject.getAsJsonPrimitive("version")?.asInt ?: 1
     jsonObject.migrate(version, language)
 
-    val gson = GsonBuilder().setPrettyPrinting().create()
-    return gson.fromJson<StepikWrappers.Reply>(jsonObject).apply {
+    return GSON.fromJson<StepikWrappers.Reply>(jsonObject).apply {
       // We need to save original version of reply object
       // to correct deserialize StepikWrappers.Reply#edu_task
       this.version = version
@@ -32,6 +31,8 @@ class StepikReplyAdapter(private val language: String?) : JsonDeserializer<Stepi
   }
 
   companion object {
+    private val GSON = GsonBuilder().setPrettyPrinting().create()
+
     private fun JsonObject.migrate(version: Int, language: String?) {
       @Suppress("NAME_SHADOWING")
       var version = version
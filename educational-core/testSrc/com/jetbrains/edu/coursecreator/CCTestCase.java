@@ -11,7 +11,6 @@ import com.intellij.openapi.editor.Document;
 import com.intellij.openapi.editor.EditorFactory;
 import com.intellij.openapi.fileEditor.FileDocumentManager;
 import com.intellij.openapi.fileTypes.PlainTextLanguage;
-import com.intellij.openapi.ui.AbstractPainter;
 import com.intellij.openapi.util.Pair;
 import com.intellij.openapi.util.TextRange;
 import com.intellij.openapi.util.io.FileUtil;
@@ -31,43 +30,33 @@ import com.jetbrains.edu.learning.courseFormat.TaskFile;
 import com.jetbrains.edu.learning.courseFormat.tasks.EduTask;
 import com.jetbrains.edu.learning.courseFormat.tasks.Task;
 import org.jetbrains.annotations.NotNull;
-import org.jetbrains.annotations.Nullable;
 import org.junit.ComparisonFailure;
 
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 public abstract class CCTestCase extends LightPlatformCodeInsightFixtureTestCase {
   private static final Logger LOG = Logger.getInstance(CCTestCase.class);
 
-  @Nullable
-  public static AbstractPainter getPainter(AnswerPlaceholder placeholder) {
-    final HashMap<AnswerPlaceholder, AbstractPainter> painters = NewPlaceholderPainter.getPlaceholderPainters();
-    final AbstractPainter painter = painters.get(placeholder);
-    if (painter == null) {
-      for (Map.Entry<AnswerPlaceholder, AbstractPainter> entry : painters.entrySet()) {
-        final AnswerPlaceholder placeholder1 = entry.getKey();
-        if (placeholder1.getOffset() == placeholder.getOffset() &&
-            placeholder1.getLength() == placeholder.getLength()) {
-          return entry.getValue();
-        }
+  public static boolean hasPainter(AnswerPlaceholder placeholder) {
+    for (AnswerPlaceholder paintedPlaceholder : NewPlaceholderPainter.getPaintedPlaceholders()) {
+      if (paintedPlaceholder == placeholder ||
+          paintedPlaceholder.getOffset() == placeholder.getOffset() && paintedPlaceholder.getLength() == placeholder.getLength()) {
+        return true;
       }
     }
-    return painter;
+    return false;
   }
 
   protected static void checkPainters(TaskFile taskFile) {
-    final HashMap<AnswerPlaceholder, AbstractPainter> painters = NewPlaceholderPainter.getPlaceholderPainters();
+    final List<AnswerPlaceholder> paintedPlaceholders = NewPlaceholderPainter.getPaintedPlaceholders();
 
     for (AnswerPlaceholder answerPlaceholder : taskFile.getAnswerPlaceholders()) {
-      final AbstractPainter painter = painters.get(answerPlaceholder);
-      if (painter == null) {
+      if (!paintedPlaceholders.contains(answerPlaceholder)) {
         throw new AssertionError("No highlighter for placeholder: " + CCTestsUtil.getPlaceholderPresentation(answerPlaceholder));
       }
     }
@@ -51,8 +51,8 @@ public class CCShowPreviewTest extends CCTestCase {
       Pair<Document, List<AnswerPlaceholder>> pair = getPlaceholders(name + CCTestsUtil.AFTER_POSTFIX);
       assertEquals("Files don't match", pair.getFirst().getText(), editor.getDocument().getText());
       for (AnswerPlaceholder placeholder : pair.getSecond()) {
-        assertNotNull("No highlighter for placeholder:" + CCTestsUtil.getPlaceholderPresentation(placeholder),
-                      getPainter(placeholder));
+        assertTrue("No highlighter for placeholder:" + CCTestsUtil.getPlaceholderPresentation(placeholder),
+                   hasPainter(placeholder));
       }
     }
     finally {
@@ -0,0 +1,118 @@
+package com.jetbrains.edu.learning
+
+import com.intellij.openapi.util.JDOMUtil
+import com.intellij.util.xmlb.XmlSerializer
+import com.jetbrains.edu.learning.courseFormat.CheckStatus
+import com.jetbrains.edu.learning.courseFormat.Course
+import com.jetbrains.edu.learning.courseFormat.tasks.ChoiceTask
+
+class CourseCopyTest : EduTestCase() {
+
+  fun `test copy is serialized the same way as original`() {
+    val course = createCourseToCopy()
+    val copy = course.copy()
+    assertEquals(serialize(course), serialize(copy))
+  }
+
+  fun `test copy doesn't share mutable state with original`() {
+    val course = createCourseToCopy()
+    val copy = course.copy()
+
+    val task = course.sections[0].lessons[0].taskList[0]
+    val taskCopy = copy.sections[0].lessons[0].taskList[0]
+    assertNotSame(task, taskCopy)
+    assertSame(copy, taskCopy.lesson.course)
+    val taskFile = task.getTaskFile("Task.kt")!!
+    val taskFileCopy = taskCopy.getTaskFile("Task.kt")!!
+    assertSame(taskCopy, taskFileCopy.task)
+    assertSame(taskFile.getText(), taskFileCopy.getText())
+
+    val placeholderCopy = taskFileCopy.answerPlaceholders[0]
+    assertSame(taskFileCopy, placeholderCopy.taskFile)
+    assertSame(placeholderCopy, placeholderCopy.placeholderDependency!!.answerPlaceholder)
+
+    placeholderCopy.offset = 100
+    placeholderCopy.hints.add("new hint")
+    taskCopy.testsText["NewTests.kt"] = ""
+    taskCopy.taskFiles.remove("Util.kt")
+    val choiceTaskCopy = copy.lessons[0].taskList[1] as ChoiceTask
+    choiceTaskCopy.selectedVariants.add(0)
+
+    val placeholder = taskFile.answerPlaceholders[0]
+    assertEquals(0, placeholder.offset)
+    assertEquals(listOf("hint"), placeholder.hints)
+    assertFalse("NewTests.kt" in task.testsText)
+    assertNotNull(task.getTaskFile("Util.kt"))
+    assertEquals(listOf(1), (course.lessons[0].taskList[1] as ChoiceTask).selectedVariants)
+  }
+
+  fun `test copy of course with 500 tasks`() {
+    val course = course {
+      for (lessonIndex in 1..25) {
+        lesson {
+          for (taskIndex in 1..20) {
+            eduTask {
+              taskFile("Task.kt", "fun task$lessonIndex$taskIndex() = <p>TODO()</p>") {
+                placeholder(0, "42")
+              }
+              taskFile("Util.kt", "fun util() = Unit")
+              testFile("Tests.kt", "tests")
+              additionalFile("data.txt", "data")
+            }
+          }
+        }
+      }
+    }
+    course.init(null, null, false)
+
+    val xmlCopy = XmlSerializer.deserialize(XmlSerializer.serialize(course), Course::class.java)
+    xmlCopy.init(null, null, true)
+    val copy = course.copy()
+
+    assertEquals(serialize(xmlCopy), serialize(copy))
+    val lastTask = copy.lessons[24].taskList[19]
+    assertSame(copy.lessons[24], lastTask.lesson)
+    assertSame(lastTask, lastTask.getTaskFile("Task.kt")!!.task)
+  }
+
+  private fun createCourseToCopy(): Course {
+    val course = course {
+      lesson("first") {
+        eduTask("source") {
+          taskFile("Task.kt", "val x = <p>1</p>")
+        }
+        val choiceTask = ChoiceTask("choice")
+        choiceTask.choiceVariants = mutableListOf("a", "b")
+        choiceTask.selectedVariants = mutableListOf(1)
+        choiceTask.isMultipleChoice = true
+        lesson.addTask(choiceTask)
+      }
+      section("section") {
+        lesson("lesson") {
+          eduTask("task") {
+            taskFile("Task.kt", "<p>fun foo()</p> = <p>TODO()</p>") {
+              placeholder(0, "fun bar()", dependency = "first#source#Task.kt#1", hints = listOf("hint"))
+              placeholder(1, "42")
+            }
+            taskFile("Util.kt", "fun util() = Unit", visible = false)
+            testFile("Tests.kt", "tests")
+            additionalFile("data.txt", "data", visible = false)
+          }
+        }
+      }
+      frameworkLesson("framework") {
+        eduTask("first") {
+          taskFile("Task.kt", "fun foo() = 1")
+        }
+        outputTask("second") {
+          taskFile("Task.kt", "fun foo() = 2")
+        }
+      }
+    }
+    course.init(null, null, false)
+    course.lessons[1].taskList[1].status = CheckStatus.Failed
+    return course
+  }
+
+  private fun serialize(course: Course): String = JDOMUtil.writeElement(XmlSerializer.serialize(course))
+}
@@ -8,6 +8,35 @@ import java.io.IOException
 
 class EduDocumentListenerTest : EduTestCase() {
 
+  fun `test type into file with many placeholders`() {
+    val course = courseWithFiles {
+      lesson {
+        eduTask {
+          taskFile("Task.txt", (0 until 1000).joinToString(" ") { "<p>$it</p>" })
+        }
+      }
+    }
+    val task = course.findTask("lesson1", "task1")
+    val taskFile = task.getTaskFile("Task.txt")!!
+    val offsetsBefore = taskFile.answerPlaceholders.map { it.offset }
+
+    task.openTaskFileInEditor("Task.txt", 500)
+    myFixture.type("test")
+
+    val placeholders = taskFile.answerPlaceholders
+    for (i in 0 until 500) {
+      assertEquals(offsetsBefore[i], placeholders[i].offset)
+    }
+    assertEquals(offsetsBefore[500], placeholders[500].offset)
+    assertEquals(4, placeholders[500].length)
+    for (i in 501 until 1000) {
+      assertEquals(offsetsBefore[i] + 1, placeholders[i].offset)
+    }
+    assertSame(placeholders[500], taskFile.getAnswerPlaceholder(offsetsBefore[500] + 2))
+    assertSame(placeholders[700], taskFile.getAnswerPlaceholder(placeholders[700].offset))
+    assertSame(placeholders[699], taskFile.getAnswerPlaceholder(placeholders[700].offset - 1))
+  }
+
   fun testTypeInPlaceholder() {
     val lessonIndex = 1
     val taskIndex = 1
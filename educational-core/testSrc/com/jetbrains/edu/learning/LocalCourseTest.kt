@@ -0,0 +1,70 @@
+package com.jetbrains.edu.learning
+
+import com.intellij.openapi.util.io.FileUtil
+import java.io.File
+import java.io.FileOutputStream
+import java.util.zip.ZipEntry
+import java.util.zip.ZipOutputStream
+
+class LocalCourseTest : EduTestCase() {
+
+  fun `test course loaded from cached json is not affected by previous loads`() {
+    val archive = createArchive("Course")
+
+    val course = EduUtils.getLocalCourse(archive.path)!!
+    course.name = "Modified"
+    course.lessons[0].taskList.clear()
+
+    val loadedAgain = EduUtils.getLocalCourse(archive.path)!!
+    assertNotSame(course, loadedAgain)
+    assertEquals("Course", loadedAgain.name)
+    assertEquals(1, loadedAgain.lessons[0].taskList.size)
+  }
+
+  fun `test course is reloaded after archive change`() {
+    val archive = createArchive("Course")
+    assertEquals("Course", EduUtils.getLocalCourse(archive.path)!!.name)
+
+    writeArchive(archive, "Another Course With Longer Title")
+    assertEquals("Another Course With Longer Title", EduUtils.getLocalCourse(archive.path)!!.name)
+  }
+
+  private fun createArchive(title: String): File {
+    val archive = FileUtil.createTempFile("course", ".zip", true)
+    writeArchive(archive, title)
+    return archive
+  }
+
+  private fun writeArchive(archive: File, title: String) {
+    val courseJson = """
+      {
+        "items": [
+          {
+            "id": 0,
+            "title": "lesson1",
+            "task_list": [
+              {
+                "name": "task1",
+                "stepic_id": 0,
+                "task_files": {},
+                "test_files": {},
+                "description_text": "task",
+                "description_format": "html",
+                "task_type": "edu"
+              }
+            ]
+          }
+        ],
+        "summary": "summary",
+        "title": "$title",
+        "programming_language": "TEXT",
+        "language": "en"
+      }
+    """.trimIndent()
+    ZipOutputStream(FileOutputStream(archive)).use {
+      it.putNextEntry(ZipEntry(EduNames.COURSE_META_FILE))
+      it.write(courseJson.toByteArray(Charsets.UTF_8))
+      it.closeEntry()
+    }
+  }
+}
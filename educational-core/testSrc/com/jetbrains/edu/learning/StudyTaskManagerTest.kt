@@ -0,0 +1,153 @@
+package com.jetbrains.edu.learning
+
+import com.intellij.openapi.command.WriteCommandAction
+import com.intellij.openapi.fileEditor.FileDocumentManager
+import com.intellij.util.xmlb.XmlSerializer
+import com.jetbrains.edu.learning.courseFormat.CheckStatus
+import com.jetbrains.edu.learning.courseFormat.RemoteCourse
+import com.jetbrains.edu.learning.courseFormat.tasks.EduTask
+import com.jetbrains.edu.learning.serialization.LazyTaskList
+import com.jetbrains.edu.learning.serialization.SerializationUtils
+import org.jdom.Element
+
+class StudyTaskManagerTest : EduTestCase() {
+
+  fun `test state modification count is changed by document change`() {
+    courseWithFiles {
+      lesson {
+        eduTask {
+          taskFile("task.txt", "text")
+        }
+      }
+    }
+    val taskManager = StudyTaskManager.getInstance(project)
+    val count = taskManager.stateModificationCount
+    taskManager.state
+    assertEquals(count, taskManager.stateModificationCount)
+
+    val document = FileDocumentManager.getInstance().getDocument(findFile("lesson1/task1/task.txt"))!!
+    WriteCommandAction.runWriteCommandAction(project) { document.insertString(0, "new ") }
+    assertTrue(taskManager.stateModificationCount > count)
+  }
+
+  fun `test only changed tasks are serialized`() {
+    val course = createCourse()
+    val taskManager = StudyTaskManager(null)
+    taskManager.course = course
+    taskManager.state
+
+    val changedTask = course.lessons[3].taskList[7]
+    val notChangedTask = course.lessons[3].taskList[8]
+    changedTask.status = CheckStatus.Failed
+    notChangedTask.status = CheckStatus.Failed
+    taskManager.taskChanged(changedTask)
+    val state = taskManager.state!!
+
+    val chunkIds = lessonChunkIds(state)[3]
+    val tasks = taskStates(state)
+    assertEquals(CheckStatus.Failed, deserializeTask(tasks[chunkIds[7]]!!).status)
+    assertEquals(CheckStatus.Unchecked, deserializeTask(tasks[chunkIds[8]]!!).status)
+  }
+
+  fun `test tasks are split into separate files`() {
+    val taskManager = StudyTaskManager(null)
+    taskManager.course = createCourse()
+    val state = taskManager.state!!
+
+    val fileNames = StudyTaskManager.TaskStateSplitter().splitState(state).map { it.second }
+    assertEquals(501, fileNames.toSet().size)
+    assertEquals(1, fileNames.count { it == "course.xml" })
+    assertTrue(lessonChunkIds(state).flatten().all { "$it.xml" in fileNames })
+  }
+
+  fun `test tasks of a lesson are loaded when the lesson is accessed`() {
+    val taskManager = StudyTaskManager(null)
+    taskManager.course = createCourse()
+    val state = taskManager.state!!
+
+    val loadedTaskManager = StudyTaskManager(null)
+    loadedTaskManager.loadState(state)
+
+    val lessons = loadedTaskManager.course!!.lessons
+    assertTrue(lessons.none { (it.taskList as LazyTaskList).isLoaded })
+    val lastTask = lessons[24].taskList[19]
+    assertTrue((lessons[24].taskList as LazyTaskList).isLoaded)
+    assertFalse((lessons[23].taskList as LazyTaskList).isLoaded)
+    assertEquals(500, lessons.sumBy { it.taskList.size })
+    assertEquals(CheckStatus.Solved, lastTask.status)
+    assertEquals(20, lastTask.index)
+    assertSame(lessons[24], lastTask.lesson)
+    val taskFile = lastTask.getTaskFile("Task.kt")!!
+    assertSame(lastTask, taskFile.task)
+    assertEquals("42", taskFile.answerPlaceholders[0].possibleAnswer)
+  }
+
+  fun `test stored tasks are put back to lessons before conversion`() {
+    val taskManager = StudyTaskManager(null)
+    taskManager.course = createCourse()
+    val state = taskManager.state!!
+
+    val assembledState = StudyTaskManager.assembleTasks(state)
+    val lessons = SerializationUtils.Xml.getLessonElements(assembledState.getChild(SerializationUtils.Xml.MAIN_ELEMENT))
+    assertEquals(25, lessons.size)
+    assertTrue(lessons.all { SerializationUtils.Xml.getChildList(it, SerializationUtils.Xml.TASK_LIST).size == 20 })
+  }
+
+  fun `test course stored in study_project xml is split`() {
+    val legacyState = Element("taskManager")
+    val taskManagerElement = Element(SerializationUtils.Xml.MAIN_ELEMENT)
+    SerializationUtils.Xml.addChildWithName(taskManagerElement, "VERSION", 11)
+    val courseElement = Element(SerializationUtils.Xml.REMOTE_COURSE)
+    XmlSerializer.serializeInto(createCourse(), courseElement)
+    SerializationUtils.Xml.addChildWithName(taskManagerElement, SerializationUtils.COURSE, courseElement)
+    legacyState.addContent(taskManagerElement)
+
+    val taskManager = StudyTaskManager(null)
+    val count = taskManager.stateModificationCount
+    taskManager.loadState(legacyState)
+    assertTrue(taskManager.stateModificationCount > count)
+    assertEquals(CheckStatus.Solved, taskManager.course!!.lessons[24].taskList[19].status)
+    val state = taskManager.state!!
+    assertNotNull(state.getChild(SerializationUtils.Xml.COURSE_STATE))
+    assertEquals(500, taskStates(state).size)
+
+    val loadedTaskManager = StudyTaskManager(null)
+    loadedTaskManager.loadState(state)
+    val lessons = loadedTaskManager.course!!.lessons
+    assertEquals(500, lessons.sumBy { it.taskList.size })
+    assertEquals(CheckStatus.Solved, lessons[24].taskList[19].status)
+  }
+
+  private fun createCourse(): RemoteCourse {
+    val course = course {
+      for (lessonIndex in 1..25) {
+        lesson {
+          for (taskIndex in 1..20) {
+            eduTask {
+              taskFile("Task.kt", "fun task$lessonIndex$taskIndex() = <p>TODO()</p>") {
+                placeholder(0, "42")
+              }
+              testFile("Tests.kt", "tests")
+            }
+          }
+        }
+      }
+    }.asRemote()
+    course.lessons[24].taskList[19].status = CheckStatus.Solved
+    return course
+  }
+
+  private fun lessonChunkIds(state: Element): List<List<String>> {
+    return state.getChild(SerializationUtils.Xml.COURSE_STATE)
+      .getChild(SerializationUtils.Xml.TASK_CHUNKS)
+      .getChildren(SerializationUtils.Xml.LESSON_TASKS)
+      .map { it.getAttributeValue(SerializationUtils.Xml.TASKS).split(" ") }
+  }
+
+  private fun taskStates(state: Element): Map<String, Element> {
+    return state.getChildren(SerializationUtils.Xml.TASK_CHUNK)
+      .associate { it.getAttributeValue(SerializationUtils.Xml.CHUNK_ID) to it.children.single() }
+  }
+
+  private fun deserializeTask(element: Element): EduTask = XmlSerializer.deserialize(element, EduTask::class.java)!!
+}
@@ -0,0 +1,111 @@
+package com.jetbrains.edu.learning.checker
+
+import com.intellij.openapi.application.runWriteAction
+import com.intellij.openapi.vfs.VfsUtil
+import com.jetbrains.edu.learning.EduTestCase
+import com.jetbrains.edu.learning.EduUtils
+import com.jetbrains.edu.learning.courseFormat.CheckStatus
+import com.jetbrains.edu.learning.courseFormat.tasks.Task
+
+class CheckResultCacheTest : EduTestCase() {
+
+  fun `test result is returned for unchanged task`() {
+    courseWithFiles {
+      lesson {
+        eduTask {
+          taskFile("Task.txt", "solution")
+          testFile("Tests.txt", "tests")
+        }
+      }
+    }
+    val task = findTask(0, 0)
+    val cache = CheckResultCache.getInstance(project)
+    cache.putResult(task, hash(task), CheckResult(CheckStatus.Failed, "Wrong answer", true))
+
+    val result = cache.getResult(task, hash(task))!!
+    assertEquals(CheckStatus.Failed, result.status)
+    assertEquals("Wrong answer", result.message)
+  }
+
+  fun `test result is dropped when task file is changed`() {
+    courseWithFiles {
+      lesson {
+        eduTask {
+          taskFile("Task.txt", "solution")
+        }
+      }
+    }
+    val task = findTask(0, 0)
+    val cache = CheckResultCache.getInstance(project)
+    cache.putResult(task, hash(task), CheckResult(CheckStatus.Solved, TestsOutputParser.CONGRATULATIONS, true))
+
+    runWriteAction { VfsUtil.saveText(findFileInTask(0, 0, "Task.txt"), "new solution") }
+    assertNull(cache.getResult(task, hash(task)))
+  }
+
+  fun `test result is dropped when shared course file is changed`() {
+    courseWithFiles {
+      lesson {
+        eduTask {
+          taskFile("Task.txt", "solution")
+        }
+      }
+    }
+    val helper = runWriteAction {
+      EduUtils.getCourseDir(project).createChildData(this, "test_helper.txt").also { VfsUtil.saveText(it, "helper") }
+    }
+    val task = findTask(0, 0)
+    val cache = CheckResultCache.getInstance(project)
+    cache.putResult(task, hash(task), CheckResult(CheckStatus.Solved, TestsOutputParser.CONGRATULATIONS, true))
+    assertNotNull(cache.getResult(task, hash(task)))
+
+    runWriteAction { VfsUtil.saveText(helper, "new helper") }
+    assertNull(cache.getResult(task, hash(task)))
+  }
+
+  fun `test hash depends on checker`() {
+    courseWithFiles {
+      lesson {
+        eduTask {
+          taskFile("Task.txt", "solution")
+        }
+      }
+    }
+    val task = findTask(0, 0)
+    assertFalse(hash(task, "checker1") == hash(task, "checker2"))
+  }
+
+  fun `test unchecked result is not stored`() {
+    courseWithFiles {
+      lesson {
+        eduTask {
+          taskFile("Task.txt", "solution")
+        }
+      }
+    }
+    val task = findTask(0, 0)
+    val cache = CheckResultCache.getInstance(project)
+    cache.putResult(task, hash(task), CheckResult.FAILED_TO_CHECK)
+
+    assertNull(cache.getResult(task, hash(task)))
+  }
+
+  fun `test result of unfinished tests is not stored`() {
+    courseWithFiles {
+      lesson {
+        eduTask {
+          taskFile("Task.txt", "solution")
+        }
+      }
+    }
+    val task = findTask(0, 0)
+    val cache = CheckResultCache.getInstance(project)
+    cache.putResult(task, hash(task), CheckResult(CheckStatus.Solved, TestsOutputParser.CONGRATULATIONS, true))
+    cache.putResult(task, hash(task), CheckResult(CheckStatus.Failed, "Time limit exceeded"))
+
+    assertNull(cache.getResult(task, hash(task)))
+  }
+
+  private fun hash(task: Task, checkerId: String = "checker"): String =
+    CheckResultCache.getInstance(project).computeHash(task, checkerId)!!
+}
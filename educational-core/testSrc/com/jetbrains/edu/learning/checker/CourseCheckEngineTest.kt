@@ -0,0 +1,28 @@
+package com.jetbrains.edu.learning.checker
+
+import com.intellij.openapi.progress.EmptyProgressIndicator
+import com.jetbrains.edu.learning.EduTestCase
+import com.jetbrains.edu.learning.courseFormat.CheckStatus
+
+class CourseCheckEngineTest : EduTestCase() {
+
+  fun `test all tasks are checked`() {
+    val course = courseWithFiles {
+      lesson {
+        eduTask("task1")
+        eduTask("task2")
+      }
+      section {
+        lesson {
+          eduTask("task3")
+        }
+      }
+    }
+
+    val report = CourseCheckEngine(project, 2).checkCourse(course, EmptyProgressIndicator())
+
+    assertEquals(listOf("task1", "task2", "task3"), report.tasks.map { it.task.name })
+    assertEquals(3, report.count(CheckStatus.Solved))
+    assertEquals(0, report.count(CheckStatus.Failed))
+  }
+}
@@ -0,0 +1,45 @@
+package com.jetbrains.edu.learning.checker
+
+import com.intellij.execution.process.NopProcessHandler
+import com.intellij.execution.process.ProcessOutputTypes
+import com.jetbrains.edu.learning.EduTestCase
+import com.jetbrains.edu.learning.checker.CheckUtils.STUDY_PREFIX
+
+class StreamingOutputCollectorTest : EduTestCase() {
+
+  fun `test study lines are kept when output is truncated`() {
+    val noise = "x".repeat(100) + "\n"
+    val handler = FakeProcessHandler(listOf("$STUDY_PREFIX first\n") + List(10000) { noise } + "$STUDY_PREFIX second\n")
+    val collector = StreamingOutputCollector()
+
+    val output = collector.run(handler)
+
+    val studyLines = output.stdoutLines.filter { it.startsWith(STUDY_PREFIX) }
+    assertEquals(listOf("$STUDY_PREFIX first", "$STUDY_PREFIX second"), studyLines)
+    assertTrue(output.stdout.length < noise.length * 10000 / 2)
+    assertNull(collector.getLimitMessage())
+  }
+
+  fun `test process is stopped when output limit is exceeded`() {
+    val handler = FakeProcessHandler(List(10) { "x".repeat(20) })
+    val collector = StreamingOutputCollector(100, StreamingOutputCollector.TIME_LIMIT_MS)
+
+    collector.run(handler)
+
+    assertTrue(collector.isOutputLimitExceeded)
+    assertNotNull(collector.getLimitMessage())
+  }
+
+  private class FakeProcessHandler(private val output: List<String>) : NopProcessHandler() {
+    override fun startNotify() {
+      super.startNotify()
+      for (text in output) {
+        if (isProcessTerminated) break
+        notifyTextAvailable(text, ProcessOutputTypes.STDOUT)
+      }
+      if (!isProcessTerminated) {
+        destroyProcess()
+      }
+    }
+  }
+}
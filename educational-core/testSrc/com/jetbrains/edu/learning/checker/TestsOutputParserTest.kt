@@ -0,0 +1,59 @@
+package com.jetbrains.edu.learning.checker
+
+import com.intellij.execution.process.NopProcessHandler
+import com.intellij.execution.process.ProcessEvent
+import com.intellij.execution.process.ProcessOutputTypes
+import com.jetbrains.edu.learning.EduTestCase
+import com.jetbrains.edu.learning.checker.CheckUtils.STUDY_PREFIX
+import com.jetbrains.edu.learning.checker.TestsOutputParser.TestEvent
+import com.jetbrains.edu.learning.checker.TestsOutputParser.TestsOutputListener
+
+class TestsOutputParserTest : EduTestCase() {
+
+  fun `test results are reported per test`() {
+    val events = mutableListOf<TestEvent>()
+    val listener = TestsOutputListener(false) { events += it }
+    listener.processLine("$STUDY_PREFIX ${TestsOutputParser.TEST_OK}")
+    listener.processLine("$STUDY_PREFIX ${TestsOutputParser.TEST_OK}")
+    assertEquals(2, events.filterIsInstance<TestEvent.Passed>().size)
+
+    listener.processLine("$STUDY_PREFIX ${TestsOutputParser.CONGRATS_MESSAGE}Well done")
+    val output = listener.getTestsOutput()
+    assertTrue(output.isSuccess)
+    assertEquals("Well done", output.message)
+  }
+
+  fun `test parsing stops after first failure`() {
+    val events = mutableListOf<TestEvent>()
+    val listener = TestsOutputListener(false) { events += it }
+    listener.processLine("$STUDY_PREFIX ${TestsOutputParser.TEST_FAILED}first")
+    listener.processLine("$STUDY_PREFIX ${TestsOutputParser.TEST_FAILED}second")
+
+    assertEquals(1, events.size)
+    assertEquals("first", (events[0] as TestEvent.Failed).message)
+    val output = listener.getTestsOutput()
+    assertFalse(output.isSuccess)
+    assertEquals("first", output.message)
+  }
+
+  fun `test adaptive failure message is collected`() {
+    val listener = TestsOutputListener(true)
+    listener.processLine("$STUDY_PREFIX ${TestsOutputParser.TEST_FAILED}first")
+    listener.processLine("$STUDY_PREFIX details")
+    listener.processLine("$STUDY_PREFIX ${TestsOutputParser.CONGRATS_MESSAGE}")
+    listener.processLine("$STUDY_PREFIX ignored")
+
+    assertEquals("first\n$STUDY_PREFIX details\n", listener.getTestsOutput().message)
+  }
+
+  fun `test output split into chunks`() {
+    val events = mutableListOf<TestEvent>()
+    val listener = TestsOutputListener(false) { events += it }
+    val handler = NopProcessHandler()
+    val line = "$STUDY_PREFIX ${TestsOutputParser.TEST_OK}\n"
+    listener.onTextAvailable(ProcessEvent(handler, line.substring(0, 5)), ProcessOutputTypes.STDOUT)
+    assertTrue(events.isEmpty())
+    listener.onTextAvailable(ProcessEvent(handler, line.substring(5) + line), ProcessOutputTypes.STDOUT)
+    assertEquals(2, events.size)
+  }
+}
@@ -0,0 +1,86 @@
+package com.jetbrains.edu.learning.checker.gradle
+
+import com.intellij.execution.process.ProcessAdapter
+import com.intellij.execution.process.ProcessEvent
+import com.intellij.execution.process.ProcessOutputTypes
+import com.intellij.openapi.util.Key
+import com.jetbrains.edu.learning.EduTestCase
+import com.jetbrains.edu.learning.checker.CheckUtils.STUDY_PREFIX
+import com.jetbrains.edu.learning.checker.StreamingOutputCollector
+import java.nio.charset.Charset
+
+class GradleCheckRunnerTest : EduTestCase() {
+
+  fun `test test filter follows the task`() {
+    val arguments = GradleCheckRunner.buildArguments(":lesson1-task1:test", listOf(TESTS_ARG, "Tests.testSolution"))
+    assertEquals(listOf(":lesson1-task1:test", TESTS_ARG, "Tests.testSolution"), arguments)
+  }
+
+  fun `test build output is passed by lines`() {
+    val handler = GradleBuildProcessHandler({}) { handler ->
+      val stream = handler.standardOutput
+      stream.write("$STUDY_PREFIX fir".toByteArray())
+      stream.write("st\nsec".toByteArray())
+      stream.write("ond\n".toByteArray())
+      handler.buildFinished(0)
+    }
+
+    val output = StreamingOutputCollector().run(handler)
+
+    assertEquals(0, output.exitCode)
+    assertTrue(output.stdoutLines.contains("$STUDY_PREFIX first"))
+    assertTrue(output.stdoutLines.contains("second"))
+  }
+
+  fun `test multibyte chars of long line are not split`() {
+    val text = "x" + "\u0436".repeat(5000) + "\n"
+    val output = StringBuilder()
+    val handler = GradleBuildProcessHandler({}) { handler ->
+      handler.standardOutput.write(text.toByteArray(Charset.defaultCharset()))
+      handler.buildFinished(0)
+    }
+    handler.addProcessListener(object : ProcessAdapter() {
+      override fun onTextAvailable(event: ProcessEvent, outputType: Key<*>) {
+        if (outputType == ProcessOutputTypes.STDOUT) {
+          output.append(event.text)
+        }
+      }
+    })
+
+    handler.startNotify()
+
+    assertEquals(text, output.toString())
+  }
+
+  fun `test build is cancelled when time limit is exceeded`() {
+    var isCancelled = false
+    var buildHandler: GradleBuildProcessHandler? = null
+    val handler = GradleBuildProcessHandler({
+      isCancelled = true
+      buildHandler!!.buildFinished(1)
+    }) { buildHandler = it }
+    val collector = StreamingOutputCollector(StreamingOutputCollector.OUTPUT_LIMIT, 100)
+
+    collector.run(handler)
+
+    assertTrue(isCancelled)
+    assertTrue(collector.isTimeLimitExceeded)
+  }
+
+  fun `test build is cancelled when output limit is exceeded`() {
+    var isCancelled = false
+    val handler = GradleBuildProcessHandler({ isCancelled = true }) { handler ->
+      for (i in 1..10) {
+        handler.standardOutput.write("x".repeat(20).toByteArray())
+        handler.standardOutput.write('\n'.toInt())
+      }
+      handler.buildFinished(1)
+    }
+    val collector = StreamingOutputCollector(100, StreamingOutputCollector.TIME_LIMIT_MS)
+
+    collector.run(handler)
+
+    assertTrue(isCancelled)
+    assertTrue(collector.isOutputLimitExceeded)
+  }
+}
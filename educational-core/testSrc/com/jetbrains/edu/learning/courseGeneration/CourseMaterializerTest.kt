@@ -0,0 +1,102 @@
+package com.jetbrains.edu.learning.courseGeneration
+
+import com.intellij.openapi.progress.EmptyProgressIndicator
+import com.intellij.openapi.util.io.FileUtil
+import com.intellij.openapi.vfs.LocalFileSystem
+import com.intellij.openapi.vfs.VfsUtilCore
+import com.intellij.openapi.vfs.VirtualFile
+import com.intellij.openapi.vfs.newvfs.impl.VfsRootAccess
+import com.jetbrains.edu.coursecreator.CCUtils
+import com.jetbrains.edu.learning.EduTestCase
+import com.jetbrains.edu.learning.course
+import org.apache.commons.codec.binary.Base64
+import java.io.File
+
+class CourseMaterializerTest : EduTestCase() {
+  private lateinit var ioDir: File
+  private lateinit var baseDir: VirtualFile
+
+  override fun setUp() {
+    super.setUp()
+    ioDir = FileUtil.createTempDirectory("course", null)
+    VfsRootAccess.allowRootAccess(ioDir.absolutePath)
+    baseDir = LocalFileSystem.getInstance().refreshAndFindFileByIoFile(ioDir) ?: error("Can't find $ioDir")
+  }
+
+  override fun tearDown() {
+    try {
+      VfsRootAccess.disallowRootAccess(ioDir.absolutePath)
+      FileUtil.delete(ioDir)
+    }
+    finally {
+      super.tearDown()
+    }
+  }
+
+  fun `test course structure in local file system`() {
+    val image = byteArrayOf(1, 2, 3)
+    val course = course(courseMode = CCUtils.COURSE_MODE) {
+      section {
+        lesson {
+          eduTask {
+            taskFile("Fizz.kt", "fun fizz() = <p>TODO()</p>") {
+              placeholder(0, "\"Fizz\"")
+            }
+            taskFile("Text.txt", "Grüße, мир")
+            testFile("tests/Tests.kt", "tests")
+            additionalFile("image.png", Base64.encodeBase64String(image))
+          }
+        }
+      }
+      lesson("lesson/name") {
+        eduTask("task")
+        eduTask("task")
+      }
+    }
+    course.init(null, null, false)
+
+    GeneratorUtils.createCourse(course, baseDir, EmptyProgressIndicator())
+
+    assertEquals("fun fizz() = TODO()", VfsUtilCore.loadText(findFile("section1/lesson1/task1/Fizz.kt")))
+    assertEquals("Grüße, мир", VfsUtilCore.loadText(findFile("section1/lesson1/task1/Text.txt")))
+    assertEquals("tests", VfsUtilCore.loadText(findFile("section1/lesson1/task1/tests/Tests.kt")))
+    assertTrue(findFile("section1/lesson1/task1/image.png").contentsToByteArray().contentEquals(image))
+    assertNotNull(findFile("section1/lesson1/task1/task.html"))
+    assertNotNull(findFile("lesson name/task/task.html"))
+    assertNotNull(findFile("lesson name/task (1)/task.html"))
+    assertEquals("task (1)", course.lessons[0].taskList[1].name)
+  }
+
+  fun `test generation of course with 5000 files`() {
+    val course = course {
+      for (lessonIndex in 1..50) {
+        lesson {
+          for (taskIndex in 1..20) {
+            eduTask {
+              taskFile("Task.kt", "fun task$lessonIndex$taskIndex() = Unit")
+              taskFile("Util.kt", "fun util() = Unit")
+              testFile("Tests.kt", "tests")
+              testFile("TestsUtil.kt", "utils")
+              additionalFile("data.txt", "data")
+            }
+          }
+        }
+      }
+    }
+    course.init(null, null, false)
+
+    GeneratorUtils.createCourse(course, baseDir, EmptyProgressIndicator())
+
+    var filesCount = 0
+    VfsUtilCore.iterateChildrenRecursively(baseDir, null) { file ->
+      if (!file.isDirectory) filesCount++
+      true
+    }
+    assertEquals(5000, filesCount)
+    assertEquals(50, baseDir.children.size)
+    assertEquals("data", VfsUtilCore.loadText(findFile("lesson1/task1/data.txt")))
+    assertEquals("fun task5020() = Unit", VfsUtilCore.loadText(findFile("lesson50/task20/Task.kt")))
+  }
+
+  private fun findFile(path: String): VirtualFile = baseDir.findFileByRelativePath(path) ?: error("Can't find $path")
+}
@@ -0,0 +1,51 @@
+package com.jetbrains.edu.learning.stepik
+
+import com.jetbrains.edu.learning.EduTestCase
+import com.sun.net.httpserver.HttpServer
+import org.apache.http.HttpStatus
+import org.apache.http.client.config.RequestConfig
+import org.apache.http.client.methods.HttpPost
+import org.apache.http.impl.client.HttpClientBuilder
+import java.net.InetAddress
+import java.net.InetSocketAddress
+
+class StepikConnectionPoolTest : EduTestCase() {
+
+  fun `test latency is recorded to matching bucket`() {
+    val before = StepikConnectionPool.getLatencyHistogram()
+
+    StepikConnectionPool.recordLatency(0)
+    StepikConnectionPool.recordLatency(StepikConnectionPool.LATENCY_BUCKETS_MS[0])
+    StepikConnectionPool.recordLatency(StepikConnectionPool.LATENCY_BUCKETS_MS[0] + 1)
+    StepikConnectionPool.recordLatency(StepikConnectionPool.LATENCY_BUCKETS_MS.last() + 1)
+
+    val after = StepikConnectionPool.getLatencyHistogram()
+    assertEquals(2L, after[0] - before[0])
+    assertEquals(1L, after[1] - before[1])
+    assertEquals(1L, after.last() - before.last())
+  }
+
+  fun `test connections are returned to pool after requests for status`() {
+    val server = HttpServer.create(InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0)
+    server.createContext("/") { exchange ->
+      val body = "{}".toByteArray()
+      exchange.sendResponseHeaders(HttpStatus.SC_CREATED, body.size.toLong())
+      exchange.responseBody.use { it.write(body) }
+    }
+    server.start()
+    try {
+      // leaked connection would make a request wait for a free connection and fail after the timeout
+      val client = StepikConnectionPool.configure(HttpClientBuilder.create())
+        .setDefaultRequestConfig(RequestConfig.custom().setConnectionRequestTimeout(1000).build())
+        .build()
+      val url = "http://${server.address.hostString}:${server.address.port}${StepikNames.VIEWS}"
+      repeat(StepikConnectionPool.MAX_CONNECTIONS_PER_ROUTE * 2) {
+        assertEquals(HttpStatus.SC_CREATED, StepikConnector.executeForStatus(client, HttpPost(url)))
+      }
+      assertEquals(0, StepikConnectionPool.getPoolStats().leased)
+    }
+    finally {
+      server.stop(0)
+    }
+  }
+}
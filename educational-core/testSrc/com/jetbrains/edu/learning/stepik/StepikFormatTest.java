@@ -17,7 +17,9 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
+import java.io.FileReader;
 import java.io.IOException;
+import java.io.Reader;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -105,6 +107,20 @@ public class StepikFormatTest extends EduTestCase {
     assertEquals("Incorrect number of courses", 4, container.courses.size());
   }
 
+  public void testStreamingDeserialization() throws IOException {
+    try (Reader reader = new FileReader(new File(getTestDataPath(), "availableCourses.json"))) {
+      StepikWrappers.CoursesContainer container =
+        StepikClient.deserializeStepikResponse(StepikWrappers.CoursesContainer.class, reader, null);
+      assertNotNull(container.courses);
+      assertEquals("Incorrect number of courses", 4, container.courses.size());
+    }
+  }
+
+  public void testGsonIsCreatedOncePerLanguage() {
+    assertSame(getGson(createParams(EduNames.PYTHON)), getGson(createParams(EduNames.PYTHON)));
+    assertNotSame(getGson(createParams(EduNames.PYTHON)), getGson(createParams(EduNames.KOTLIN)));
+  }
+
   public void testPlaceholderSerialization() throws IOException {
     final Gson gson = new GsonBuilder().setPrettyPrinting().excludeFieldsWithoutExposeAnnotation().create();
     AnswerPlaceholder answerPlaceholder = new AnswerPlaceholder();
@@ -0,0 +1,61 @@
+package com.jetbrains.edu.learning.stepik
+
+import com.jetbrains.edu.learning.EduTestCase
+import java.io.IOException
+import java.util.concurrent.Callable
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+class StepikParallelRequestsTest : EduTestCase() {
+
+  fun `test results keep order of requests`() {
+    // every request waits until the next one is finished, so responses are received in reverse order
+    val finished = List(CHUNKS) { CountDownLatch(1) }
+    val requests = (0 until CHUNKS).map { index ->
+      Callable {
+        if (index + 1 < CHUNKS) {
+          await(finished[index + 1])
+        }
+        finished[index].countDown()
+        index
+      }
+    }
+    assertEquals((0 until CHUNKS).toList(), StepikConnector.invokeInOrder(requests))
+  }
+
+  fun `test chunks are requested concurrently`() {
+    // every request waits until all of them are started, it's possible only if they run concurrently
+    val started = CountDownLatch(CHUNKS)
+    val requests = (0 until CHUNKS).map {
+      Callable {
+        started.countDown()
+        started.await(TIMEOUT_SECONDS, TimeUnit.SECONDS)
+      }
+    }
+    assertEquals(List(CHUNKS) { true }, StepikConnector.invokeInOrder(requests))
+  }
+
+  fun `test request failure is propagated`() {
+    val requests = listOf(mockRequest { 1 }, mockRequest { throw IOException("Stepik is unavailable") })
+    try {
+      StepikConnector.invokeInOrder(requests)
+      fail("IOException expected")
+    }
+    catch (e: IOException) {
+      assertEquals("Stepik is unavailable", e.message)
+    }
+  }
+
+  private fun mockRequest(response: () -> Int): Callable<Int> = Callable { response() }
+
+  private fun await(latch: CountDownLatch) {
+    if (!latch.await(TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+      throw IOException("Request wasn't finished in $TIMEOUT_SECONDS seconds")
+    }
+  }
+
+  companion object {
+    private const val CHUNKS = 6
+    private const val TIMEOUT_SECONDS = 10L
+  }
+}
@@ -0,0 +1,127 @@
+package com.jetbrains.edu.learning.stepik
+
+import com.intellij.openapi.util.io.FileUtil
+import com.jetbrains.edu.learning.EduTestCase
+import org.apache.http.HttpHeaders
+import org.apache.http.HttpStatus
+import org.apache.http.HttpVersion
+import org.apache.http.client.methods.HttpGet
+import org.apache.http.message.BasicHttpResponse
+import java.io.File
+import java.nio.charset.Charset
+
+class StepikResponseCacheTest : EduTestCase() {
+  private lateinit var cacheDir: File
+
+  override fun setUp() {
+    super.setUp()
+    cacheDir = FileUtil.createTempDirectory("stepik-cache", null)
+  }
+
+  override fun tearDown() {
+    try {
+      FileUtil.delete(cacheDir)
+    }
+    finally {
+      super.tearDown()
+    }
+  }
+
+  fun `test cached response is restored`() {
+    StepikResponseCache(cacheDir, 1024).store(StepikResponseCache.ANONYMOUS_SCOPE, LINK, BODY, "\"1\"")
+
+    // new instance reads the cache from disk as after IDE restart
+    val entry = StepikResponseCache(cacheDir, 1024).get(StepikResponseCache.ANONYMOUS_SCOPE, LINK)
+    assertNotNull(entry)
+    assertEquals(BODY, FileUtil.loadTextAndClose(entry!!.openReader()))
+
+    val request = HttpGet(LINK)
+    entry.addConditionalHeaders(request)
+    assertEquals("\"1\"", request.getFirstHeader(HttpHeaders.IF_NONE_MATCH).value)
+  }
+
+  fun `test entries are separated by scope`() {
+    val cache = StepikResponseCache(cacheDir, 1024)
+    cache.store("user1", LINK, BODY, null)
+    assertNull(cache.get("user2", LINK))
+    assertNull(cache.get(StepikResponseCache.ANONYMOUS_SCOPE, LINK))
+  }
+
+  fun `test least recently used entry is evicted`() {
+    val cache = StepikResponseCache(cacheDir, (BODY.length * 2).toLong())
+    cache.store(StepikResponseCache.ANONYMOUS_SCOPE, "/steps/1", BODY, null)
+    cache.store(StepikResponseCache.ANONYMOUS_SCOPE, "/steps/2", BODY, null)
+    assertNotNull(cache.get(StepikResponseCache.ANONYMOUS_SCOPE, "/steps/1"))
+
+    cache.store(StepikResponseCache.ANONYMOUS_SCOPE, "/steps/3", BODY, null)
+
+    assertNotNull(cache.get(StepikResponseCache.ANONYMOUS_SCOPE, "/steps/1"))
+    assertNull(cache.get(StepikResponseCache.ANONYMOUS_SCOPE, "/steps/2"))
+    assertNotNull(cache.get(StepikResponseCache.ANONYMOUS_SCOPE, "/steps/3"))
+  }
+
+  fun `test entry is replaced without temp files left`() {
+    val cache = StepikResponseCache(cacheDir, 1024)
+    cache.store(StepikResponseCache.ANONYMOUS_SCOPE, LINK, BODY, "\"1\"")
+    cache.store(StepikResponseCache.ANONYMOUS_SCOPE, LINK, NEW_BODY, "\"2\"")
+
+    val entry = StepikResponseCache(cacheDir, 1024).get(StepikResponseCache.ANONYMOUS_SCOPE, LINK)!!
+    assertEquals(NEW_BODY, FileUtil.loadTextAndClose(entry.openReader()))
+    val request = HttpGet(LINK)
+    entry.addConditionalHeaders(request)
+    assertEquals("\"2\"", request.getFirstHeader(HttpHeaders.IF_NONE_MATCH).value)
+    assertEquals(2, cacheDir.listFiles()!!.size)
+  }
+
+  fun `test user data is not cacheable`() {
+    assertTrue(StepikResponseCache.isCacheable("/steps/?ids[]=1"))
+    assertFalse(StepikResponseCache.isCacheable(StepikNames.SUBMISSIONS + "?step=1"))
+    assertFalse(StepikResponseCache.isCacheable(StepikNames.PROGRESS + "?ids[]=77-1"))
+  }
+
+  fun `test entry body is kept until entry is closed`() {
+    val cache = StepikResponseCache(cacheDir, (BODY.length * 2).toLong())
+    cache.store(StepikResponseCache.ANONYMOUS_SCOPE, "/steps/1", BODY, null)
+    val entry = cache.get(StepikResponseCache.ANONYMOUS_SCOPE, "/steps/1")!!
+
+    // replaced and then evicted while the entry is being read by a request
+    cache.store(StepikResponseCache.ANONYMOUS_SCOPE, "/steps/1", NEW_BODY, null)
+    cache.store(StepikResponseCache.ANONYMOUS_SCOPE, "/steps/2", BODY, null)
+    cache.store(StepikResponseCache.ANONYMOUS_SCOPE, "/steps/3", BODY, null)
+    assertNull(cache.get(StepikResponseCache.ANONYMOUS_SCOPE, "/steps/1"))
+
+    assertEquals(BODY, FileUtil.loadTextAndClose(entry.openReader()))
+    val filesCount = cacheDir.listFiles()!!.size
+    entry.close()
+    assertEquals(filesCount - 1, cacheDir.listFiles()!!.size)
+  }
+
+  fun `test body is read in response charset`() {
+    val cache = StepikResponseCache(cacheDir, 1024)
+    val charset = Charset.forName("windows-1251")
+    val body = """{"title": "Курс"}"""
+    cache.put(StepikResponseCache.ANONYMOUS_SCOPE, LINK, body.toByteArray(charset).inputStream(), okResponse(null), charset).close()
+
+    val entry = StepikResponseCache(cacheDir, 1024).get(StepikResponseCache.ANONYMOUS_SCOPE, LINK)!!
+    assertEquals(body, FileUtil.loadTextAndClose(entry.openReader()))
+    entry.close()
+  }
+
+  private fun StepikResponseCache.store(scope: String, link: String, body: String, eTag: String?) {
+    put(scope, link, body.byteInputStream(), okResponse(eTag), Charsets.UTF_8).close()
+  }
+
+  private fun okResponse(eTag: String?): BasicHttpResponse {
+    val response = BasicHttpResponse(HttpVersion.HTTP_1_1, HttpStatus.SC_OK, "OK")
+    if (eTag != null) {
+      response.addHeader(HttpHeaders.ETAG, eTag)
+    }
+    return response
+  }
+
+  companion object {
+    private const val LINK = "/lessons/1"
+    private const val BODY = """{"lessons": []}"""
+    private const val NEW_BODY = """{"lessons": [{"id": 1}]}"""
+  }
+}